@@ -1,14 +1,30 @@
 package com.example.demo;
 
+import com.example.demo.controller.HibernateUtil;
 import com.example.demo.controller.MainController;
+import com.example.demo.controller.NameSearchIndex;
 import com.example.demo.controller.SortController;
+import com.example.demo.controller.TombstonePurgeJob;
 import com.example.demo.view.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 
 public class EmployeeManagementApp extends Application {
+    private static final String TITLE = "Zarządzanie Pracownikami";
+
+    @Override
+    public void init() {
+        // Połączenie z bazą i budowa SessionFactory startują w tle, zanim powstanie okno;
+        // zaraz po nich budowany jest indeks nazw do wyszukiwania częściowego
+        // i planowane czyszczenie starych, miękko usuniętych pracowników
+        HibernateUtil.startBootstrap()
+                .thenRun(NameSearchIndex::warmUp)
+                .thenRun(TombstonePurgeJob::start);
+    }
+
     @Override
     public void start(Stage stage) {
         // Tworzenie komponentów GUI
@@ -42,9 +58,15 @@ public class EmployeeManagementApp extends Application {
         // Zastosowanie stylów
         StyleManager.applyStyles(scene);
         
-        stage.setTitle("Zarządzanie Pracownikami");
+        stage.setTitle(TITLE);
         stage.setScene(scene);
         stage.show();
+
+        // Postęp uruchamiania warstwy danych w tytule okna
+        HibernateUtil.addBootstrapListener(phase -> Platform.runLater(() -> stage.setTitle(
+                phase == HibernateUtil.BootstrapPhase.READY
+                        ? TITLE
+                        : TITLE + " - " + phase.getDescription() + "...")));
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,44 @@
+package com.example.demo.controller;
+
+import org.hibernate.Session;
+
+import java.util.Collection;
+import java.util.function.BiConsumer;
+
+/**
+ * Wspólna obsługa zapisów wsadowych dla DAO: cała kolekcja w jednej jednostce pracy,
+ * flush co BATCH_SIZE encji (zgodnie z hibernate.jdbc.batch_size). Kontekst persystencji
+ * jest czyszczony co paczkę tylko, gdy zapis sam otwiera jednostkę pracy - wewnątrz większej
+ * clear() odłączyłby też jej encje i ich późniejsze zmiany nie trafiłyby do bazy.
+ */
+final class BatchWriter {
+    static final int BATCH_SIZE = 50;
+
+    private BatchWriter() {
+    }
+
+    static <T> void write(Collection<? extends T> entities, BiConsumer<Session, T> operation) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+        boolean ownsUnit = !UnitOfWork.isActive();
+        UnitOfWork.inTransaction(session -> {
+            Integer previousBatchSize = session.getJdbcBatchSize();
+            session.setJdbcBatchSize(BATCH_SIZE);
+            int count = 0;
+            for (T entity : entities) {
+                operation.accept(session, entity);
+                if (++count % BATCH_SIZE == 0) {
+                    // wysyłamy paczkę do bazy i zwalniamy pamięć kontekstu persystencji
+                    session.flush();
+                    if (ownsUnit) {
+                        session.clear();
+                    }
+                }
+            }
+            session.flush();
+            session.setJdbcBatchSize(previousBatchSize);
+            return null;
+        });
+    }
+}
@@ -2,143 +2,251 @@ package com.example.demo.controller;
 
 import com.example.demo.model.ClassEmployee;
 import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeRow;
+import com.example.demo.model.OperationType;
+import jakarta.persistence.LockModeType;
 import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 
 public class ClassEmployeeDAO {
-    private final SessionFactory sessionFactory;
+    private static final String FIND_BY_NAME_HQL = "FROM ClassEmployee WHERE groupName = :name";
+    private static final String GROUP_NAMES_HQL = "SELECT groupName FROM ClassEmployee ORDER BY groupName";
+    private static final String GROUP_NAMES_AFTER_HQL =
+            "SELECT groupName FROM ClassEmployee WHERE groupName > :after ORDER BY groupName";
+    private static final String STARTUP_SUMMARY_HQL =
+            "SELECT COUNT(c), (SELECT COUNT(e) FROM Employee e), (SELECT COUNT(r) FROM Rate r) FROM ClassEmployee c";
+    private static final String EMPLOYEE_ROWS_HQL =
+            "SELECT new com.example.demo.model.EmployeeRow(e.id, e.firstName, e.lastName, " +
+            "e.condition, e.birthYear, e.salary, g.groupName) " +
+            "FROM Employee e JOIN e.group g WHERE g.groupName = :groupName ORDER BY e.id";
 
-    public ClassEmployeeDAO() {
-        this.sessionFactory = HibernateUtil.getSessionFactory();
+    /**
+     * Kompiluje najczęstsze zapytania do cache planów zapytań (wywoływane przy starcie)
+     */
+    static void warmUpQueries(Session session) {
+        session.createQuery(FIND_BY_NAME_HQL, ClassEmployee.class);
+        session.createQuery(GROUP_NAMES_HQL, String.class);
+        session.createQuery(GROUP_NAMES_AFTER_HQL, String.class);
+        session.createQuery(STARTUP_SUMMARY_HQL, Object[].class);
+        session.createQuery(EMPLOYEE_ROWS_HQL, EmployeeRow.class);
+    }
+
+    /**
+     * Po zatwierdzeniu zmian grup: czyści zapytania o grupy w cache i indeks nazw
+     * (trzyma przypisania do grup, więc budowany jest od nowa) oraz ranking najlepiej
+     * zarabiających (usunięcie grupy usuwa jej pracowników)
+     */
+    private static void markGroupsChanged() {
+        UnitOfWork.afterCommit(() -> {
+            SecondLevelCache.evictGroupQueries();
+            NameSearchIndex.invalidate();
+            TopEarnersCache.invalidate();
+        });
     }
 
     public void save(ClassEmployee group) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
+        UnitOfWork.inTransaction(session -> {
             session.persist(group);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            session.close();
-        }
+            GroupStatsDAO.groupCreated(session, group.getId());
+            markGroupsChanged();
+            return null;
+        });
     }
 
     public void update(ClassEmployee group) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.merge(group);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            session.close();
-        }
+        UnitOfWork.inTransaction(session -> {
+            ClassEmployee merged = session.merge(group);
+            // kaskada merge mogła dodać albo usunąć pracowników i oceny grupy
+            GroupStatsDAO.recompute(session, List.of(merged.getId()));
+            markGroupsChanged();
+            return null;
+        });
     }
 
     public void delete(ClassEmployee group) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.remove(group);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            session.close();
+        UnitOfWork.inTransaction(session -> {
+            removeGroup(session, group);
+            markGroupsChanged();
+            return null;
+        });
+    }
+
+    public void saveAll(Collection<ClassEmployee> groups) {
+        BatchWriter.write(groups, (session, group) -> {
+            session.persist(group);
+            GroupStatsDAO.groupCreated(session, group.getId());
+        });
+        markGroupsChanged();
+    }
+
+    public void updateAll(Collection<ClassEmployee> groups) {
+        UnitOfWork.inTransaction("ClassEmployeeDAO.updateAll", session -> {
+            BatchWriter.write(groups, Session::merge);
+            GroupStatsDAO.recompute(session, groups.stream().map(ClassEmployee::getId).filter(Objects::nonNull).toList());
+            return null;
+        });
+        markGroupsChanged();
+    }
+
+    public void deleteAll(Collection<ClassEmployee> groups) {
+        UnitOfWork.inTransaction("ClassEmployeeDAO.deleteAll", session -> {
+            BatchWriter.write(groups, ClassEmployeeDAO::removeGroup);
+            markGroupsChanged();
+            return null;
+        });
+    }
+
+    /**
+     * Usuwa grupę razem z pracownikami. Kaskada na Employee tylko oznaczyłaby ich jako
+     * usuniętych (@SoftDelete), a pozostałe wiersze z kluczem obcym zablokowałyby DELETE grupy,
+     * więc pracownicy grupy (także wcześniej usunięci miękko) są usuwani na stałe. Żywi
+     * pracownicy są przedtem blokowani i zapisywani w audycie jak przy zwykłym usunięciu.
+     */
+    private static void removeGroup(Session session, ClassEmployee group) {
+        GroupStatsDAO.groupRemoved(session, group.getId());
+        List<Long> members = session.createQuery(
+                        "SELECT e.id FROM Employee e WHERE e.group.id = :groupId ORDER BY e.id", Long.class)
+                .setParameter("groupId", group.getId())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .list();
+        if (!members.isEmpty()) {
+            EmployeeDAO.writeAudit(session, members, OperationType.DELETE, "group removed: " + group.getGroupName());
+            EmployeeDAO.markWritten();
+            UnitOfWork.afterCommit(() -> members.forEach(id -> {
+                NameSearchIndex.remove(id);
+                TopEarnersCache.remove(id);
+            }));
+        }
+        session.createNativeQuery("DELETE FROM employees WHERE group_id = :groupId", Object.class)
+                .addSynchronizedEntityClass(Employee.class)
+                .setParameter("groupId", group.getId())
+                .executeUpdate();
+        // encja ładowana na nowo, żeby kaskada nie widziała już usuniętych pracowników
+        ClassEmployee managed = session.get(ClassEmployee.class, group.getId());
+        if (managed != null) {
+            session.remove(managed);
         }
     }
 
     public ClassEmployee findById(Long id) {
-        Session session = sessionFactory.openSession();
-        try {
-            return session.get(ClassEmployee.class, id);
-        } finally {
-            session.close();
-        }
+        return UnitOfWork.readOnly(session -> session.get(ClassEmployee.class, id));
     }
 
     public ClassEmployee findByName(String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
-            Query<ClassEmployee> query = session.createQuery(
-                    "FROM ClassEmployee WHERE groupName = :name", ClassEmployee.class);
+        return UnitOfWork.readOnly(session -> {
+            Query<ClassEmployee> query = session.createQuery(FIND_BY_NAME_HQL, ClassEmployee.class);
             query.setParameter("name", groupName);
+            query.setCacheable(true);
+            query.setCacheRegion(SecondLevelCache.GROUP_QUERY_REGION);
             return query.uniqueResult();
-        } finally {
-            session.close();
-        }
+        });
     }
 
     public List<ClassEmployee> findAll() {
-        Session session = sessionFactory.openSession();
-        try {
-            return session.createQuery("FROM ClassEmployee", ClassEmployee.class).list();
-        } finally {
-            session.close();
-        }
+        return UnitOfWork.readOnly(session -> session.createQuery("FROM ClassEmployee", ClassEmployee.class).list());
     }
 
     public List<String> findAllGroupNames() {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
+            Query<String> query = session.createQuery(GROUP_NAMES_HQL, String.class);
+            query.setCacheable(true);
+            query.setCacheRegion(SecondLevelCache.GROUP_QUERY_REGION);
+            return query.list();
+        });
+    }
+
+    /**
+     * Kolejna porcja nazw grup (paginacja keyset po nazwie; afterName == null - od początku)
+     */
+    public List<String> findGroupNamesAfter(String afterName, int limit) {
+        return UnitOfWork.readOnly(session -> {
             Query<String> query = session.createQuery(
-                    "SELECT groupName FROM ClassEmployee ORDER BY groupName", String.class);
+                    afterName == null ? GROUP_NAMES_HQL : GROUP_NAMES_AFTER_HQL, String.class);
+            if (afterName != null) {
+                query.setParameter("after", afterName);
+            }
+            query.setMaxResults(limit);
             return query.list();
-        } finally {
-            session.close();
-        }
+        });
+    }
+
+    /**
+     * Liczba grup, pracowników i ocen jednym zapytaniem agregującym
+     * (zamiast ładowania wszystkich encji tylko po to, żeby policzyć ich rozmiar)
+     */
+    public StartupSummary getStartupSummary() {
+        return UnitOfWork.readOnly(session -> {
+            Object[] row = session.createQuery(STARTUP_SUMMARY_HQL, Object[].class).uniqueResult();
+            return new StartupSummary(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue());
+        });
     }
 
     public void addEmployeeToGroup(String groupName, Employee employee) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
+        UnitOfWork.inTransaction(session -> {
             ClassEmployee group = findByName(groupName);
             if (group != null) {
                 employee.setGroup(group);
                 session.persist(employee);
-                transaction.commit();
-            }
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+                GroupStatsDAO.employeesAdded(session, List.of(employee));
+                EmployeeDAO.markWritten();
+                UnitOfWork.afterCommit(() -> {
+                    NameSearchIndex.put(employee);
+                    TopEarnersCache.put(employee);
+                });
             }
-            throw e;
-        } finally {
-            session.close();
-        }
+            return null;
+        });
     }
 
     public List<Employee> getEmployeesByGroupName(String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             Query<Employee> query = session.createQuery(
                     "FROM Employee e WHERE e.group.groupName = :groupName", Employee.class);
             query.setParameter("groupName", groupName);
             return query.list();
-        } finally {
-            session.close();
+        });
+    }
+
+    /**
+     * Lekka projekcja pracowników grupy do odczytu (bez encji zarządzanych)
+     */
+    public List<EmployeeRow> getEmployeeRowsByGroupName(String groupName) {
+        return UnitOfWork.readOnly(session -> {
+            Query<EmployeeRow> query = session.createQuery(EMPLOYEE_ROWS_HQL, EmployeeRow.class);
+            query.setParameter("groupName", groupName);
+            return query.list();
+        });
+    }
+
+    /**
+     * Podsumowanie zawartości bazy wyświetlane po starcie aplikacji
+     */
+    public static class StartupSummary {
+        private final long groupCount;
+        private final long employeeCount;
+        private final long rateCount;
+
+        public StartupSummary(long groupCount, long employeeCount, long rateCount) {
+            this.groupCount = groupCount;
+            this.employeeCount = employeeCount;
+            this.rateCount = rateCount;
+        }
+
+        public long getGroupCount() {
+            return groupCount;
+        }
+
+        public long getEmployeeCount() {
+            return employeeCount;
+        }
+
+        public long getRateCount() {
+            return rateCount;
         }
     }
 }
-
@@ -0,0 +1,129 @@
+package com.example.demo.controller;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metryki puli połączeń: liczba aktywnych/bezczynnych połączeń, wątki czekające
+ * na połączenie oraz czas pozyskania połączenia z puli.
+ */
+public class ConnectionPoolMetrics implements MetricsTrackerFactory {
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquisitionNanos = new LongAdder();
+    private final AtomicLong maxAcquisitionNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder usages = new LongAdder();
+    private final LongAdder usageMillis = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private volatile HikariPoolMXBean pool;
+
+    void attach(HikariPoolMXBean pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                created.increment();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquisitions.increment();
+                acquisitionNanos.add(elapsedAcquiredNanos);
+                maxAcquisitionNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usages.increment();
+                usageMillis.add(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public Snapshot snapshot() {
+        HikariPoolMXBean current = pool;
+        long count = acquisitions.sum();
+        long totalNanos = acquisitionNanos.sum();
+        long usageCount = usages.sum();
+        return new Snapshot(
+                current != null ? current.getActiveConnections() : 0,
+                current != null ? current.getIdleConnections() : 0,
+                current != null ? current.getTotalConnections() : 0,
+                current != null ? current.getThreadsAwaitingConnection() : 0,
+                count,
+                totalNanos / 1_000_000.0,
+                count > 0 ? totalNanos / (double) count / 1_000_000.0 : 0.0,
+                maxAcquisitionNanos.get() / 1_000_000.0,
+                timeouts.sum(),
+                usageCount > 0 ? usageMillis.sum() / (double) usageCount : 0.0,
+                created.sum());
+    }
+
+    /**
+     * Migawka metryk puli (czasy w milisekundach)
+     */
+    public static class Snapshot {
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int totalConnections;
+        private final int threadsAwaiting;
+        private final long acquisitionCount;
+        private final double totalWaitMillis;
+        private final double averageAcquisitionMillis;
+        private final double maxAcquisitionMillis;
+        private final long timeoutCount;
+        private final double averageUsageMillis;
+        private final long connectionsCreated;
+
+        public Snapshot(int activeConnections, int idleConnections, int totalConnections, int threadsAwaiting,
+                        long acquisitionCount, double totalWaitMillis, double averageAcquisitionMillis,
+                        double maxAcquisitionMillis, long timeoutCount, double averageUsageMillis,
+                        long connectionsCreated) {
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.totalConnections = totalConnections;
+            this.threadsAwaiting = threadsAwaiting;
+            this.acquisitionCount = acquisitionCount;
+            this.totalWaitMillis = totalWaitMillis;
+            this.averageAcquisitionMillis = averageAcquisitionMillis;
+            this.maxAcquisitionMillis = maxAcquisitionMillis;
+            this.timeoutCount = timeoutCount;
+            this.averageUsageMillis = averageUsageMillis;
+            this.connectionsCreated = connectionsCreated;
+        }
+
+        public int getActiveConnections() { return activeConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getTotalConnections() { return totalConnections; }
+        public int getThreadsAwaiting() { return threadsAwaiting; }
+        public long getAcquisitionCount() { return acquisitionCount; }
+        public double getTotalWaitMillis() { return totalWaitMillis; }
+        public double getAverageAcquisitionMillis() { return averageAcquisitionMillis; }
+        public double getMaxAcquisitionMillis() { return maxAcquisitionMillis; }
+        public long getTimeoutCount() { return timeoutCount; }
+        public double getAverageUsageMillis() { return averageUsageMillis; }
+        public long getConnectionsCreated() { return connectionsCreated; }
+
+        @Override
+        public String toString() {
+            return String.format("Pool{active=%d, idle=%d, total=%d, waiting=%d, acquisitions=%d, " +
+                            "wait=%.1fms, avgAcquire=%.3fms, maxAcquire=%.3fms, timeouts=%d, avgUsage=%.1fms}",
+                    activeConnections, idleConnections, totalConnections, threadsAwaiting, acquisitionCount,
+                    totalWaitMillis, averageAcquisitionMillis, maxAcquisitionMillis, timeoutCount, averageUsageMillis);
+        }
+    }
+}
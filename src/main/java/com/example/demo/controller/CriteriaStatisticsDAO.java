@@ -1,12 +1,11 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.Rate;
-import org.hibernate.Session;
-import org.hibernate.SessionFactory;
 import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.hibernate.query.criteria.JpaCriteriaQuery;
 import org.hibernate.query.criteria.JpaRoot;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -15,19 +14,12 @@ import java.util.HashMap;
  * Klasa wykorzystująca Criteria API do wykonywania zapytań z grupowaniem
  */
 public class CriteriaStatisticsDAO {
-    private final SessionFactory sessionFactory;
-
-    public CriteriaStatisticsDAO() {
-        this.sessionFactory = HibernateUtil.getSessionFactory();
-    }
-
     /**
      * Używa Criteria API do grupowania ocen po nazwie grupy
      * Zwraca mapę: nazwa grupy -> średnia ocena
      */
     public Map<String, Double> getAverageRatingsByGroup() {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
             JpaCriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
             
@@ -53,9 +45,7 @@ public class CriteriaStatisticsDAO {
             }
             
             return resultMap;
-        } finally {
-            session.close();
-        }
+        });
     }
 
     /**
@@ -63,8 +53,7 @@ public class CriteriaStatisticsDAO {
      * Zwraca mapę: nazwa grupy -> liczba ocen
      */
     public Map<String, Long> getRatingCountsByGroup() {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
             JpaCriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
             
@@ -90,9 +79,7 @@ public class CriteriaStatisticsDAO {
             }
             
             return resultMap;
-        } finally {
-            session.close();
-        }
+        });
     }
 
     /**
@@ -100,8 +87,18 @@ public class CriteriaStatisticsDAO {
      * Zwraca mapę: nazwa grupy -> obiekt ze statystykami (liczba ocen, średnia)
      */
     public Map<String, GroupRatingStats> getGroupRatingStatistics() {
-        Session session = sessionFactory.openSession();
-        try {
+        return getGroupRatingStatistics(null);
+    }
+
+    /**
+     * Statystyki ocen tylko dla podanych grup (null - wszystkie grupy);
+     * używane przy stopniowym ładowaniu listy grup porcjami
+     */
+    public Map<String, GroupRatingStats> getGroupRatingStatistics(Collection<String> groupNames) {
+        if (groupNames != null && groupNames.isEmpty()) {
+            return new HashMap<>();
+        }
+        return UnitOfWork.readOnly(session -> {
             HibernateCriteriaBuilder cb = session.getCriteriaBuilder();
             JpaCriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
             
@@ -115,10 +112,18 @@ public class CriteriaStatisticsDAO {
                 cb.avg(rateRoot.get("value"))
             ));
             
+            if (groupNames != null) {
+                query.where(groupJoin.get("groupName").in(groupNames));
+            }
+            
             // GROUP BY groupName
             query.groupBy(groupJoin.get("groupName"));
             
-            List<Object[]> results = session.createQuery(query).getResultList();
+            // Wynik trafia do cache zapytań - odświeżenie listy grup nie odpytuje bazy
+            List<Object[]> results = session.createQuery(query)
+                    .setCacheable(true)
+                    .setCacheRegion(SecondLevelCache.RATE_QUERY_REGION)
+                    .getResultList();
             
             Map<String, GroupRatingStats> resultMap = new HashMap<>();
             for (Object[] row : results) {
@@ -133,9 +138,7 @@ public class CriteriaStatisticsDAO {
             }
             
             return resultMap;
-        } finally {
-            session.close();
-        }
+        });
     }
 
     /**
@@ -83,14 +83,17 @@ public class DataPersistence {
                     // Użycie HQL do pobrania danych z bazy
                     org.hibernate.Session session = com.example.demo.controller.HibernateUtil.getSessionFactory().openSession();
                     try {
-                        org.hibernate.query.Query<Employee> query = session.createQuery(
-                                "FROM Employee e WHERE e.group.groupName = :groupName ORDER BY e.lastName", 
-                                Employee.class);
+                        // Projekcja zamiast encji - eksport tylko czyta wartości
+                        org.hibernate.query.Query<EmployeeRow> query = session.createQuery(
+                                "SELECT new com.example.demo.model.EmployeeRow(e.id, e.firstName, e.lastName, " +
+                                "e.condition, e.birthYear, e.salary, g.groupName) " +
+                                "FROM Employee e JOIN e.group g WHERE g.groupName = :groupName ORDER BY e.lastName", 
+                                EmployeeRow.class);
                         query.setParameter("groupName", groupName);
-                        List<Employee> employees = query.list();
+                        List<EmployeeRow> employees = query.list();
                         
                         for (int i = 0; i < employees.size(); i++) {
-                            Employee emp = employees.get(i);
+                            EmployeeRow emp = employees.get(i);
                             writer.printf("%s,%s,%s,%d,%.2f%n",
                                     emp.getFirstName(),
                                     emp.getLastName(),
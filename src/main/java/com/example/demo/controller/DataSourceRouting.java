@@ -0,0 +1,55 @@
+package com.example.demo.controller;
+
+/**
+ * Wybór źródła danych dla połączeń pobieranych w bieżącym wątku.
+ *
+ * Jednostki pracy tylko do odczytu (UnitOfWork.readOnly, QueryStreams) oznaczają wątek,
+ * a PooledConnectionProvider kieruje wtedy połączenia do repliki, jeśli jest skonfigurowana
+ * i aktualna. Zapisy zawsze idą do bazy głównej; czas ostatniego zatwierdzonego zapisu
+ * pozwala przez chwilę po nim czytać z bazy głównej (replika mogła go jeszcze nie dostać).
+ */
+public final class DataSourceRouting {
+    private static final ThreadLocal<Boolean> readOnly = ThreadLocal.withInitial(() -> false);
+    private static volatile long lastWriteNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+
+    private DataSourceRouting() {
+    }
+
+    /**
+     * Oznacza wątek jako czytający; zwraca poprzedni stan do przywrócenia w exit()
+     */
+    static boolean enterReadOnly() {
+        boolean previous = readOnly.get();
+        readOnly.set(true);
+        return previous;
+    }
+
+    /**
+     * Kieruje połączenia wątku do bazy głównej także w jednostce tylko do odczytu;
+     * zwraca poprzedni stan do przywrócenia w exit()
+     */
+    static boolean enterPrimary() {
+        boolean previous = readOnly.get();
+        readOnly.set(false);
+        return previous;
+    }
+
+    static void exit(boolean previous) {
+        readOnly.set(previous);
+    }
+
+    public static boolean isReadOnly() {
+        return readOnly.get();
+    }
+
+    /**
+     * Wywoływane po zatwierdzeniu transakcji zapisującej
+     */
+    static void recordWrite() {
+        lastWriteNanos = System.nanoTime();
+    }
+
+    static long nanosSinceLastWrite() {
+        return System.nanoTime() - lastWriteNanos;
+    }
+}
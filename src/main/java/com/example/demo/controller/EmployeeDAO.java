@@ -1,165 +1,592 @@
 package com.example.demo.controller;
 
+import com.example.demo.model.AuditLog;
 import com.example.demo.model.Employee;
 import com.example.demo.model.EmployeeCondition;
+import com.example.demo.model.EmployeeRow;
+import com.example.demo.model.OperationType;
+import jakarta.persistence.LockModeType;
 import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 public class EmployeeDAO {
-    private final SessionFactory sessionFactory;
+    private static final Logger logger = Logger.getLogger(EmployeeDAO.class.getName());
+    private static final String FIND_BY_LAST_NAME_HQL =
+            "FROM Employee e WHERE e.lastName = :lastName AND e.group.groupName = :groupName";
+    private static final String EMPLOYEE_EXISTS_HQL =
+            "SELECT COUNT(e) FROM Employee e WHERE e.firstName = :firstName " +
+            "AND e.lastName = :lastName AND e.group.groupName = :groupName";
+    private static final String UPDATED_ROWS_HQL =
+            "SELECT new com.example.demo.model.EmployeeRow(e.id, e.firstName, e.lastName, " +
+            "e.condition, e.birthYear, e.salary, g.groupName) " +
+            "FROM Employee e LEFT JOIN e.group g WHERE e.id IN :ids";
+    // Maksymalna liczba id w jednej liście IN operacji zbiorczych
+    private static final int BULK_CHUNK = 1000;
 
-    public EmployeeDAO() {
-        this.sessionFactory = HibernateUtil.getSessionFactory();
+    // Zwiększany po każdym zatwierdzonym zapisie; pozwala cache'om wyników wykryć nieaktualne dane
+    private static final AtomicLong writeVersion = new AtomicLong();
+
+    public static long getWriteVersion() {
+        return writeVersion.get();
+    }
+
+    /**
+     * Kompiluje najczęstsze zapytania do cache planów zapytań (wywoływane przy starcie)
+     */
+    static void warmUpQueries(Session session) {
+        session.createQuery(FIND_BY_LAST_NAME_HQL, Employee.class);
+        session.createQuery(EMPLOYEE_EXISTS_HQL, Long.class);
+    }
+
+    static void markWritten() {
+        UnitOfWork.afterCommit(writeVersion::incrementAndGet);
     }
 
     public void save(Employee employee) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
+        UnitOfWork.inTransaction(session -> {
             session.persist(employee);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+            GroupStatsDAO.employeesAdded(session, List.of(employee));
+            markWritten();
+            UnitOfWork.afterCommit(() -> {
+                NameSearchIndex.put(employee);
+                TopEarnersCache.put(employee);
+            });
+            return null;
+        });
+    }
+
+    public void update(Employee employee) {
+        UnitOfWork.inTransaction(session -> {
+            Set<Long> groupIds = GroupStatsDAO.groupIdsOf(session, Employee.class, idsOf(List.of(employee)));
+            Employee merged = session.merge(employee);
+            groupIds.add(merged.getGroup().getId());
+            GroupStatsDAO.recomputeEmployees(session, groupIds);
+            markWritten();
+            UnitOfWork.afterCommit(() -> {
+                NameSearchIndex.put(merged);
+                TopEarnersCache.put(merged);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Zapisuje pola edytowane w tabeli: encja jest ładowana po id dopiero tutaj,
+     * więc widok może trzymać odłączone obiekty zbudowane z projekcji
+     */
+    public void updateDetails(Employee edited) throws ExceptionHandler.InvalidEmployeeDataException {
+        UnitOfWork.inTransaction(session -> {
+            Employee employee = session.get(Employee.class, edited.getId());
+            if (employee == null) {
+                throw new ExceptionHandler.InvalidEmployeeDataException("Pracownik nie istnieje (mógł zostać usunięty).");
+            }
+            employee.setFirstName(edited.getFirstName());
+            employee.setLastName(edited.getLastName());
+            employee.setCondition(edited.getCondition());
+            employee.setBirthYear(edited.getBirthYear());
+            double salaryDelta = edited.getSalary() - employee.getSalary();
+            employee.setSalary(edited.getSalary());
+            if (salaryDelta != 0) {
+                GroupStatsDAO.employeesChanged(session, employee.getGroup().getId(), 0, salaryDelta);
+            }
+            markWritten();
+            UnitOfWork.afterCommit(() -> {
+                NameSearchIndex.put(employee);
+                TopEarnersCache.put(employee);
+            });
+            return null;
+        });
+    }
+
+    public void deleteById(Long id) {
+        softDelete(List.of(id));
+    }
+
+    public void delete(Employee employee) {
+        softDelete(List.of(employee.getId()));
+    }
+
+    public void saveAll(Collection<Employee> employees) {
+        UnitOfWork.inTransaction("EmployeeDAO.saveAll", session -> {
+            BatchWriter.write(employees, Session::persist);
+            GroupStatsDAO.employeesAdded(session, employees);
+            markWritten();
+            UnitOfWork.afterCommit(() -> employees.forEach(employee -> {
+                NameSearchIndex.put(employee);
+                TopEarnersCache.put(employee);
+            }));
+            return null;
+        });
+    }
+
+    public void updateAll(Collection<Employee> employees) {
+        UnitOfWork.inTransaction("EmployeeDAO.updateAll", session -> {
+            // statystyki przeliczamy w grupach, w których pracownicy byli i w których są po zmianie
+            Set<Long> groupIds = GroupStatsDAO.groupIdsOf(session, Employee.class, idsOf(employees));
+            BatchWriter.write(employees, Session::merge);
+            for (Employee employee : employees) {
+                if (employee.getGroup() != null) {
+                    groupIds.add(employee.getGroup().getId());
+                }
             }
-            throw e;
-        } finally {
-            session.close();
+            GroupStatsDAO.recomputeEmployees(session, groupIds);
+            markWritten();
+            UnitOfWork.afterCommit(() -> employees.forEach(employee -> {
+                NameSearchIndex.put(employee);
+                TopEarnersCache.put(employee);
+            }));
+            return null;
+        });
+    }
+
+    public void deleteAll(Collection<Employee> employees) {
+        softDelete(idsOf(employees));
+    }
+
+    private static List<Long> idsOf(Collection<Employee> employees) {
+        List<Long> ids = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            ids.add(employee.getId());
         }
+        return ids;
     }
 
-    public void update(Employee employee) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.merge(employee);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+    /**
+     * Miękkie usunięcie wybranych pracowników (UPDATE ... WHERE id IN, paczkami po BULK_CHUNK);
+     * zwraca id faktycznie usuniętych (bez już usuniętych i nieistniejących) - do cofnięcia
+     * przez restore(). Wiersze znikają ze wszystkich zapytań, ale zostają w tabeli
+     * do czasu purgeDeleted(), więc można je przywrócić.
+     */
+    public List<Long> softDelete(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        return UnitOfWork.inTransaction("softDelete", session -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> deleted = new ArrayList<>(idList.size());
+            GroupStatsDAO.Deltas removed = new GroupStatsDAO.Deltas();
+            for (int from = 0; from < idList.size(); from += BULK_CHUNK) {
+                List<Long> chunk = idList.subList(from, Math.min(from + BULK_CHUNK, idList.size()));
+                // tylko żywe wiersze (tę samą paczkę blokujemy, żeby audyt i statystyki grup zgadzały się z UPDATE)
+                List<Object[]> rows = session.createQuery(
+                                "SELECT e.id, e.group.id, e.salary FROM Employee e WHERE e.id IN :ids", Object[].class)
+                        .setParameterList("ids", chunk)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .list();
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                List<Long> live = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    live.add((Long) row[0]);
+                    removed.add((Long) row[1], -1, -(Double) row[2]);
+                }
+                employeesUpdate(session, "UPDATE employees SET deleted = TRUE, deleted_at = :now, updated_at = :now "
+                        + "WHERE id IN (:ids)")
+                        .setParameter("now", now)
+                        .setParameterList("ids", live)
+                        .executeUpdate();
+                deleted.addAll(live);
             }
-            throw e;
-        } finally {
-            session.close();
+            if (!deleted.isEmpty()) {
+                GroupStatsDAO.employeesChanged(session, removed);
+                writeAudit(session, deleted, OperationType.DELETE, "deleted = true");
+                markWritten();
+                UnitOfWork.afterCommit(() -> deleted.forEach(id -> {
+                    NameSearchIndex.remove(id);
+                    TopEarnersCache.remove(id);
+                }));
+            }
+            logger.info("Soft-deleted " + deleted.size() + " employees");
+            return deleted;
+        });
+    }
+
+    /**
+     * Przywraca miękko usuniętych pracowników; zwraca przywrócone wiersze
+     * (pracownicy już wyczyszczeni przez purgeDeleted() są pomijani)
+     */
+    public List<EmployeeRow> restore(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        List<Long> idList = new ArrayList<>(ids);
+        return UnitOfWork.inTransaction("restore", session -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> restoredIds = new ArrayList<>(idList.size());
+            for (int from = 0; from < idList.size(); from += BULK_CHUNK) {
+                List<Long> chunk = idList.subList(from, Math.min(from + BULK_CHUNK, idList.size()));
+                // tylko faktycznie usunięte (zablokowane, żeby statystyki grup i audyt zgadzały się z UPDATE);
+                // encja z @SoftDelete nie widzi usuniętych wierszy w HQL, stąd natywny SQL
+                List<Long> deleted = session.createNativeQuery(
+                                "SELECT id FROM employees WHERE id IN (:ids) AND deleted = TRUE FOR UPDATE", Long.class)
+                        .setParameterList("ids", chunk)
+                        .list();
+                if (deleted.isEmpty()) {
+                    continue;
+                }
+                employeesUpdate(session, "UPDATE employees SET deleted = FALSE, deleted_at = NULL, "
+                        + "updated_at = :now WHERE id IN (:ids)")
+                        .setParameter("now", now)
+                        .setParameterList("ids", deleted)
+                        .executeUpdate();
+                restoredIds.addAll(deleted);
+            }
+            if (restoredIds.isEmpty()) {
+                return List.of();
+            }
+            List<Employee> employees = session.byMultipleIds(Employee.class)
+                    .withBatchSize(BatchWriter.BATCH_SIZE)
+                    .multiLoad(restoredIds)
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .toList();
+            GroupStatsDAO.employeesAdded(session, employees);
+            writeAudit(session, restoredIds, OperationType.UPDATE, "deleted = false");
+            markWritten();
+            logger.info("Restored " + restoredIds.size() + " employees");
+            UnitOfWork.afterCommit(() -> employees.forEach(employee -> {
+                NameSearchIndex.put(employee);
+                TopEarnersCache.put(employee);
+            }));
+            return readRows(session, restoredIds);
+        });
     }
 
-    public void delete(Employee employee) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.remove(employee);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+    /**
+     * Usuwa na stałe pracowników usuniętych miękko przed cutoff, paczkami po batchSize
+     * (każda paczka w osobnej, krótkiej transakcji); zwraca liczbę usuniętych wierszy.
+     * Nagrobki bez daty usunięcia (np. usunięte kaskadowo przez Hibernate) dostają ją
+     * przy pierwszym przebiegu, więc są czyszczone dopiero po upływie retencji.
+     */
+    public long purgeDeleted(LocalDateTime cutoff, int batchSize) {
+        UnitOfWork.inTransaction("purgeDeleted.stamp", session -> employeesUpdate(session,
+                "UPDATE employees SET deleted_at = :now WHERE deleted = TRUE AND deleted_at IS NULL")
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate());
+        long purged = 0;
+        while (true) {
+            int count = UnitOfWork.inTransaction("purgeDeleted", session -> {
+                List<Long> ids = session.createNativeQuery("SELECT id FROM employees "
+                                + "WHERE deleted = TRUE AND deleted_at < :cutoff ORDER BY deleted_at, id", Long.class)
+                        .setParameter("cutoff", cutoff)
+                        .setMaxResults(batchSize)
+                        .list();
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                return employeesUpdate(session, "DELETE FROM employees WHERE id IN (:ids) AND deleted = TRUE")
+                        .setParameterList("ids", ids)
+                        .executeUpdate();
+            });
+            purged += count;
+            if (count < batchSize) {
+                break;
             }
-            throw e;
-        } finally {
-            session.close();
         }
+        if (purged > 0) {
+            logger.info("Purged " + purged + " soft-deleted employees older than " + cutoff);
+        }
+        return purged;
     }
 
-    public Employee findById(Long id) {
-        Session session = sessionFactory.openSession();
-        try {
-            return session.get(Employee.class, id);
-        } finally {
-            session.close();
+    /**
+     * Natywna modyfikacja tabeli employees; synchronizacja z encją Employee sprawia, że
+     * Hibernate unieważnia tylko zależne od niej wpisy cache zamiast całego cache drugiego poziomu
+     */
+    private static NativeQuery<?> employeesUpdate(Session session, String sql) {
+        return session.createNativeQuery(sql, Object.class).addSynchronizedEntityClass(Employee.class);
+    }
+
+    /**
+     * Podwyżka o podany procent dla całej grupy (opcjonalnie tylko pracowników w danym stanie)
+     * jednym UPDATE; zwraca zmienione wiersze do odświeżenia widoku
+     */
+    public List<EmployeeRow> raiseSalaryInGroup(String groupName, EmployeeCondition condition, double percent) {
+        double factor = raiseFactor(percent);
+        return UnitOfWork.inTransaction("raiseSalaryInGroup", session -> {
+            String scope = " WHERE e.group IN (SELECT c FROM ClassEmployee c WHERE c.groupName = :groupName)"
+                    + (condition != null ? " AND e.condition = :condition" : "");
+            // Blokujemy wiersze zakresu, żeby UPDATE objął dokładnie te, które trafią do audytu
+            Query<Long> idQuery = session.createQuery("SELECT e.id FROM Employee e" + scope + " ORDER BY e.id", Long.class)
+                    .setParameter("groupName", groupName)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+            // jawny typ: bez niego Hibernate rzutuje parametr w wyrażeniu arytmetycznym (błędnie na H2)
+            MutationQuery update = session.createMutationQuery("UPDATE Employee e SET e.salary = e.salary * :factor" + scope)
+                    .setParameter("factor", factor, StandardBasicTypes.DOUBLE)
+                    .setParameter("groupName", groupName);
+            if (condition != null) {
+                idQuery.setParameter("condition", condition);
+                update.setParameter("condition", condition);
+            }
+            List<Long> ids = idQuery.list();
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            int updated = update.executeUpdate();
+            GroupStatsDAO.recomputeEmployees(session, session.createQuery(
+                            "SELECT c.id FROM ClassEmployee c WHERE c.groupName = :groupName", Long.class)
+                    .setParameter("groupName", groupName)
+                    .list());
+            logger.info("Bulk raise " + percent + "% in " + groupName + ": " + updated + " employees");
+            return afterBulkUpdate(session, ids, "salary *= " + factor);
+        });
+    }
+
+    /**
+     * Podwyżka o podany procent dla wybranych pracowników (UPDATE ... WHERE id IN, paczkami po BULK_CHUNK)
+     */
+    public List<EmployeeRow> raiseSalary(Collection<Long> ids, double percent) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        double factor = raiseFactor(percent);
+        return UnitOfWork.inTransaction("raiseSalary", session -> {
+            List<EmployeeRow> rows = updateByIds("raiseSalary", ids, "e.salary = e.salary * :factor",
+                    update -> update.setParameter("factor", factor, StandardBasicTypes.DOUBLE), "salary *= " + factor);
+            GroupStatsDAO.recomputeEmployees(session, GroupStatsDAO.groupIdsOf(session, Employee.class, ids));
+            return rows;
+        });
+    }
+
+    /**
+     * Mnożnik pensji dla podwyżki o percent procent; pensje muszą pozostać dodatnie i skończone
+     */
+    private static double raiseFactor(double percent) {
+        if (!Double.isFinite(percent) || percent <= -100) {
+            throw new IllegalArgumentException("Raise must be a finite percentage greater than -100: " + percent);
+        }
+        return 1 + percent / 100.0;
+    }
+
+    /**
+     * Zmiana stanu wybranych pracowników jednym UPDATE (paczkami po BULK_CHUNK)
+     */
+    public List<EmployeeRow> changeCondition(Collection<Long> ids, EmployeeCondition condition) {
+        return updateByIds("changeCondition", ids, "e.condition = :condition",
+                update -> update.setParameter("condition", condition), "condition = " + condition.name());
+    }
+
+    private List<EmployeeRow> updateByIds(String name, Collection<Long> ids, String assignment,
+                                          Consumer<MutationQuery> binder, String changes) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        return UnitOfWork.inTransaction(name, session -> {
+            List<Long> updated = new ArrayList<>(idList.size());
+            for (int from = 0; from < idList.size(); from += BULK_CHUNK) {
+                // tylko istniejące, nieusunięte wiersze, zablokowane do końca transakcji -
+                // UPDATE i audyt obejmują dokładnie te same id (jak w raiseSalaryInGroup)
+                List<Long> live = session.createQuery("SELECT e.id FROM Employee e WHERE e.id IN :ids ORDER BY e.id",
+                                Long.class)
+                        .setParameterList("ids", idList.subList(from, Math.min(from + BULK_CHUNK, idList.size())))
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .list();
+                if (live.isEmpty()) {
+                    continue;
+                }
+                MutationQuery update = session.createMutationQuery(
+                        "UPDATE Employee e SET " + assignment + " WHERE e.id IN :ids");
+                binder.accept(update);
+                update.setParameterList("ids", live);
+                update.executeUpdate();
+                updated.addAll(live);
+            }
+            logger.info("Bulk " + name + ": " + updated.size() + " employees [" + changes + "]");
+            if (updated.isEmpty()) {
+                return List.of();
+            }
+            return afterBulkUpdate(session, updated, changes);
+        });
+    }
+
+    /**
+     * Wspólne zakończenie operacji zbiorczej: wpisy audytu jednym wsadowym INSERT-em
+     * i odczyt zmienionych wierszy (tylko ich, bez przeładowania grupy); z ich pensji
+     * aktualizowany jest ranking najlepiej zarabiających
+     */
+    private List<EmployeeRow> afterBulkUpdate(Session session, List<Long> ids, String changes) {
+        writeAudit(session, ids, OperationType.UPDATE, changes);
+        List<EmployeeRow> rows = readRows(session, ids);
+        markWritten();
+        UnitOfWork.afterCommit(() -> TopEarnersCache.putRows(rows));
+        return rows;
+    }
+
+    static void writeAudit(Session session, List<Long> ids, OperationType type, String changes) {
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(BatchWriter.BATCH_SIZE);
+        List<AuditLog> batch = new ArrayList<>(BatchWriter.BATCH_SIZE);
+        for (Long id : ids) {
+            AuditLog entry = new AuditLog(type, Employee.class.getSimpleName(), id, null, changes);
+            session.persist(entry);
+            batch.add(entry);
+            if (batch.size() == BatchWriter.BATCH_SIZE) {
+                flushAudit(session, batch);
+            }
+        }
+        flushAudit(session, batch);
+        session.setJdbcBatchSize(previousBatchSize);
+    }
+
+    /**
+     * Zapisuje paczkę wpisów audytu i odłącza tylko je - clear() odłączyłby też encje
+     * transakcji wywołującego
+     */
+    private static void flushAudit(Session session, List<AuditLog> batch) {
+        session.flush();
+        for (AuditLog entry : batch) {
+            session.detach(entry);
+        }
+        batch.clear();
+    }
+
+    private static List<EmployeeRow> readRows(Session session, List<Long> ids) {
+        List<EmployeeRow> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK) {
+            rows.addAll(session.createQuery(UPDATED_ROWS_HQL, EmployeeRow.class)
+                    .setParameterList("ids", ids.subList(from, Math.min(from + BULK_CHUNK, ids.size())))
+                    .list());
+        }
+        return rows;
+    }
+
+    public Employee findById(Long id) {
+        return UnitOfWork.readOnly(session -> session.get(Employee.class, id));
     }
 
     public Employee findByLastName(String lastName, String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
-            Query<Employee> query = session.createQuery(
-                    "FROM Employee e WHERE e.lastName = :lastName AND e.group.groupName = :groupName", 
-                    Employee.class);
+        return UnitOfWork.readOnly(session -> {
+            Query<Employee> query = session.createQuery(FIND_BY_LAST_NAME_HQL, Employee.class);
             query.setParameter("lastName", lastName);
             query.setParameter("groupName", groupName);
             return query.uniqueResult();
-        } finally {
-            session.close();
-        }
+        });
     }
 
+    /**
+     * Pracownicy grupy, których imię lub nazwisko zawiera fragment. Przy gotowym indeksie
+     * nazw ładowani są tylko kandydaci po id; przy zimnym albo ponad MAX_IN_LIST
+     * kandydatach - LIKE '%fragment%' w bazie.
+     */
     public List<Employee> findByPartial(String fragment, String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
+        List<Long> ids = NameSearchIndex.search(fragment, NameSearchIndex.Field.ANY, groupName);
+        if (ids != null && ids.size() <= NameSearchIndex.MAX_IN_LIST) {
+            return findByIds(ids);
+        }
+        return UnitOfWork.readOnly(session -> {
             Query<Employee> query = session.createQuery(
                     "FROM Employee e WHERE (e.firstName LIKE :fragment OR e.lastName LIKE :fragment) " +
                     "AND e.group.groupName = :groupName", Employee.class);
             query.setParameter("fragment", "%" + fragment + "%");
             query.setParameter("groupName", groupName);
             return query.list();
-        } finally {
-            session.close();
+        });
+    }
+
+    /**
+     * Ładuje pracowników po id (w paczkach), w kolejności id
+     */
+    public List<Employee> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        return UnitOfWork.readOnly(session -> session.byMultipleIds(Employee.class)
+                .withBatchSize(BatchWriter.BATCH_SIZE)
+                .multiLoad(ids)
+                .stream()
+                // pomijamy usuniętych od czasu wyszukania
+                .filter(Objects::nonNull)
+                .toList());
     }
 
     public List<Employee> findByCondition(EmployeeCondition condition, String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
-            Query<Employee> query = session.createQuery(
-                    "FROM Employee e WHERE e.condition = :condition AND e.group.groupName = :groupName", 
-                    Employee.class);
-            query.setParameter("condition", condition);
-            query.setParameter("groupName", groupName);
-            return query.list();
-        } finally {
-            session.close();
-        }
+        return UnitOfWork.readOnly(session -> conditionQuery(session, condition, groupName).list());
+    }
+
+    /**
+     * Strumieniowy odpowiednik findByCondition (do zamknięcia przez wywołującego)
+     */
+    public Stream<Employee> streamByCondition(EmployeeCondition condition, String groupName) {
+        return QueryStreams.stream(session -> conditionQuery(session, condition, groupName));
+    }
+
+    private static Query<Employee> conditionQuery(Session session, EmployeeCondition condition, String groupName) {
+        Query<Employee> query = session.createQuery(
+                "FROM Employee e WHERE e.condition = :condition AND e.group.groupName = :groupName",
+                Employee.class);
+        query.setParameter("condition", condition);
+        query.setParameter("groupName", groupName);
+        return query;
     }
 
     public List<Employee> findByMinSalary(double minSalary, String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             Query<Employee> query = session.createQuery(
                     "FROM Employee e WHERE e.salary >= :minSalary AND e.group.groupName = :groupName " +
                     "ORDER BY e.salary DESC", Employee.class);
             query.setParameter("minSalary", minSalary);
             query.setParameter("groupName", groupName);
             return query.list();
-        } finally {
-            session.close();
-        }
+        });
     }
 
     public List<Employee> findBySalaryRange(double min, double max, String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
-            Query<Employee> query = session.createQuery(
-                    "FROM Employee e WHERE e.salary BETWEEN :min AND :max AND e.group.groupName = :groupName " +
-                    "ORDER BY e.salary DESC", Employee.class);
-            query.setParameter("min", min);
-            query.setParameter("max", max);
-            query.setParameter("groupName", groupName);
-            return query.list();
-        } finally {
-            session.close();
-        }
+        return UnitOfWork.readOnly(session -> salaryRangeQuery(session, min, max, groupName).list());
+    }
+
+    /**
+     * Strumieniowy odpowiednik findBySalaryRange (do zamknięcia przez wywołującego)
+     */
+    public Stream<Employee> streamBySalaryRange(double min, double max, String groupName) {
+        return QueryStreams.stream(session -> salaryRangeQuery(session, min, max, groupName));
+    }
+
+    private static Query<Employee> salaryRangeQuery(Session session, double min, double max, String groupName) {
+        Query<Employee> query = session.createQuery(
+                "FROM Employee e WHERE e.salary BETWEEN :min AND :max AND e.group.groupName = :groupName " +
+                "ORDER BY e.salary DESC", Employee.class);
+        query.setParameter("min", min);
+        query.setParameter("max", max);
+        query.setParameter("groupName", groupName);
+        return query;
+    }
+
+    /**
+     * Przekazuje kolejnych pracowników grupy (z dociągniętą grupą) bez budowania listy;
+     * zwraca ich liczbę
+     */
+    public <E extends Exception> long forEachInGroup(String groupName,
+                                                     QueryStreams.RowHandler<? super Employee, E> handler) throws E {
+        return QueryStreams.forEach("EmployeeDAO.forEachInGroup", session -> session.createQuery(
+                        "FROM Employee e JOIN FETCH e.group g WHERE g.groupName = :groupName ORDER BY e.id",
+                        Employee.class)
+                .setParameter("groupName", groupName), handler);
     }
 
     public boolean employeeExists(String firstName, String lastName, String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
-            Query<Long> query = session.createQuery(
-                    "SELECT COUNT(e) FROM Employee e WHERE e.firstName = :firstName " +
-                    "AND e.lastName = :lastName AND e.group.groupName = :groupName", Long.class);
+        return UnitOfWork.readOnly(session -> {
+            Query<Long> query = session.createQuery(EMPLOYEE_EXISTS_HQL, Long.class);
             query.setParameter("firstName", firstName);
             query.setParameter("lastName", lastName);
             query.setParameter("groupName", groupName);
             return query.uniqueResult() > 0;
-        } finally {
-            session.close();
-        }
+        });
     }
 }
-
@@ -0,0 +1,235 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.GroupStats;
+import com.example.demo.model.Rate;
+import org.hibernate.Session;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Model odczytu group_stats: liczba i suma/min/max pensji żywych pracowników oraz liczba
+ * i suma ocen każdej grupy.
+ *
+ * Metody pakietowe wywołują DAO zapisujące pracowników, oceny i grupy wewnątrz swojej
+ * transakcji, więc statystyki zmieniają się atomowo razem z danymi. Liczniki i sumy są
+ * zmieniane przyrostowo (UPDATE ... SET x = x + :delta), MIN/MAX pensji liczone od nowa
+ * z indeksu (group_id, deleted, salary), a zmiany o nieznanych starych wartościach
+ * (merge, podwyżki zbiorcze) przeliczają całe grupy. Zmiany z pominięciem DAO
+ * naprawia rebuildAll().
+ */
+public class GroupStatsDAO {
+    private static final Logger logger = Logger.getLogger(GroupStatsDAO.class.getName());
+    private static final int CHUNK = 1000;
+
+    // salarySum przed employeeCount: MySQL wykonuje przypisania SET od lewej i kolejne
+    // widzą już nowe wartości, więc CASE musi czytać jeszcze starą liczbę pracowników
+    static final String EMPLOYEES_CHANGED_HQL =
+            "UPDATE GroupStats s SET " +
+            "s.salarySum = CASE WHEN s.employeeCount + :count = 0 THEN 0.0 ELSE s.salarySum + :sum END, " +
+            "s.employeeCount = s.employeeCount + :count, " +
+            "s.salaryMin = (SELECT MIN(e.salary) FROM Employee e WHERE e.group.id = s.groupId), " +
+            "s.salaryMax = (SELECT MAX(e.salary) FROM Employee e WHERE e.group.id = s.groupId) " +
+            "WHERE s.groupId = :groupId";
+    private static final String RATES_CHANGED_HQL =
+            "UPDATE GroupStats s SET s.ratingCount = s.ratingCount + :count, s.ratingSum = s.ratingSum + :sum " +
+            "WHERE s.groupId = :groupId";
+    private static final String RECOMPUTE_EMPLOYEES_HQL =
+            "UPDATE GroupStats s SET " +
+            "s.employeeCount = (SELECT COUNT(e) FROM Employee e WHERE e.group.id = s.groupId), " +
+            "s.salarySum = (SELECT COALESCE(SUM(e.salary), 0.0) FROM Employee e WHERE e.group.id = s.groupId), " +
+            "s.salaryMin = (SELECT MIN(e.salary) FROM Employee e WHERE e.group.id = s.groupId), " +
+            "s.salaryMax = (SELECT MAX(e.salary) FROM Employee e WHERE e.group.id = s.groupId) " +
+            "WHERE s.groupId IN :groupIds";
+    private static final String RECOMPUTE_RATES_HQL =
+            "UPDATE GroupStats s SET " +
+            "s.ratingCount = (SELECT COUNT(r) FROM Rate r WHERE r.group.id = s.groupId), " +
+            "s.ratingSum = (SELECT COALESCE(SUM(r.value), 0) FROM Rate r WHERE r.group.id = s.groupId) " +
+            "WHERE s.groupId IN :groupIds";
+
+    public GroupStats findByGroupId(Long groupId) {
+        return UnitOfWork.readOnly(session -> session.get(GroupStats.class, groupId));
+    }
+
+    public GroupStats findByGroupName(String groupName) {
+        return UnitOfWork.readOnly(session -> session.createQuery(
+                        "SELECT s FROM GroupStats s JOIN ClassEmployee c ON c.id = s.groupId " +
+                        "WHERE c.groupName = :groupName", GroupStats.class)
+                .setParameter("groupName", groupName)
+                .uniqueResult());
+    }
+
+    /**
+     * Odbudowuje statystyki wszystkich grup z tabel źródłowych (np. po zmianach
+     * wykonanych poza DAO); zwraca liczbę grup
+     */
+    public int rebuildAll() {
+        return UnitOfWork.inTransaction("GroupStatsDAO.rebuildAll", session -> {
+            session.createMutationQuery("DELETE FROM GroupStats").executeUpdate();
+            List<Long> groupIds = session.createQuery("SELECT c.id FROM ClassEmployee c", Long.class).list();
+            for (Long groupId : groupIds) {
+                session.persist(new GroupStats(groupId));
+            }
+            session.flush();
+            recompute(session, groupIds);
+            logger.info("Rebuilt group statistics for " + groupIds.size() + " groups");
+            return groupIds.size();
+        });
+    }
+
+    static void groupCreated(Session session, Long groupId) {
+        session.persist(new GroupStats(groupId));
+    }
+
+    static void groupRemoved(Session session, Long groupId) {
+        session.createMutationQuery("DELETE FROM GroupStats s WHERE s.groupId = :groupId")
+                .setParameter("groupId", groupId)
+                .executeUpdate();
+    }
+
+    /**
+     * Nowi (albo przywróceni) pracownicy, zgrupowani po grupie
+     */
+    static void employeesAdded(Session session, Collection<Employee> employees) {
+        Deltas deltas = new Deltas();
+        for (Employee employee : employees) {
+            if (employee.getGroup() != null) {
+                deltas.add(employee.getGroup().getId(), 1, employee.getSalary());
+            }
+        }
+        employeesChanged(session, deltas);
+    }
+
+    static void employeesChanged(Session session, Deltas deltas) {
+        deltas.byGroup.forEach((groupId, delta) -> employeesChanged(session, groupId, delta.count, delta.sum));
+    }
+
+    /**
+     * Zmiana liczby pracowników grupy i sumy ich pensji
+     */
+    static void employeesChanged(Session session, Long groupId, long countDelta, double salaryDelta) {
+        // MIN/MAX są liczone z tabeli, więc zmiany pracowników muszą już w niej być
+        session.flush();
+        int updated = session.createMutationQuery(EMPLOYEES_CHANGED_HQL)
+                .setParameter("count", countDelta, StandardBasicTypes.LONG)
+                .setParameter("sum", salaryDelta, StandardBasicTypes.DOUBLE)
+                .setParameter("groupId", groupId)
+                .executeUpdate();
+        if (updated == 0) {
+            createMissing(session, groupId);
+        }
+    }
+
+    static void ratesAdded(Session session, Collection<Rate> rates) {
+        ratesChanged(session, rates, 1);
+    }
+
+    static void ratesRemoved(Session session, Collection<Rate> rates) {
+        ratesChanged(session, rates, -1);
+    }
+
+    private static void ratesChanged(Session session, Collection<Rate> rates, int sign) {
+        Deltas deltas = new Deltas();
+        for (Rate rate : rates) {
+            if (rate.getGroup() != null) {
+                deltas.add(rate.getGroup().getId(), sign, sign * rate.getValue());
+            }
+        }
+        deltas.byGroup.forEach((groupId, delta) -> {
+            int updated = session.createMutationQuery(RATES_CHANGED_HQL)
+                    .setParameter("count", delta.count, StandardBasicTypes.LONG)
+                    .setParameter("sum", (long) delta.sum, StandardBasicTypes.LONG)
+                    .setParameter("groupId", groupId)
+                    .executeUpdate();
+            if (updated == 0) {
+                createMissing(session, groupId);
+            }
+        });
+    }
+
+    /**
+     * Przelicza od nowa część pracowniczą statystyk podanych grup
+     */
+    static void recomputeEmployees(Session session, Collection<Long> groupIds) {
+        recompute(session, RECOMPUTE_EMPLOYEES_HQL, groupIds);
+    }
+
+    static void recomputeRates(Session session, Collection<Long> groupIds) {
+        recompute(session, RECOMPUTE_RATES_HQL, groupIds);
+    }
+
+    /**
+     * Przelicza od nowa całe statystyki podanych grup
+     */
+    static void recompute(Session session, Collection<Long> groupIds) {
+        recomputeEmployees(session, groupIds);
+        recomputeRates(session, groupIds);
+    }
+
+    private static void recompute(Session session, String hql, Collection<Long> groupIds) {
+        if (groupIds.isEmpty()) {
+            return;
+        }
+        session.flush();
+        List<Long> idList = new ArrayList<>(groupIds);
+        for (int from = 0; from < idList.size(); from += CHUNK) {
+            session.createMutationQuery(hql)
+                    .setParameterList("groupIds", idList.subList(from, Math.min(from + CHUNK, idList.size())))
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * Grupy, do których należą podane encje (Employee albo Rate) według bazy - przed merge
+     * wskazują, gdzie były one dotąd liczone
+     */
+    static Set<Long> groupIdsOf(Session session, Class<?> entityClass, Collection<Long> ids) {
+        Set<Long> groupIds = new LinkedHashSet<>();
+        List<Long> idList = ids.stream().filter(Objects::nonNull).toList();
+        for (int from = 0; from < idList.size(); from += CHUNK) {
+            groupIds.addAll(session.createQuery("SELECT DISTINCT x.group.id FROM " + entityClass.getSimpleName()
+                            + " x WHERE x.id IN :ids", Long.class)
+                    .setParameterList("ids", idList.subList(from, Math.min(from + CHUNK, idList.size())))
+                    .list());
+        }
+        return groupIds;
+    }
+
+    /**
+     * Grupa bez wiersza statystyk (np. utworzona z pominięciem DAO) - wiersz jest
+     * zakładany i liczony od zera
+     */
+    private static void createMissing(Session session, Long groupId) {
+        logger.warning("Missing group statistics for group " + groupId + ", recomputing");
+        session.persist(new GroupStats(groupId));
+        session.flush();
+        recompute(session, List.of(groupId));
+    }
+
+    /**
+     * Zmiany liczby i sumy zebrane po grupach, zapisywane jednym UPDATE na grupę
+     */
+    static final class Deltas {
+        private final Map<Long, Delta> byGroup = new HashMap<>();
+
+        void add(Long groupId, long count, double sum) {
+            Delta delta = byGroup.computeIfAbsent(groupId, id -> new Delta());
+            delta.count += count;
+            delta.sum += sum;
+        }
+    }
+
+    private static class Delta {
+        private long count;
+        private double sum;
+    }
+}
@@ -4,47 +4,260 @@ import com.example.demo.model.ClassEmployee;
 import com.example.demo.model.Employee;
 import com.example.demo.model.Rate;
 import com.example.demo.model.AuditLog;
+import com.example.demo.model.GroupStats;
+import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.tool.schema.spi.ContributableMatcher;
+import org.hibernate.tool.schema.spi.SchemaManagementTool;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Dostęp do SessionFactory budowanej asynchronicznie.
+ *
+ * Bootstrap startuje w tle (startBootstrap() przy uruchomieniu aplikacji) i przechodzi
+ * przez fazy BootstrapPhase, które UI może obserwować. getSessionFactory() czeka
+ * na zakończenie bootstrapu, więc okno może się pokazać zanim baza odpowie.
+ */
 public class HibernateUtil {
-    private static SessionFactory sessionFactory;
+    private static final Logger logger = Logger.getLogger(HibernateUtil.class.getName());
+    private static final String MIGRATIONS_ENABLED = "employees.migrations.enabled";
+    private static final String MIGRATIONS_LOCATION = "employees.migrations.location";
+
+    private static volatile CompletableFuture<SessionFactory> bootstrap;
+    private static volatile BootstrapPhase currentPhase;
+    private static long phaseStart;
+    private static final List<Consumer<BootstrapPhase>> phaseListeners = new CopyOnWriteArrayList<>();
+    private static final Map<BootstrapPhase, Long> phaseMillis = new EnumMap<>(BootstrapPhase.class);
+
+    /**
+     * Fazy uruchamiania warstwy danych
+     */
+    public enum BootstrapPhase {
+        REGISTRY("konfiguracja"),
+        POOL_WARMUP("łączenie z bazą"),
+        MIGRATIONS("migracje schematu"),
+        METADATA("mapowania encji"),
+        VALIDATION("walidacja schematu"),
+        QUERY_PLANS("kompilacja zapytań"),
+        READY("gotowe"),
+        FAILED("błąd");
+
+        private final String description;
+
+        BootstrapPhase(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Rozpoczyna budowę SessionFactory w tle (kolejne wywołania zwracają ten sam future)
+     */
+    public static synchronized CompletableFuture<SessionFactory> startBootstrap() {
+        if (bootstrap == null) {
+            CompletableFuture<SessionFactory> future = new CompletableFuture<>();
+            bootstrap = future;
+            Thread thread = new Thread(() -> {
+                try {
+                    future.complete(buildSessionFactory());
+                } catch (Throwable e) {
+                    logger.severe("Initial SessionFactory creation failed: " + e);
+                    enterPhase(BootstrapPhase.FAILED);
+                    future.completeExceptionally(e);
+                }
+            }, "hibernate-bootstrap");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return bootstrap;
+    }
+
+    private static SessionFactory buildSessionFactory() {
+        long start = System.nanoTime();
+
+        // Tworzenie StandardServiceRegistry z pliku konfiguracyjnego
+        enterPhase(BootstrapPhase.REGISTRY);
+        StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder()
+                .configure("hibernate.cfg.xml");
+        // Walidację schematu wykonujemy jawnie jako osobną fazę (zamiast wewnątrz budowy SessionFactory)
+        boolean validateSchema = "validate".equals(registryBuilder.getSettings().get(AvailableSettings.HBM2DDL_AUTO));
+        if (validateSchema) {
+            registryBuilder.applySetting(AvailableSettings.HBM2DDL_AUTO, "none");
+        }
+        StandardServiceRegistry standardRegistry = registryBuilder.build();
 
-    static {
         try {
-            // Tworzenie StandardServiceRegistry z pliku konfiguracyjnego
-            StandardServiceRegistry standardRegistry = new StandardServiceRegistryBuilder()
-                    .configure("hibernate.cfg.xml")
-                    .build();
-            
+            // Pierwsze połączenia z bazą: konfiguracja puli i jej rozgrzanie
+            enterPhase(BootstrapPhase.POOL_WARMUP);
+            ConnectionProvider connectionProvider = standardRegistry.getService(ConnectionProvider.class);
+
+            // Migracje schematu muszą się zakończyć przed walidacją mapowań
+            enterPhase(BootstrapPhase.MIGRATIONS);
+            Map<String, Object> settings = standardRegistry.getService(ConfigurationService.class).getSettings();
+            if (Boolean.parseBoolean(String.valueOf(settings.get(MIGRATIONS_ENABLED)))) {
+                runMigrations(connectionProvider, String.valueOf(settings.getOrDefault(MIGRATIONS_LOCATION, "db/migration")));
+            }
+
             // Tworzenie MetadataSources i dodanie klas encji programatycznie
+            enterPhase(BootstrapPhase.METADATA);
             MetadataSources metadataSources = new MetadataSources(standardRegistry);
             metadataSources.addAnnotatedClass(ClassEmployee.class);
             metadataSources.addAnnotatedClass(Employee.class);
             metadataSources.addAnnotatedClass(Rate.class);
             metadataSources.addAnnotatedClass(AuditLog.class);
-            
-            // Budowanie Metadata i SessionFactory
+            metadataSources.addAnnotatedClass(GroupStats.class);
             Metadata metadata = metadataSources.getMetadataBuilder().build();
-            sessionFactory = metadata.getSessionFactoryBuilder().build();
-        } catch (Exception e) {
-            System.err.println("Initial SessionFactory creation failed." + e);
-            e.printStackTrace();
-            throw new ExceptionInInitializerError(e);
+
+            enterPhase(BootstrapPhase.VALIDATION);
+            if (validateSchema) {
+                validateSchema(metadata, standardRegistry);
+            }
+            SessionFactory factory = metadata.getSessionFactoryBuilder().build();
+
+            // Parsowanie HQL najczęstszych zapytań trafia do cache planów zapytań
+            enterPhase(BootstrapPhase.QUERY_PLANS);
+            try (Session session = factory.openSession()) {
+                ClassEmployeeDAO.warmUpQueries(session);
+                EmployeeDAO.warmUpQueries(session);
+            } catch (RuntimeException e) {
+                logger.warning("Query plan warm-up failed: " + e.getMessage());
+            }
+
+            enterPhase(BootstrapPhase.READY);
+            logger.info("SessionFactory ready in " + (System.nanoTime() - start) / 1_000_000 + " ms " + getPhaseTimings());
+            return factory;
+        } catch (RuntimeException e) {
+            StandardServiceRegistryBuilder.destroy(standardRegistry);
+            throw e;
+        }
+    }
+
+    private static void runMigrations(ConnectionProvider connectionProvider, String location) {
+        try {
+            Connection connection = connectionProvider.getConnection();
+            try {
+                new SchemaMigrator(location).migrate(connection);
+            } finally {
+                connectionProvider.closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema migration failed: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * To samo, co hbm2ddl.auto=validate, ale wywołane jawnie, żeby było osobną fazą
+     */
+    private static void validateSchema(Metadata metadata, StandardServiceRegistry registry) {
+        Map<String, Object> settings = registry.getService(ConfigurationService.class).getSettings();
+        registry.getService(SchemaManagementTool.class)
+                .getSchemaValidator(settings)
+                .doValidation(metadata,
+                        SchemaManagementToolCoordinator.buildExecutionOptions(settings, e -> {
+                            throw e;
+                        }),
+                        ContributableMatcher.ALL);
+    }
+
+    private static synchronized void enterPhase(BootstrapPhase phase) {
+        long now = System.nanoTime();
+        if (currentPhase != null && currentPhase != BootstrapPhase.READY) {
+            phaseMillis.put(currentPhase, (now - phaseStart) / 1_000_000);
+        }
+        phaseStart = now;
+        currentPhase = phase;
+        for (Consumer<BootstrapPhase> listener : phaseListeners) {
+            listener.accept(phase);
+        }
+    }
+
+    /**
+     * Rejestruje obserwatora faz bootstrapu; od razu dostaje bieżącą fazę
+     * (wywołania przychodzą z wątku bootstrapu)
+     */
+    public static synchronized void addBootstrapListener(Consumer<BootstrapPhase> listener) {
+        phaseListeners.add(listener);
+        if (currentPhase != null) {
+            listener.accept(currentPhase);
+        }
+    }
+
+    public static BootstrapPhase getCurrentPhase() {
+        return currentPhase;
+    }
+
+    /**
+     * Czas trwania zakończonych faz bootstrapu (ms)
+     */
+    public static synchronized Map<BootstrapPhase, Long> getPhaseTimings() {
+        return new EnumMap<>(phaseMillis);
+    }
+
+    /**
+     * Zwraca SessionFactory, czekając na zakończenie bootstrapu (uruchamia go, jeśli jeszcze nie ruszył)
+     */
     public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+        try {
+            return startBootstrap().join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("SessionFactory creation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Zwraca metryki puli połączeń lub null, gdy skonfigurowano inny ConnectionProvider
+     */
+    public static ConnectionPoolMetrics getPoolMetrics() {
+        PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider != null ? provider.getMetrics() : null;
+    }
+
+    /**
+     * Zwraca replikę do odczytów lub null, gdy nie jest skonfigurowana
+     */
+    public static ReadReplica getReadReplica() {
+        PooledConnectionProvider provider = getPooledConnectionProvider();
+        return provider != null ? provider.getReplica() : null;
+    }
+
+    private static PooledConnectionProvider getPooledConnectionProvider() {
+        ConnectionProvider provider = getSessionFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (provider != null && provider.isUnwrappableAs(PooledConnectionProvider.class)) {
+            return provider.unwrap(PooledConnectionProvider.class);
+        }
+        return null;
     }
 
     public static void shutdown() {
-        if (sessionFactory != null) {
-            sessionFactory.close();
+        TombstonePurgeJob.stop();
+        CompletableFuture<SessionFactory> future = bootstrap;
+        if (future != null && future.isDone() && !future.isCompletedExceptionally()) {
+            logger.info(QueryMetrics.report());
+            future.join().close();
         }
     }
 }
-
@@ -8,8 +8,10 @@ import javafx.collections.transformation.FilteredList;
 import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ChoiceDialog;
+import javafx.scene.control.TextInputDialog;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
@@ -18,6 +20,9 @@ import java.util.Optional;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
 
 public class MainController {
     private ClassContainer container; // Zachowane dla kompatybilności z niektórymi metodami
@@ -37,6 +42,10 @@ public class MainController {
     private AdvancedFilterPanel advancedFilterPanel;
     private SortController sortController;
     private Scene scene;
+    private int groupListGeneration;
+
+    private static final int GROUP_LIST_CHUNK = 50;
+    private static final String ALL_CONDITIONS = "Wszyscy";
 
     public MainController() {
         this.container = new ClassContainer();
@@ -55,24 +64,13 @@ public class MainController {
             @Override
             protected ConnectionStatus call() throws Exception {
                 try {
-                    // Test połączenia z bazą danych
-                    List<ClassEmployee> existingGroups = classEmployeeDAO.findAll();
-                    int groupCount = existingGroups.size();
-                    int employeeCount = 0;
-                    int rateCount = 0;
-                    
-                    // Policz pracowników i oceny
-                    if (groupCount > 0) {
-                        List<Employee> allEmployees = new ArrayList<>();
-                        for (ClassEmployee group : existingGroups) {
-                            List<Employee> employees = classEmployeeDAO.getEmployeesByGroupName(group.getGroupName());
-                            allEmployees.addAll(employees);
-                        }
-                        employeeCount = allEmployees.size();
-                        rateCount = rateDAO.findAll().size();
-                    }
+                    // Test połączenia z bazą danych i liczności tabel jednym zapytaniem
+                    ClassEmployeeDAO.StartupSummary summary = classEmployeeDAO.getStartupSummary();
+                    int groupCount = (int) summary.getGroupCount();
+                    int employeeCount = (int) summary.getEmployeeCount();
+                    int rateCount = (int) summary.getRateCount();
                     
-                    if (existingGroups.isEmpty()) {
+                    if (groupCount == 0) {
                         // Tworzenie przykładowych grup w bazie
                         ClassEmployee grupa1 = new ClassEmployee("Programiści", 10);
                         classEmployeeDAO.save(grupa1);
@@ -83,30 +81,23 @@ public class MainController {
                         ClassEmployee grupa3 = new ClassEmployee("Designerzy", 8);
                         classEmployeeDAO.save(grupa3);
 
-                        // Dodanie przykładowych pracowników
+                        // Dodanie przykładowych pracowników (jeden wsadowy zapis)
                         Employee emp1 = new Employee("Jan", "Kowalski", EmployeeCondition.OBECNY, 1990, 5000);
                         emp1.setGroup(grupa1);
-                        employeeDAO.save(emp1);
-                        
                         Employee emp2 = new Employee("Piotr", "Nowak", EmployeeCondition.DELEGACJA, 1991, 6000);
                         emp2.setGroup(grupa1);
-                        employeeDAO.save(emp2);
-                        
                         Employee emp3 = new Employee("Adam", "Kowalski", EmployeeCondition.CHORY, 1992, 7000);
                         emp3.setGroup(grupa1);
-                        employeeDAO.save(emp3);
 
                         Employee emp4 = new Employee("Anna", "Wiśniewska", EmployeeCondition.OBECNY, 1988, 5500);
                         emp4.setGroup(grupa2);
-                        employeeDAO.save(emp4);
-                        
                         Employee emp5 = new Employee("Maria", "Dąbrowska", EmployeeCondition.DELEGACJA, 1993, 6500);
                         emp5.setGroup(grupa2);
-                        employeeDAO.save(emp5);
 
                         Employee emp6 = new Employee("Katarzyna", "Lewandowska", EmployeeCondition.OBECNY, 1995, 6000);
                         emp6.setGroup(grupa3);
-                        employeeDAO.save(emp6);
+
+                        employeeDAO.saveAll(List.of(emp1, emp2, emp3, emp4, emp5, emp6));
                         
                         groupCount = 3;
                         employeeCount = 6;
@@ -220,8 +211,9 @@ public class MainController {
                 employeeTableView,
                 () -> handleEditEmployee(),
                 () -> handleDeleteEmployee(),
-                () -> loadEmployeesForGroup(selectedGroupName),
+                condition -> handleChangeCondition(condition),
                 () -> handleRaiseSalary(),
+                () -> handleGroupRaise(),
                 () -> handleShowDetails()
         );
     }
@@ -272,37 +264,60 @@ public class MainController {
         this.scene = scene;
     }
 
+    /**
+     * Ładuje listę grup porcjami: pierwsza porcja trafia do widoku od razu,
+     * kolejne są dopisywane, więc czas do pierwszego wyświetlenia nie zależy od liczby grup
+     */
     private void updateGroupList() {
-        Task<javafx.collections.ObservableList<GroupStatistics>> task = new Task<javafx.collections.ObservableList<GroupStatistics>>() {
+        // Porcje ze starszego odświeżenia (gdy w międzyczasie zaczęło się nowe) są pomijane
+        int generation = ++groupListGeneration;
+        Task<Void> task = new Task<Void>() {
             @Override
-            protected javafx.collections.ObservableList<GroupStatistics> call() throws Exception {
-                // Pobierz wszystkie grupy
-                List<String> groupNames = classEmployeeDAO.findAllGroupNames();
-                
-                // Pobierz statystyki ocen używając Criteria API
-                Map<String, CriteriaStatisticsDAO.GroupRatingStats> stats = 
-                    criteriaStatisticsDAO.getGroupRatingStatistics();
-                
-                // Utwórz listę statystyk dla wszystkich grup
-                javafx.collections.ObservableList<GroupStatistics> result = FXCollections.observableArrayList();
-                for (String groupName : groupNames) {
-                    CriteriaStatisticsDAO.GroupRatingStats groupStats = stats.get(groupName);
-                    if (groupStats != null) {
-                        result.add(new GroupStatistics(groupName, groupStats.getCount(), groupStats.getAverage()));
-                    } else {
-                        // Grupa bez ocen
-                        result.add(new GroupStatistics(groupName, 0L, 0.0));
+            protected Void call() throws Exception {
+                String lastGroupName = null;
+                boolean firstChunk = true;
+                while (true) {
+                    String after = lastGroupName;
+                    // Porcja nazw grup i statystyki ocen (Criteria API) tylko dla nich, w jednej sesji
+                    List<String> groupNames = new ArrayList<>();
+                    Map<String, CriteriaStatisticsDAO.GroupRatingStats> stats = 
+                        UnitOfWork.readOnly("updateGroupList", session -> {
+                            groupNames.addAll(classEmployeeDAO.findGroupNamesAfter(after, GROUP_LIST_CHUNK));
+                            return criteriaStatisticsDAO.getGroupRatingStatistics(groupNames);
+                        });
+                    
+                    List<GroupStatistics> chunk = new ArrayList<>(groupNames.size());
+                    for (String groupName : groupNames) {
+                        CriteriaStatisticsDAO.GroupRatingStats groupStats = stats.get(groupName);
+                        if (groupStats != null) {
+                            chunk.add(new GroupStatistics(groupName, groupStats.getCount(), groupStats.getAverage()));
+                        } else {
+                            // Grupa bez ocen
+                            chunk.add(new GroupStatistics(groupName, 0L, 0.0));
+                        }
+                    }
+                    
+                    boolean replace = firstChunk;
+                    javafx.application.Platform.runLater(() -> {
+                        if (generation != groupListGeneration) {
+                            return;
+                        }
+                        if (replace) {
+                            groupStatistics.setAll(chunk);
+                        } else {
+                            groupStatistics.addAll(chunk);
+                        }
+                    });
+                    
+                    if (groupNames.size() < GROUP_LIST_CHUNK) {
+                        return null;
                     }
+                    lastGroupName = groupNames.get(groupNames.size() - 1);
+                    firstChunk = false;
                 }
-                
-                return result;
             }
         };
         
-        task.setOnSucceeded(e -> {
-            groupStatistics.setAll(task.getValue());
-        });
-        
         task.setOnFailed(e -> {
             ExceptionHandler.handleException(task.getException());
         });
@@ -314,7 +329,13 @@ public class MainController {
         Task<List<Employee>> task = new Task<List<Employee>>() {
             @Override
             protected List<Employee> call() throws Exception {
-                return classEmployeeDAO.getEmployeesByGroupName(groupName);
+                // Projekcja zamiast encji: bez migawek dirty-checkingu i bez @PostLoad
+                List<EmployeeRow> rows = classEmployeeDAO.getEmployeeRowsByGroupName(groupName);
+                List<Employee> employees = new ArrayList<>(rows.size());
+                for (EmployeeRow row : rows) {
+                    employees.add(row.toEmployee());
+                }
+                return employees;
             }
         };
         
@@ -343,28 +364,31 @@ public class MainController {
             Task<Boolean> task = new Task<Boolean>() {
                 @Override
                 protected Boolean call() throws Exception {
-                    // Sprawdź czy pracownik już istnieje
-                    if (employeeDAO.employeeExists(newEmployee.getFirstName(), 
-                            newEmployee.getLastName(), selectedGroupName)) {
-                        throw new ExceptionHandler.EmployeeAlreadyExistsException(
-                                "Pracownik o tym imieniu i nazwisku już istnieje w grupie.");
-                    }
-                    
-                    // Sprawdź pojemność grupy
-                    ClassEmployee group = classEmployeeDAO.findByName(selectedGroupName);
-                    if (group == null) {
-                        throw new ExceptionHandler.GroupNotFoundException("Grupa nie została znaleziona.");
-                    }
-                    
-                    List<Employee> existingEmployees = classEmployeeDAO.getEmployeesByGroupName(selectedGroupName);
-                    if (existingEmployees.size() >= group.getMaxCapacity()) {
-                        throw new ExceptionHandler.GroupFullException("Grupa jest pełna.");
-                    }
-                    
-                    // Dodaj pracownika
-                    newEmployee.setGroup(group);
-                    employeeDAO.save(newEmployee);
-                    return true;
+                    // Wszystkie sprawdzenia i zapis w jednej sesji i transakcji
+                    return UnitOfWork.inTransaction("handleAddEmployee", session -> {
+                        // Sprawdź czy pracownik już istnieje
+                        if (employeeDAO.employeeExists(newEmployee.getFirstName(), 
+                                newEmployee.getLastName(), selectedGroupName)) {
+                            throw new ExceptionHandler.EmployeeAlreadyExistsException(
+                                    "Pracownik o tym imieniu i nazwisku już istnieje w grupie.");
+                        }
+                        
+                        // Sprawdź pojemność grupy
+                        ClassEmployee group = classEmployeeDAO.findByName(selectedGroupName);
+                        if (group == null) {
+                            throw new ExceptionHandler.GroupNotFoundException("Grupa nie została znaleziona.");
+                        }
+                        
+                        List<Employee> existingEmployees = classEmployeeDAO.getEmployeesByGroupName(selectedGroupName);
+                        if (existingEmployees.size() >= group.getMaxCapacity()) {
+                            throw new ExceptionHandler.GroupFullException("Grupa jest pełna.");
+                        }
+                        
+                        // Dodaj pracownika
+                        newEmployee.setGroup(group);
+                        employeeDAO.save(newEmployee);
+                        return true;
+                    });
                 }
             };
             
@@ -405,7 +429,7 @@ public class MainController {
                     selected.setCondition(edited.getCondition());
                     selected.setBirthYear(edited.getBirthYear());
                     selected.setSalary(edited.getSalary());
-                    employeeDAO.update(selected);
+                    employeeDAO.updateDetails(selected);
                     return null;
                 }
             };
@@ -429,30 +453,42 @@ public class MainController {
             return;
         }
 
-        Employee selected = employeeTableView.getSelectionModel().getSelectedItem();
-        if (selected == null) {
+        List<Long> ids = selectedEmployeeIds();
+        if (ids.isEmpty()) {
             showAlert("Brak wyboru", "Proszę wybrać pracownika do usunięcia.");
             return;
         }
 
+        Employee selected = employeeTableView.getSelectionModel().getSelectedItem();
         Alert confirmDialog = new Alert(Alert.AlertType.CONFIRMATION);
         confirmDialog.setTitle("Usuń pracownika");
-        confirmDialog.setHeaderText("Czy na pewno chcesz usunąć pracownika?");
-        confirmDialog.setContentText(selected.getFirstName() + " " + selected.getLastName());
+        confirmDialog.setHeaderText(ids.size() == 1
+                ? "Czy na pewno chcesz usunąć pracownika?"
+                : "Czy na pewno chcesz usunąć " + ids.size() + " pracowników?");
+        confirmDialog.setContentText(ids.size() == 1 ? selected.getFirstName() + " " + selected.getLastName() : null);
         Optional<ButtonType> result = confirmDialog.showAndWait();
 
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            Task<Void> task = new Task<Void>() {
+            Task<List<Long>> task = new Task<List<Long>>() {
                 @Override
-                protected Void call() throws Exception {
-                    employeeDAO.delete(selected);
-                    return null;
+                protected List<Long> call() throws Exception {
+                    return employeeDAO.softDelete(ids);
                 }
             };
             
             task.setOnSucceeded(e -> {
                 loadEmployeesForGroup(selectedGroupName);
-                showAlert("Sukces", "Pracownik został usunięty.");
+                // usunięcie jest miękkie, więc można je od razu cofnąć - tylko dla faktycznie usuniętych,
+                // żeby nie przywrócić pracowników usuniętych wcześniej (np. w innym oknie)
+                List<Long> deleted = task.getValue();
+                ButtonType undo = new ButtonType("Cofnij", ButtonBar.ButtonData.OTHER);
+                Alert info = new Alert(Alert.AlertType.INFORMATION,
+                        "Usunięto pracowników: " + deleted.size() + ".", ButtonType.OK, undo);
+                info.setTitle("Sukces");
+                info.setHeaderText(null);
+                if (info.showAndWait().orElse(ButtonType.OK) == undo && !deleted.isEmpty()) {
+                    restoreEmployees(deleted);
+                }
             });
             
             task.setOnFailed(e -> {
@@ -463,29 +499,127 @@ public class MainController {
         }
     }
 
+    private void restoreEmployees(List<Long> ids) {
+        Task<List<EmployeeRow>> task = new Task<List<EmployeeRow>>() {
+            @Override
+            protected List<EmployeeRow> call() throws Exception {
+                return employeeDAO.restore(ids);
+            }
+        };
+
+        task.setOnSucceeded(e -> loadEmployeesForGroup(selectedGroupName));
+
+        task.setOnFailed(e -> {
+            ExceptionHandler.handleException(task.getException());
+        });
+
+        new Thread(task).start();
+    }
+
     private void handleRaiseSalary() {
-        Employee selected = employeeTableView.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            double newSalary = selected.getSalary() * 1.1;
-            
-            Task<Void> task = new Task<Void>() {
-                @Override
-                protected Void call() throws Exception {
-                    selected.setSalary(newSalary);
-                    employeeDAO.update(selected);
-                    return null;
-                }
-            };
-            
-            task.setOnSucceeded(e -> {
-                loadEmployeesForGroup(selectedGroupName);
-            });
-            
-            task.setOnFailed(e -> {
-                ExceptionHandler.handleException(task.getException());
-            });
-            
-            new Thread(task).start();
+        List<Long> ids = selectedEmployeeIds();
+        if (!ids.isEmpty()) {
+            runBulkUpdate(() -> employeeDAO.raiseSalary(ids, 10));
+        }
+    }
+
+    private void handleChangeCondition(EmployeeCondition condition) {
+        List<Long> ids = selectedEmployeeIds();
+        if (!ids.isEmpty()) {
+            runBulkUpdate(() -> employeeDAO.changeCondition(ids, condition));
+        }
+    }
+
+    /**
+     * Podwyżka dla całej wybranej grupy, opcjonalnie tylko dla pracowników w danym stanie
+     */
+    private void handleGroupRaise() {
+        if (selectedGroupName == null) {
+            showAlert("Brak wybranej grupy", "Proszę wybrać grupę z listy.");
+            return;
+        }
+        String groupName = selectedGroupName;
+
+        // null = wszyscy pracownicy grupy
+        Map<String, EmployeeCondition> scopes = new LinkedHashMap<>();
+        scopes.put(ALL_CONDITIONS, null);
+        for (EmployeeCondition condition : EmployeeCondition.values()) {
+            scopes.put(condition.toString(), condition);
+        }
+        ChoiceDialog<String> scopeDialog = new ChoiceDialog<>(ALL_CONDITIONS, scopes.keySet());
+        scopeDialog.setTitle("Podwyżka w grupie");
+        scopeDialog.setHeaderText("Grupa: " + groupName);
+        scopeDialog.setContentText("Pracownicy:");
+        Optional<String> scope = scopeDialog.showAndWait();
+        if (scope.isEmpty()) {
+            return;
+        }
+        EmployeeCondition condition = scopes.get(scope.get());
+
+        TextInputDialog percentDialog = new TextInputDialog("5");
+        percentDialog.setTitle("Podwyżka w grupie");
+        percentDialog.setHeaderText("Grupa: " + groupName + " (" + scope.get() + ")");
+        percentDialog.setContentText("Podwyżka (%):");
+        Optional<String> percentText = percentDialog.showAndWait();
+        if (percentText.isEmpty()) {
+            return;
+        }
+        double percent;
+        try {
+            percent = Double.parseDouble(percentText.get().trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            showAlert("Błąd", "Nieprawidłowa wartość procentowa.");
+            return;
+        }
+        // NaN/nieskończoność zapisałyby się jako pensje, a -100% i mniej zeruje lub odwraca pensje
+        if (!Double.isFinite(percent) || percent <= -100) {
+            showAlert("Błąd", "Podwyżka musi być liczbą większą niż -100%.");
+            return;
+        }
+
+        runBulkUpdate(() -> employeeDAO.raiseSalaryInGroup(groupName, condition, percent));
+    }
+
+    private List<Long> selectedEmployeeIds() {
+        List<Long> ids = new ArrayList<>();
+        for (Employee employee : employeeTableView.getSelectionModel().getSelectedItems()) {
+            ids.add(employee.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Wykonuje operację zbiorczą w tle i nanosi zmienione wiersze na widok
+     * (bez ponownego ładowania całej grupy)
+     */
+    private void runBulkUpdate(Callable<List<EmployeeRow>> operation) {
+        Task<List<EmployeeRow>> task = new Task<List<EmployeeRow>>() {
+            @Override
+            protected List<EmployeeRow> call() throws Exception {
+                return operation.call();
+            }
+        };
+
+        task.setOnSucceeded(e -> applyUpdatedRows(task.getValue()));
+
+        task.setOnFailed(e -> {
+            ExceptionHandler.handleException(task.getException());
+        });
+
+        new Thread(task).start();
+    }
+
+    private void applyUpdatedRows(List<EmployeeRow> rows) {
+        Map<Long, EmployeeRow> byId = new HashMap<>();
+        for (EmployeeRow row : rows) {
+            byId.put(row.getId(), row);
+        }
+        for (Employee employee : currentEmployees) {
+            EmployeeRow row = byId.get(employee.getId());
+            if (row != null) {
+                employee.setSalary(row.getSalary());
+                employee.setCondition(row.getCondition());
+            }
         }
     }
 
@@ -546,13 +680,18 @@ public class MainController {
         Task<ClassEmployee> task = new Task<ClassEmployee>() {
             @Override
             protected ClassEmployee call() throws Exception {
-                ClassEmployee group = classEmployeeDAO.findByName(selectedGroupName);
-                if (group != null) {
-                    // Załaduj pracowników
-                    List<Employee> employees = classEmployeeDAO.getEmployeesByGroupName(selectedGroupName);
-                    group.setEmployees(employees);
-                }
-                return group;
+                return UnitOfWork.readOnly("handleShowStatistics", session -> {
+                    ClassEmployee group = classEmployeeDAO.findByName(selectedGroupName);
+                    if (group != null) {
+                        // Załaduj pracowników (projekcja - statystyki tylko czytają wartości)
+                        List<Employee> employees = new ArrayList<>();
+                        for (EmployeeRow row : classEmployeeDAO.getEmployeeRowsByGroupName(selectedGroupName)) {
+                            employees.add(row.toEmployee());
+                        }
+                        group.setEmployees(employees);
+                    }
+                    return group;
+                });
             }
         };
         
@@ -0,0 +1,323 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Employee;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Indeks trigramowy imion i nazwisk w pamięci, zastępujący LIKE '%fragment%' (którego
+ * nie obsłuży żaden indeks B-tree) przy wyszukiwaniu częściowym.
+ *
+ * Nazwy są sprowadzane do małych liter bez znaków diakrytycznych ("Łukasz" -> "lukasz"),
+ * więc wyszukiwanie jest niewrażliwe na wielkość liter i polskie znaki. Fragment
+ * co najmniej trzyznakowy jest dopasowywany przez przecięcie list trigramów, krótszy -
+ * przeglądem wszystkich nazw w pamięci; kandydaci są zawsze weryfikowani dokładnie.
+ *
+ * Indeks jest budowany z bazy głównej (nie z repliki, która mogłaby nie mieć jeszcze
+ * ostatnich zapisów) i aktualizowany przyrostowo przez DAO po zatwierdzeniu zapisu. Dopóki nie
+ * jest zbudowany (albo po unieważnieniu), search() zwraca null, a wywołujący pytają bazę.
+ */
+public final class NameSearchIndex {
+    private static final Logger logger = Logger.getLogger(NameSearchIndex.class.getName());
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int GRAM = 3;
+
+    /**
+     * Powyżej tylu kandydatów lista id w klauzuli IN przestaje się opłacać
+     */
+    public static final int MAX_IN_LIST = 1000;
+
+    /**
+     * Pole, w którym szukany jest fragment
+     */
+    public enum Field {
+        FIRST_NAME, LAST_NAME, ANY
+    }
+
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static final AtomicBoolean building = new AtomicBoolean();
+    private static Map<Long, Entry> entries = new HashMap<>();
+    private static Map<String, Set<Long>> postings = new HashMap<>();
+    private static Map<String, Long> groupIds = new HashMap<>();
+    private static boolean ready;
+    // zmienia się przy każdej modyfikacji; budowa w tle porzuca wynik, jeśli w międzyczasie coś się zmieniło
+    private static long modCount;
+
+    private NameSearchIndex() {
+    }
+
+    /**
+     * Zwraca posortowane id pracowników, których imię/nazwisko zawiera fragment
+     * (opcjonalnie tylko w danej grupie), albo null, gdy indeks jest zimny - wtedy
+     * w tle rusza jego budowa, a wywołujący powinien zapytać bazę
+     */
+    public static List<Long> search(String fragment, Field field, String groupName) {
+        String folded = fold(fragment);
+        if (folded.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                warmUp();
+                return null;
+            }
+            Long groupId = null;
+            if (groupName != null) {
+                groupId = groupIds.get(groupName);
+                if (groupId == null) {
+                    return List.of();
+                }
+            }
+            Iterable<Long> candidates = folded.length() < GRAM ? entries.keySet() : trigramCandidates(folded);
+            List<Long> result = new ArrayList<>();
+            for (Long id : candidates) {
+                Entry entry = entries.get(id);
+                if (entry.matches(folded, field) && (groupId == null || groupId.equals(entry.groupId))) {
+                    result.add(id);
+                }
+            }
+            Collections.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Najkrótsza lista trigramu przecięta z pozostałymi (wywoływane pod blokadą odczytu)
+     */
+    private static Iterable<Long> trigramCandidates(String folded) {
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(folded)) {
+            Set<Long> list = postings.get(gram);
+            if (list == null) {
+                return List.of();
+            }
+            lists.add(list);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(id);
+            }
+            if (inAll) {
+                candidates.add(id);
+            }
+        }
+        return candidates;
+    }
+
+    public static boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Uruchamia budowę indeksu w tle, jeśli nie jest gotowy i nie jest już budowany
+     */
+    public static void warmUp() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                logger.warning("Name search index build failed: " + e.getMessage());
+            } finally {
+                building.set(false);
+            }
+        }, "name-index-build");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void rebuild() {
+        long start = System.nanoTime();
+        long startModCount;
+        lock.readLock().lock();
+        try {
+            if (ready) {
+                return;
+            }
+            startModCount = modCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, Entry> newEntries = new HashMap<>();
+        Map<String, Set<Long>> newPostings = new HashMap<>();
+        Map<String, Long> newGroupIds = new HashMap<>();
+        UnitOfWork.readOnlyFromPrimary("NameSearchIndex.rebuild", session -> {
+            for (Object[] row : session.createQuery(
+                    "SELECT c.id, c.groupName FROM ClassEmployee c", Object[].class).list()) {
+                newGroupIds.put((String) row[1], (Long) row[0]);
+            }
+            for (Object[] row : session.createQuery(
+                    "SELECT e.id, e.firstName, e.lastName, e.group.id FROM Employee e", Object[].class).list()) {
+                Entry entry = new Entry(fold((String) row[1]), fold((String) row[2]), (Long) row[3]);
+                newEntries.put((Long) row[0], entry);
+                addPostings(newPostings, (Long) row[0], entry);
+            }
+            return null;
+        });
+
+        lock.writeLock().lock();
+        try {
+            if (modCount != startModCount) {
+                // zapis w trakcie budowy - wynik może być nieaktualny, kolejne wyszukiwanie zbuduje od nowa
+                logger.info("Name search index build discarded (concurrent writes)");
+                return;
+            }
+            entries = newEntries;
+            postings = newPostings;
+            groupIds = newGroupIds;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Name search index built: " + newEntries.size() + " employees, " + newPostings.size()
+                + " trigrams in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Dodaje lub aktualizuje pracownika (wywoływane po zatwierdzeniu zapisu)
+     */
+    static void put(Employee employee) {
+        if (employee.getId() == null) {
+            return;
+        }
+        // getId() na proxy grupy nie inicjalizuje jej, więc działa też dla odłączonych encji
+        Long groupId = employee.getGroup() != null ? employee.getGroup().getId() : null;
+        lock.writeLock().lock();
+        try {
+            modCount++;
+            if (!ready) {
+                return;
+            }
+            Entry previous = entries.get(employee.getId());
+            Entry entry = new Entry(fold(employee.getFirstName()), fold(employee.getLastName()),
+                    groupId != null ? groupId : previous != null ? previous.groupId : null);
+            if (previous != null) {
+                removePostings(employee.getId(), previous);
+            }
+            entries.put(employee.getId(), entry);
+            addPostings(postings, employee.getId(), entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            modCount++;
+            if (!ready) {
+                return;
+            }
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unieważnia indeks po zmianach, których nie da się odwzorować przyrostowo
+     * (np. zmiany grup); zostanie zbudowany ponownie przy następnym wyszukiwaniu
+     */
+    public static void invalidate() {
+        lock.writeLock().lock();
+        try {
+            modCount++;
+            ready = false;
+            entries = new HashMap<>();
+            postings = new HashMap<>();
+            groupIds = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void addPostings(Map<String, Set<Long>> target, Long id, Entry entry) {
+        for (String gram : entry.grams()) {
+            target.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void removePostings(Long id, Entry entry) {
+        for (String gram : entry.grams()) {
+            Set<Long> list = postings.get(gram);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Małe litery bez znaków diakrytycznych; "ł" nie rozkłada się w NFD, więc jest zamieniane jawnie
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").replace('ł', 'l');
+    }
+
+    private static class Entry {
+        private final String firstName;
+        private final String lastName;
+        private final Long groupId;
+
+        Entry(String firstName, String lastName, Long groupId) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.groupId = groupId;
+        }
+
+        boolean matches(String folded, Field field) {
+            return switch (field) {
+                case FIRST_NAME -> firstName.contains(folded);
+                case LAST_NAME -> lastName.contains(folded);
+                case ANY -> firstName.contains(folded) || lastName.contains(folded);
+            };
+        }
+
+        Set<String> grams() {
+            Set<String> grams = NameSearchIndex.grams(firstName);
+            grams.addAll(NameSearchIndex.grams(lastName));
+            return grams;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.demo.controller;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * ConnectionProvider oparty na puli HikariCP (zamiast wbudowanej puli Hibernate,
+ * która nie nadaje się do produkcji).
+ *
+ * Ustawienia puli czytane są z kluczy "hibernate.hikari.*" w hibernate.cfg.xml,
+ * dane połączenia z "hibernate.connection.*". Dzięki temu ten sam provider działa
+ * zarówno z MySQL, jak i z wbudowaną bazą H2 (wystarczy podmienić URL i sterownik).
+ *
+ * Gdy ustawiono employees.replica.url, połączenia pobierane w jednostkach tylko do odczytu
+ * (DataSourceRouting) idą do osobnej puli repliki (ReadReplica), z powrotem do bazy
+ * głównej, gdy replika jest niedostępna lub opóźniona.
+ *
+ * Połączenia przekazywane Hibernate są owijane przez QueryMetrics (czasy zapytań,
+ * dziennik wolnych zapytań), o ile nie wyłączono tego employees.metrics.jdbc.enabled.
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+    // ConnectionProvider jest Serializable (Service), ale pula nie jest serializowana - pola są transient
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(PooledConnectionProvider.class.getName());
+    private static final String HIKARI_PREFIX = "hibernate.hikari.";
+
+    private transient HikariDataSource dataSource;
+    private transient ReadReplica replica;
+    private final transient ConnectionPoolMetrics metrics = new ConnectionPoolMetrics();
+    private boolean instrumented;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        Properties poolProperties = extractPoolProperties(settings);
+        HikariConfig config = new HikariConfig(poolProperties);
+        copySetting(settings, "hibernate.connection.driver_class", config::setDriverClassName);
+        copySetting(settings, "hibernate.connection.url", config::setJdbcUrl);
+        copySetting(settings, "hibernate.connection.username", config::setUsername);
+        copySetting(settings, "hibernate.connection.password", config::setPassword);
+        if (config.getPoolName() == null) {
+            config.setPoolName("employees-pool");
+        }
+        config.setMetricsTrackerFactory(metrics);
+
+        dataSource = new HikariDataSource(config);
+        metrics.attach(dataSource.getHikariPoolMXBean());
+        warmUp(config.getMinimumIdle());
+
+        Object replicaUrl = settings.get(ReadReplica.URL);
+        if (replicaUrl != null && !replicaUrl.toString().isBlank()) {
+            replica = new ReadReplica(settings, poolProperties);
+        }
+
+        instrumented = QueryMetrics.isEnabled(settings);
+        QueryMetrics.configure(settings);
+    }
+
+    /**
+     * Otwiera od razu minimumIdle połączeń, żeby pierwsze zapytania z UI
+     * nie płaciły za nawiązywanie połączenia (TLS, logowanie) do zdalnej bazy.
+     */
+    private void warmUp(int connections) {
+        long start = System.nanoTime();
+        List<Connection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                opened.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            logger.warning("Pool warm-up interrupted after " + opened.size() + " connections: " + e.getMessage());
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.warning("Could not return warm-up connection: " + e.getMessage());
+                }
+            }
+        }
+        logger.info("Connection pool warmed up with " + opened.size() + " connections in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private Properties extractPoolProperties(Map<String, Object> settings) {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Object> entry : settings.entrySet()) {
+            if (entry.getKey().startsWith(HIKARI_PREFIX) && entry.getValue() != null) {
+                properties.setProperty(entry.getKey().substring(HIKARI_PREFIX.length()), entry.getValue().toString());
+            }
+        }
+        return properties;
+    }
+
+    private void copySetting(Map<String, Object> settings, String key, Consumer<String> target) {
+        Object value = settings.get(key);
+        if (value != null) {
+            target.accept(value.toString());
+        }
+    }
+
+    public ConnectionPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replika do odczytów albo null, gdy nie jest skonfigurowana
+     */
+    public ReadReplica getReplica() {
+        return replica;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = null;
+        if (replica != null && DataSourceRouting.isReadOnly()) {
+            connection = replica.tryGetConnection();
+        }
+        if (connection == null) {
+            connection = dataSource.getConnection();
+        }
+        QueryMetrics.recordConnectionAcquisition(System.nanoTime() - start);
+        return instrumented ? QueryMetrics.instrument(connection) : connection;
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(PooledConnectionProvider.class)
+                || unwrapType.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(PooledConnectionProvider.class)) {
+            return (T) this;
+        }
+        if (unwrapType.isAssignableFrom(HikariDataSource.class)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    @Override
+    public void stop() {
+        if (replica != null) {
+            replica.stop();
+        }
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.demo.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Pomiary zapytań SQL na poziomie JDBC i dziennik wolnych zapytań.
+ *
+ * PooledConnectionProvider owija połączenia (primary i repliki) w proxy mierzące
+ * każde wykonanie instrukcji: czas od execute do zamknięcia wyniku (razem z pobieraniem
+ * wierszy), liczbę wierszy zwróconych lub zmienionych. Liczniki trafiają do globalnego
+ * histogramu, do bieżącej jednostki pracy (UnitOfWork) oraz - powyżej progu
+ * employees.metrics.slow.query.millis - do loggera "employees.slowquery" razem z SQL
+ * i kształtem parametrów (typy i liczba, bez wartości). employees.metrics.jdbc.enabled=false
+ * wyłącza proxy. Zastępuje hibernate.show_sql, który wypisywał synchronicznie każde zapytanie.
+ */
+public final class QueryMetrics {
+    private static final Logger slowQueryLogger = Logger.getLogger("employees.slowquery");
+    static final String ENABLED = "employees.metrics.jdbc.enabled";
+    static final String SLOW_QUERY_MILLIS = "employees.metrics.slow.query.millis";
+
+    private static final LatencyHistogram statements = new LatencyHistogram();
+    private static final LatencyHistogram connectionAcquisition = new LatencyHistogram();
+    // liczniki wątku: [instrukcje, wiersze, czas SQL ns]; UnitOfWork liczy różnicę na swój czas trwania
+    private static final ThreadLocal<long[]> threadCounters = ThreadLocal.withInitial(() -> new long[3]);
+    private static volatile long slowQueryNanos = 500_000_000L;
+
+    private QueryMetrics() {
+    }
+
+    static void configure(Map<String, Object> settings) {
+        Object threshold = settings.get(SLOW_QUERY_MILLIS);
+        if (threshold != null) {
+            slowQueryNanos = Long.parseLong(threshold.toString().trim()) * 1_000_000L;
+        }
+    }
+
+    static boolean isEnabled(Map<String, Object> settings) {
+        Object enabled = settings.get(ENABLED);
+        return enabled == null || Boolean.parseBoolean(enabled.toString().trim());
+    }
+
+    public static void setSlowQueryMillis(long millis) {
+        slowQueryNanos = millis * 1_000_000L;
+    }
+
+    static void recordConnectionAcquisition(long nanos) {
+        connectionAcquisition.record(nanos);
+    }
+
+    /**
+     * Bieżące liczniki wątku (kopia) - do liczenia różnicy w jednostce pracy
+     */
+    static long[] threadCounters() {
+        return threadCounters.get().clone();
+    }
+
+    public static LatencyHistogram getStatementLatency() {
+        return statements;
+    }
+
+    public static LatencyHistogram getConnectionAcquisitionLatency() {
+        return connectionAcquisition;
+    }
+
+    /**
+     * Owija połączenie w proxy mierzące wykonywane instrukcje
+     */
+    static Connection instrument(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static void record(String sql, String parameterShape, long elapsedNanos, long rows) {
+        statements.record(elapsedNanos);
+        long[] counters = threadCounters.get();
+        counters[0]++;
+        counters[1] += rows;
+        counters[2] += elapsedNanos;
+        if (elapsedNanos >= slowQueryNanos) {
+            slowQueryLogger.warning(String.format("Slow query %.1f ms, %d rows, params %s: %s",
+                    elapsedNanos / 1_000_000.0, rows, parameterShape, sql));
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * equals/hashCode proxy po tożsamości: Hibernate trzyma instrukcje i wyniki w mapach
+     */
+    private static boolean isIdentityMethod(Method method) {
+        return method.getDeclaringClass() == Object.class && !method.getName().equals("toString");
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            Object result = QueryMetrics.invoke(connection, method, args);
+            String name = method.getName();
+            if (result instanceof PreparedStatement statement
+                    && (name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                return wrap(statement, (String) args[0], method.getReturnType());
+            }
+            if (result instanceof Statement statement && name.equals("createStatement")) {
+                return wrap(statement, null, Statement.class);
+            }
+            return result;
+        }
+
+        private static Object wrap(Statement statement, String sql, Class<?> type) {
+            return Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql));
+        }
+    }
+
+    /**
+     * Wykonania instrukcji; wynik zapytania jest mierzony do zamknięcia ResultSet
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String preparedSql;
+        private final TreeMap<Integer, String> parameterTypes = new TreeMap<>();
+        private int batchSize;
+        private long pendingExecuteNanos;
+        private String pendingSql;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.equals("clearParameters")) {
+                parameterTypes.clear();
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameterTypes.put(index, name.equals("setNull") || args[1] == null
+                        ? "null" : args[1].getClass().getSimpleName());
+                return QueryMetrics.invoke(statement, method, args);
+            }
+            if (name.equals("addBatch")) {
+                batchSize++;
+                return QueryMetrics.invoke(statement, method, args);
+            }
+            if (!name.startsWith("execute")) {
+                Object result = QueryMetrics.invoke(statement, method, args);
+                if (result instanceof ResultSet resultSet && name.equals("getResultSet")) {
+                    long executeNanos = pendingExecuteNanos;
+                    pendingExecuteNanos = 0;
+                    return wrapResult(resultSet, pendingSql != null ? pendingSql : sql(null), executeNanos);
+                }
+                return result;
+            }
+
+            long start = System.nanoTime();
+            Object result = QueryMetrics.invoke(statement, method, args);
+            long elapsed = System.nanoTime() - start;
+            String sql = sql(args);
+            if (result instanceof ResultSet resultSet) {
+                return wrapResult(resultSet, sql, elapsed);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                // execute() z wynikiem zapytania - pomiar dokończy ResultSet z getResultSet()
+                pendingExecuteNanos = elapsed;
+                pendingSql = sql;
+                return result;
+            }
+            long rows;
+            if (result instanceof int[] counts) {
+                rows = 0;
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof Number count) {
+                rows = count.longValue();
+            } else {
+                rows = Math.max(statement.getUpdateCount(), 0);
+            }
+            QueryMetrics.record(sql, parameterShape(), elapsed, rows);
+            if (name.equals("executeBatch")) {
+                batchSize = 0;
+            }
+            return result;
+        }
+
+        private String sql(Object[] args) {
+            return preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String sql ? sql : "?";
+        }
+
+        /**
+         * Typy parametrów w kolejności, kolejne jednakowe zwinięte (np. "Long x1000, String")
+         */
+        private String parameterShape() {
+            StringBuilder shape = new StringBuilder("(");
+            String previous = null;
+            int run = 0;
+            for (String type : parameterTypes.values()) {
+                if (type.equals(previous)) {
+                    run++;
+                    continue;
+                }
+                appendRun(shape, previous, run);
+                previous = type;
+                run = 1;
+            }
+            appendRun(shape, previous, run);
+            shape.append(')');
+            if (batchSize > 1) {
+                shape.append(" x").append(batchSize).append(" batch");
+            }
+            return shape.toString();
+        }
+
+        private static void appendRun(StringBuilder shape, String type, int run) {
+            if (type == null) {
+                return;
+            }
+            if (shape.length() > 1) {
+                shape.append(", ");
+            }
+            shape.append(type);
+            if (run > 1) {
+                shape.append(" x").append(run);
+            }
+        }
+
+        private Object wrapResult(ResultSet resultSet, String sql, long executeNanos) {
+            return Proxy.newProxyInstance(QueryMetrics.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(resultSet, sql, parameterShape(), executeNanos));
+        }
+    }
+
+    /**
+     * Liczy wiersze i czas pobierania; pomiar kończy się przy zamknięciu wyniku
+     */
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final String sql;
+        private final String parameterShape;
+        private long elapsedNanos;
+        private long rows;
+        private boolean closed;
+
+        ResultSetHandler(ResultSet resultSet, String sql, String parameterShape, long executeNanos) {
+            this.resultSet = resultSet;
+            this.sql = sql;
+            this.parameterShape = parameterShape;
+            this.elapsedNanos = executeNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isIdentityMethod(method)) {
+                return identity(proxy, method, args);
+            }
+            String name = method.getName();
+            if (name.equals("next")) {
+                long start = System.nanoTime();
+                Object result = QueryMetrics.invoke(resultSet, method, args);
+                elapsedNanos += System.nanoTime() - start;
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                }
+                return result;
+            }
+            if (name.equals("close") && !closed) {
+                closed = true;
+                QueryMetrics.record(sql, parameterShape, elapsedNanos, rows);
+            }
+            return QueryMetrics.invoke(resultSet, method, args);
+        }
+    }
+
+    /**
+     * Wybrane liczniki Statistics Hibernate (hibernate.generate_statistics=true)
+     */
+    public static Map<String, Long> getHibernateStatistics() {
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        Map<String, Long> result = new TreeMap<>();
+        result.put("sessionsOpened", statistics.getSessionOpenCount());
+        result.put("connectionsObtained", statistics.getConnectCount());
+        result.put("transactions", statistics.getTransactionCount());
+        result.put("statementsPrepared", statistics.getPrepareStatementCount());
+        result.put("flushes", statistics.getFlushCount());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("entityFetches", statistics.getEntityFetchCount());
+        result.put("collectionLoads", statistics.getCollectionLoadCount());
+        result.put("collectionFetches", statistics.getCollectionFetchCount());
+        result.put("queryExecutions", statistics.getQueryExecutionCount());
+        result.put("queryExecutionMaxMillis", statistics.getQueryExecutionMaxTime());
+        result.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("queryPlanCacheHits", statistics.getQueryPlanCacheHitCount());
+        result.put("queryPlanCacheMisses", statistics.getQueryPlanCacheMissCount());
+        return result;
+    }
+
+    /**
+     * Raport tekstowy: jednostki pracy od największego łącznego czasu, SQL, pula, Hibernate
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("Data access metrics\n");
+        List<Map.Entry<String, UnitOfWork.Timing.Snapshot>> units = new ArrayList<>(UnitOfWork.getTimings().entrySet());
+        units.sort(Comparator.comparingDouble(
+                (Map.Entry<String, UnitOfWork.Timing.Snapshot> entry) -> entry.getValue().getTotalMillis()).reversed());
+        for (Map.Entry<String, UnitOfWork.Timing.Snapshot> unit : units) {
+            report.append("  ").append(unit.getKey()).append(": ").append(unit.getValue()).append('\n');
+        }
+        report.append("  SQL statements: ").append(statements).append('\n');
+        report.append("  connection acquisition: ").append(connectionAcquisition).append('\n');
+        report.append("  session acquisition: ").append(UnitOfWork.getSessionAcquisitionLatency()).append('\n');
+        ConnectionPoolMetrics pool = HibernateUtil.getPoolMetrics();
+        if (pool != null) {
+            report.append("  pool: ").append(pool.snapshot()).append('\n');
+        }
+        ReadReplica replica = HibernateUtil.getReadReplica();
+        if (replica != null) {
+            report.append("  ").append(replica).append('\n');
+        }
+        SessionFactory factory = HibernateUtil.getSessionFactory();
+        if (factory.getStatistics().isStatisticsEnabled()) {
+            report.append("  hibernate: ").append(getHibernateStatistics()).append('\n');
+            String slowest = factory.getStatistics().getQueryExecutionMaxTimeQueryString();
+            if (slowest != null) {
+                report.append("  slowest query: ").append(slowest).append('\n');
+            }
+        }
+        return report.toString();
+    }
+}
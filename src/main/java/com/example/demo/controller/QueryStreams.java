@@ -0,0 +1,154 @@
+package com.example.demo.controller;
+
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.Query;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Przetwarzanie wyników zapytań strumieniowo zamiast query.list().
+ *
+ * Wiersze są czytane kursorem (ScrollableResults, FORWARD_ONLY) w paczkach po fetchSize,
+ * encje są read-only, a kontekst persystencji jest czyszczony co fetchSize wierszy,
+ * więc pamięć nie rośnie z rozmiarem wyniku. Na MySQL wymaga to useCursorFetch=true
+ * w URL połączenia - inaczej sterownik i tak wczytuje cały wynik do pamięci.
+ *
+ * Uwaga: po wyczyszczeniu sesji wcześniej przekazane encje są odłączone, więc ich
+ * leniwe asocjacje nie są już dostępne - potrzebne dane trzeba pobrać w zapytaniu
+ * (JOIN FETCH albo projekcja). Wewnątrz większej jednostki pracy forEach czyta kursorem
+ * na osobnej sesji współdzielącej jej połączenie, więc encje jednostki zostają zarządzane.
+ */
+public final class QueryStreams {
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private QueryStreams() {
+    }
+
+    /**
+     * Obsługa jednego wiersza wyniku
+     */
+    @FunctionalInterface
+    public interface RowHandler<T, E extends Exception> {
+        void handle(T row) throws E;
+    }
+
+    public static <T, E extends Exception> long forEach(String name, Function<Session, Query<T>> queryFactory,
+                                                        RowHandler<? super T, E> handler) throws E {
+        return forEach(name, queryFactory, DEFAULT_FETCH_SIZE, handler);
+    }
+
+    /**
+     * Przekazuje kolejne wiersze do handlera w jednostce pracy tylko do odczytu;
+     * zwraca liczbę przetworzonych wierszy.
+     *
+     * Wewnątrz większej jednostki pracy jej sesja nie może być czyszczona (odłączyłoby to
+     * jej encje i porzuciło niezapisane zmiany), więc kursor działa na osobnej sesji
+     * współdzielącej połączenie i transakcję jednostki. Niezapisane zmiany transakcji
+     * są przed zapytaniem wysyłane do bazy, żeby kursor je widział.
+     */
+    public static <T, E extends Exception> long forEach(String name, Function<Session, Query<T>> queryFactory,
+                                                        int fetchSize, RowHandler<? super T, E> handler) throws E {
+        boolean nested = UnitOfWork.isActive();
+        return UnitOfWork.readOnly(name, session -> {
+            if (!nested) {
+                return forEach(session, queryFactory, fetchSize, handler);
+            }
+            if (session.getHibernateFlushMode() != FlushMode.MANUAL) {
+                session.flush();
+            }
+            try (Session scrollSession = session.sessionWithOptions().connection().openSession()) {
+                scrollSession.setDefaultReadOnly(true);
+                scrollSession.setHibernateFlushMode(FlushMode.MANUAL);
+                return forEach(scrollSession, queryFactory, fetchSize, handler);
+            }
+        });
+    }
+
+    private static <T, E extends Exception> long forEach(Session session, Function<Session, Query<T>> queryFactory,
+                                                         int fetchSize, RowHandler<? super T, E> handler) throws E {
+        long count = 0;
+        try (ScrollableResults<T> results = scroll(queryFactory.apply(session), fetchSize)) {
+            while (results.next()) {
+                handler.handle(results.get());
+                if (++count % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    public static <T> Stream<T> stream(Function<Session, Query<T>> queryFactory) {
+        return stream(queryFactory, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Leniwy strumień wyników na własnej sesji tylko do odczytu. Sesja i kursor
+     * są zamykane razem ze strumieniem, więc trzeba go używać w try-with-resources.
+     */
+    public static <T> Stream<T> stream(Function<Session, Query<T>> queryFactory, int fetchSize) {
+        Session session = HibernateUtil.getSessionFactory().openSession();
+        try {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            ScrollableResults<T> results = scroll(queryFactory.apply(session), fetchSize);
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+                private long count;
+
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    // poprzednia paczka została już przekazana dalej, więc można ją odłączyć
+                    if (count > 0 && count % fetchSize == 0) {
+                        session.clear();
+                    }
+                    if (!next(results)) {
+                        return false;
+                    }
+                    count++;
+                    action.accept(results.get());
+                    return true;
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> {
+                try {
+                    results.close();
+                } finally {
+                    session.close();
+                }
+            });
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Strumień jest czytany poza jednostką pracy, a Hibernate pobiera połączenie dopiero
+     * przy pierwszym next(), więc odczyty kursora są jawnie kierowane do repliki
+     */
+    private static boolean next(ScrollableResults<?> results) {
+        boolean previousRoute = DataSourceRouting.enterReadOnly();
+        try {
+            return results.next();
+        } finally {
+            DataSourceRouting.exit(previousRoute);
+        }
+    }
+
+    private static <T> ScrollableResults<T> scroll(Query<T> query, int fetchSize) {
+        query.setReadOnly(true);
+        query.setFetchSize(fetchSize);
+        // jednorazowy przebieg po dużym wyniku nie powinien wypychać cache drugiego poziomu
+        query.setCacheMode(CacheMode.IGNORE);
+        return query.scroll(ScrollMode.FORWARD_ONLY);
+    }
+}
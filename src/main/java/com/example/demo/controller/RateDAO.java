@@ -2,124 +2,103 @@ package com.example.demo.controller;
 
 import com.example.demo.model.Rate;
 import org.hibernate.Session;
-import org.hibernate.SessionFactory;
-import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 public class RateDAO {
-    private final SessionFactory sessionFactory;
-
-    public RateDAO() {
-        this.sessionFactory = HibernateUtil.getSessionFactory();
-    }
 
     public void save(Rate rate) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
+        UnitOfWork.inTransaction(session -> {
             session.persist(rate);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            session.close();
-        }
+            GroupStatsDAO.ratesAdded(session, List.of(rate));
+            UnitOfWork.afterCommit(SecondLevelCache::evictRateQueries);
+            return null;
+        });
     }
 
     public void update(Rate rate) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.merge(rate);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
-            }
-            throw e;
-        } finally {
-            session.close();
-        }
+        updateAll(List.of(rate));
     }
 
     public void delete(Rate rate) {
-        Session session = sessionFactory.openSession();
-        Transaction transaction = null;
-        try {
-            transaction = session.beginTransaction();
-            session.remove(rate);
-            transaction.commit();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.rollback();
+        deleteAll(List.of(rate));
+    }
+
+    public void saveAll(Collection<Rate> rates) {
+        UnitOfWork.inTransaction("RateDAO.saveAll", session -> {
+            BatchWriter.write(rates, Session::persist);
+            GroupStatsDAO.ratesAdded(session, rates);
+            return null;
+        });
+        UnitOfWork.afterCommit(SecondLevelCache::evictRateQueries);
+    }
+
+    /**
+     * Wartość i grupa oceny przed merge nie są znane bez odczytu, więc statystyki ocen
+     * dotkniętych grup są przeliczane
+     */
+    public void updateAll(Collection<Rate> rates) {
+        UnitOfWork.inTransaction("RateDAO.updateAll", session -> {
+            Set<Long> groupIds = GroupStatsDAO.groupIdsOf(session, Rate.class,
+                    rates.stream().map(Rate::getId).toList());
+            BatchWriter.write(rates, Session::merge);
+            for (Rate rate : rates) {
+                if (rate.getGroup() != null) {
+                    groupIds.add(rate.getGroup().getId());
+                }
             }
-            throw e;
-        } finally {
-            session.close();
-        }
+            GroupStatsDAO.recomputeRates(session, groupIds);
+            return null;
+        });
+        UnitOfWork.afterCommit(SecondLevelCache::evictRateQueries);
+    }
+
+    public void deleteAll(Collection<Rate> rates) {
+        UnitOfWork.inTransaction("RateDAO.deleteAll", session -> {
+            BatchWriter.write(rates, Session::remove);
+            GroupStatsDAO.ratesRemoved(session, rates);
+            return null;
+        });
+        UnitOfWork.afterCommit(SecondLevelCache::evictRateQueries);
     }
 
     public Rate findById(Long id) {
-        Session session = sessionFactory.openSession();
-        try {
-            return session.get(Rate.class, id);
-        } finally {
-            session.close();
-        }
+        return UnitOfWork.readOnly(session -> session.get(Rate.class, id));
     }
 
     public List<Rate> findByGroupName(String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             Query<Rate> query = session.createQuery(
                     "FROM Rate r WHERE r.group.groupName = :groupName ORDER BY r.ratingDate DESC", 
                     Rate.class);
             query.setParameter("groupName", groupName);
             return query.list();
-        } finally {
-            session.close();
-        }
+        });
     }
 
     public List<Rate> findAll() {
-        Session session = sessionFactory.openSession();
-        try {
-            return session.createQuery("FROM Rate", Rate.class).list();
-        } finally {
-            session.close();
-        }
+        return UnitOfWork.readOnly(session -> session.createQuery("FROM Rate", Rate.class).list());
     }
 
     public Long countByGroupName(String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             Query<Long> query = session.createQuery(
                     "SELECT COUNT(r) FROM Rate r WHERE r.group.groupName = :groupName", Long.class);
             query.setParameter("groupName", groupName);
             return query.uniqueResult();
-        } finally {
-            session.close();
-        }
+        });
     }
 
     public Double getAverageByGroupName(String groupName) {
-        Session session = sessionFactory.openSession();
-        try {
+        return UnitOfWork.readOnly(session -> {
             Query<Double> query = session.createQuery(
                     "SELECT AVG(r.value) FROM Rate r WHERE r.group.groupName = :groupName", Double.class);
             query.setParameter("groupName", groupName);
             Double result = query.uniqueResult();
             return result != null ? result : 0.0;
-        } finally {
-            session.close();
-        }
+        });
     }
 }
-
@@ -0,0 +1,206 @@
+package com.example.demo.controller;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Pula połączeń do repliki tylko do odczytu wraz z jej stanem.
+ *
+ * Replika obsługuje odczyty tylko wtedy, gdy jest osiągalna, jej opóźnienie nie przekracza
+ * employees.replica.max.lag.seconds i od ostatniego zapisu aplikacji minęło co najmniej
+ * employees.replica.read.after.write.millis; w przeciwnym razie odczyt idzie do bazy głównej.
+ * Opóźnienie mierzy cyklicznie zapytanie employees.replica.lag.query (np. SHOW REPLICA STATUS
+ * na MySQL); bez niego replika jest uznawana za aktualną. Po błędzie połączenia replika
+ * jest pomijana przez employees.replica.retry.seconds.
+ */
+public final class ReadReplica {
+    private static final Logger logger = Logger.getLogger(ReadReplica.class.getName());
+    static final String URL = "employees.replica.url";
+    private static final String PREFIX = "employees.replica.";
+
+    private final HikariDataSource dataSource;
+    private final long maxLagSeconds;
+    private final long readAfterWriteNanos;
+    private final long retryNanos;
+    private final String lagQuery;
+    private final ScheduledExecutorService lagChecker;
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    private volatile long unavailableUntil;
+    private volatile boolean available = true;
+    private volatile Long lagSeconds = 0L;
+
+    /**
+     * @param poolProperties ustawienia HikariCP puli głównej (wielkość, timeouty), współdzielone z repliką
+     */
+    ReadReplica(Map<String, Object> settings, Properties poolProperties) {
+        maxLagSeconds = longSetting(settings, "max.lag.seconds", 5);
+        readAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(longSetting(settings, "read.after.write.millis", 2000));
+        retryNanos = TimeUnit.SECONDS.toNanos(longSetting(settings, "retry.seconds", 30));
+        Object query = settings.get(PREFIX + "lag.query");
+        lagQuery = query != null && !query.toString().isBlank() ? query.toString().trim() : null;
+
+        HikariConfig config = new HikariConfig(poolProperties);
+        config.setJdbcUrl(settings.get(URL).toString());
+        config.setUsername(stringSetting(settings, "username", "hibernate.connection.username"));
+        config.setPassword(stringSetting(settings, "password", "hibernate.connection.password"));
+        Object driver = settings.get("hibernate.connection.driver_class");
+        if (driver != null) {
+            config.setDriverClassName(driver.toString());
+        }
+        config.setPoolName("employees-replica-pool");
+        config.setReadOnly(true);
+        // niedostępna replika nie może zatrzymać startu ani długo blokować odczytów
+        config.setInitializationFailTimeout(-1);
+        config.setConnectionTimeout(longSetting(settings, "connection.timeout.millis", 2000));
+        dataSource = new HikariDataSource(config);
+
+        if (lagQuery != null) {
+            long interval = longSetting(settings, "check.interval.seconds", 10);
+            lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "replica-lag-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            lagChecker.scheduleWithFixedDelay(this::checkLag, 0, interval, TimeUnit.SECONDS);
+        } else {
+            lagChecker = null;
+        }
+        logger.info("Read replica configured: " + config.getJdbcUrl() + " (max lag " + maxLagSeconds + " s)");
+    }
+
+    /**
+     * Połączenie z repliki albo null, gdy odczyt powinien pójść do bazy głównej
+     */
+    Connection tryGetConnection() {
+        if (!acceptsReads()) {
+            primaryFallbacks.increment();
+            return null;
+        }
+        try {
+            Connection connection = dataSource.getConnection();
+            if (!available) {
+                available = true;
+                logger.info("Read replica reachable again");
+            }
+            replicaReads.increment();
+            return connection;
+        } catch (SQLException e) {
+            markUnavailable(e);
+            primaryFallbacks.increment();
+            return null;
+        }
+    }
+
+    private boolean acceptsReads() {
+        if (!available && System.nanoTime() - unavailableUntil < 0) {
+            return false;
+        }
+        Long lag = lagSeconds;
+        return lag != null && lag <= maxLagSeconds
+                && DataSourceRouting.nanosSinceLastWrite() >= readAfterWriteNanos;
+    }
+
+    private void markUnavailable(Exception e) {
+        unavailableUntil = System.nanoTime() + retryNanos;
+        if (available) {
+            available = false;
+            logger.warning("Read replica unavailable, reading from primary: " + e.getMessage());
+        }
+    }
+
+    private void checkLag() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            Long lag = null;
+            if (rs.next()) {
+                Object value = lagColumn(rs);
+                lag = value instanceof Number ? ((Number) value).longValue() : null;
+            }
+            if (lag == null || lag > maxLagSeconds) {
+                if (lagSeconds != null && lagSeconds <= maxLagSeconds) {
+                    logger.warning("Read replica lag " + (lag == null ? "unknown" : lag + " s")
+                            + " exceeds " + maxLagSeconds + " s, reading from primary");
+                }
+            } else if (!available) {
+                logger.info("Read replica available again (lag " + lag + " s)");
+            }
+            lagSeconds = lag;
+            available = true;
+        } catch (SQLException | RuntimeException e) {
+            // wyjątek zatrzymałby kolejne sprawdzenia harmonogramu
+            markUnavailable(e);
+        }
+    }
+
+    /**
+     * Kolumna opóźnienia z wyniku SHOW REPLICA STATUS (MySQL 8.0.22+ / starsze),
+     * a dla innych zapytań pierwsza kolumna
+     */
+    private static Object lagColumn(ResultSet rs) throws SQLException {
+        for (String label : new String[]{"Seconds_Behind_Source", "Seconds_Behind_Master"}) {
+            try {
+                return rs.getObject(label);
+            } catch (SQLException e) {
+                // brak kolumny o tej nazwie
+            }
+        }
+        return rs.getObject(1);
+    }
+
+    public boolean isAvailable() {
+        return available || System.nanoTime() - unavailableUntil >= 0;
+    }
+
+    /**
+     * Ostatnio zmierzone opóźnienie w sekundach (null - nieznane, np. zatrzymana replikacja)
+     */
+    public Long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.sum();
+    }
+
+    void stop() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        dataSource.close();
+    }
+
+    private static long longSetting(Map<String, Object> settings, String name, long defaultValue) {
+        Object value = settings.get(PREFIX + name);
+        return value != null ? Long.parseLong(value.toString().trim()) : defaultValue;
+    }
+
+    private static String stringSetting(Map<String, Object> settings, String name, String fallbackKey) {
+        Object value = settings.getOrDefault(PREFIX + name, settings.get(fallbackKey));
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("replica available=%s, lag=%s s, replicaReads=%d, primaryFallbacks=%d",
+                isAvailable(), lagSeconds, getReplicaReads(), getPrimaryFallbacks());
+    }
+}
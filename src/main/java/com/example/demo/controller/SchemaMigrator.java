@@ -0,0 +1,295 @@
+package com.example.demo.controller;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Wbudowany mechanizm migracji schematu uruchamiany przy starcie, przed walidacją Hibernate.
+ *
+ * Migracje to pliki V{n}__{opis}.sql wymienione (w kolejności) w pliku index.txt
+ * w katalogu migracji na classpath. Zastosowane wersje wraz z sumą kontrolną SHA-256
+ * zapisywane są w tabeli schema_history; zmiana pliku już zastosowanej migracji
+ * zatrzymuje start aplikacji.
+ *
+ * MySQL zatwierdza każdą instrukcję DDL osobno, więc migracja przerwana w połowie zostawia
+ * część zmian bez wpisu w historii i przy następnym starcie jest wykonywana od początku.
+ * Dlatego skrypty muszą dać się powtórzyć: tabele - IF NOT EXISTS, dane - warunki NOT EXISTS,
+ * a instrukcje, których MySQL nie umie warunkować (CREATE INDEX, ALTER TABLE ... DROP INDEX,
+ * ALTER TABLE ... ADD COLUMN), są pomijane, gdy ich efekt jest już w schemacie.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = Logger.getLogger(SchemaMigrator.class.getName());
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String HISTORY_TABLE = "schema_history";
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+`?(\\w+)`?\\s+ON\\s+`?(\\w+)`?.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DROP_INDEX = Pattern.compile(
+            "ALTER\\s+TABLE\\s+`?(\\w+)`?\\s+DROP\\s+INDEX\\s+`?(\\w+)`?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ADD_COLUMN = Pattern.compile(
+            "ALTER\\s+TABLE\\s+`?(\\w+)`?\\s+ADD\\s+COLUMN\\s+`?(\\w+)`?.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final String location;
+
+    /**
+     * @param location katalog migracji na classpath, np. "db/migration"
+     */
+    public SchemaMigrator(String location) {
+        this.location = location.endsWith("/") ? location.substring(0, location.length() - 1) : location;
+    }
+
+    /**
+     * Stosuje wszystkie oczekujące migracje; zwraca liczbę zastosowanych
+     */
+    public int migrate(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            ensureHistoryTable(connection);
+            Map<Integer, String> applied = loadAppliedChecksums(connection);
+            List<Migration> migrations = loadMigrations();
+
+            int highestApplied = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+            int count = 0;
+            for (Migration migration : migrations) {
+                String checksum = applied.get(migration.version);
+                if (checksum != null) {
+                    if (!checksum.equals(migration.checksum)) {
+                        throw new IllegalStateException("Migracja V" + migration.version
+                                + " została zmieniona po zastosowaniu (niezgodna suma kontrolna)");
+                    }
+                    continue;
+                }
+                if (migration.version < highestApplied) {
+                    throw new IllegalStateException("Migracja V" + migration.version
+                            + " jest starsza niż ostatnio zastosowana V" + highestApplied);
+                }
+                apply(connection, migration);
+                count++;
+            }
+            if (count == 0) {
+                logger.info("Schema up to date (version " + highestApplied + ")");
+            }
+            return count;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void ensureHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS `" + HISTORY_TABLE + "` ("
+                    + "`version` INT NOT NULL, "
+                    + "`description` VARCHAR(200) NOT NULL, "
+                    + "`checksum` VARCHAR(64) NOT NULL, "
+                    + "`installed_on` TIMESTAMP NOT NULL, "
+                    + "`execution_ms` BIGINT NOT NULL, "
+                    + "PRIMARY KEY (`version`))");
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    private Map<Integer, String> loadAppliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT `version`, `checksum` FROM `" + HISTORY_TABLE + "`")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.nanoTime();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            // Uwaga: w MySQL instrukcje DDL zatwierdzają się same, więc transakcja
+            // chroni w pełni tylko migracje danych; DDL już wykonany przez przerwaną próbę jest pomijany
+            for (String sql : splitStatements(migration.script)) {
+                if (alreadyApplied(connection, sql)) {
+                    logger.fine("Skipping statement already reflected in schema: " + sql);
+                    continue;
+                }
+                statement.execute(sql);
+            }
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO `" + HISTORY_TABLE
+                    + "` (`version`, `description`, `checksum`, `installed_on`, `execution_ms`) VALUES (?, ?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version);
+                insert.setString(2, migration.description);
+                insert.setString(3, migration.checksum);
+                insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                insert.setLong(5, elapsedMillis);
+                insert.executeUpdate();
+            }
+            connection.commit();
+            logger.info("Applied migration V" + migration.version + " (" + migration.description + ") in "
+                    + elapsedMillis + " ms");
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw new IllegalStateException("Migracja V" + migration.version + " nie powiodła się: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Czy efekt instrukcji DDL bez warunku IF [NOT] EXISTS jest już w schemacie:
+     * indeks istnieje, usuwanego indeksu nie ma, dodawana kolumna istnieje
+     */
+    static boolean alreadyApplied(Connection connection, String sql) throws SQLException {
+        Matcher matcher = CREATE_INDEX.matcher(sql);
+        if (matcher.matches()) {
+            return indexExists(connection, matcher.group(2), matcher.group(1));
+        }
+        matcher = DROP_INDEX.matcher(sql);
+        if (matcher.matches()) {
+            return !indexExists(connection, matcher.group(1), matcher.group(2));
+        }
+        matcher = ADD_COLUMN.matcher(sql);
+        if (matcher.matches()) {
+            return columnExists(connection, matcher.group(1), matcher.group(2));
+        }
+        return false;
+    }
+
+    private static boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        // nazwy są wzorcami (podkreślnik pasuje do dowolnego znaku) - stąd porównanie nazwy
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        int previousVersion = 0;
+        for (String fileName : readResource("index.txt").split("\\R")) {
+            fileName = fileName.trim();
+            if (fileName.isEmpty() || fileName.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Nieprawidłowa nazwa migracji: " + fileName);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= previousVersion) {
+                throw new IllegalStateException("Migracje w index.txt muszą mieć rosnące wersje: " + fileName);
+            }
+            previousVersion = version;
+            String script = readResource(fileName);
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), script, checksum(script)));
+        }
+        return migrations;
+    }
+
+    private String readResource(String name) {
+        String path = "/" + location + "/" + name;
+        // Class.getResourceAsStream widzi zasoby własnego modułu niezależnie od enkapsulacji pakietów
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Nie znaleziono zasobu migracji: " + path);
+            }
+            StringBuilder content = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    content.append(line).append('\n');
+                }
+            }
+            return content.toString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Nie można odczytać zasobu migracji: " + path, e);
+        }
+    }
+
+    /**
+     * Dzieli skrypt na instrukcje: średnik na końcu linii kończy instrukcję,
+     * linie zaczynające się od "--" są komentarzami
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static String checksum(String script) {
+        try {
+            // skrypt jest czytany liniami, więc końce linii (CRLF/LF) nie wpływają na sumę
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String script;
+        private final String checksum;
+
+        Migration(int version, String description, String script, String checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = checksum;
+        }
+    }
+}
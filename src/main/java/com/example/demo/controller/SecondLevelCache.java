@@ -0,0 +1,143 @@
+package com.example.demo.controller;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nazwy regionów cache drugiego poziomu, jawne unieważnianie po zapisach w DAO
+ * oraz statystyki trafień/chybień/unieważnień (regiony skonfigurowane w ehcache.xml).
+ */
+public final class SecondLevelCache {
+    public static final String GROUP_ENTITY_REGION = "employees.groups";
+    public static final String RATE_ENTITY_REGION = "employees.rates";
+    public static final String GROUP_QUERY_REGION = "employees.query.groups";
+    public static final String RATE_QUERY_REGION = "employees.query.rates";
+
+    private static final LongAdder explicitEvictions = new LongAdder();
+
+    private SecondLevelCache() {
+    }
+
+    /**
+     * Czyści wyniki zapytań o grupy (lista nazw, findByName) po zmianie grup.
+     * Statystyki ocen są kluczowane nazwą grupy, więc też są czyszczone.
+     */
+    public static void evictGroupQueries() {
+        evictQueryRegion(GROUP_QUERY_REGION);
+        evictQueryRegion(RATE_QUERY_REGION);
+    }
+
+    /**
+     * Czyści wyniki zapytań statystycznych o oceny po zmianie ocen lub grup
+     */
+    public static void evictRateQueries() {
+        evictQueryRegion(RATE_QUERY_REGION);
+    }
+
+    private static void evictQueryRegion(String region) {
+        SessionFactory sessionFactory = HibernateUtil.getSessionFactory();
+        if (sessionFactory != null) {
+            sessionFactory.getCache().evictQueryRegion(region);
+            explicitEvictions.increment();
+        }
+    }
+
+    public static Snapshot snapshot() {
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        Map<String, RegionStats> regions = new LinkedHashMap<>();
+        regions.put(GROUP_ENTITY_REGION, RegionStats.of(statistics.getDomainDataRegionStatistics(GROUP_ENTITY_REGION)));
+        regions.put(RATE_ENTITY_REGION, RegionStats.of(statistics.getDomainDataRegionStatistics(RATE_ENTITY_REGION)));
+        regions.put(GROUP_QUERY_REGION, RegionStats.of(statistics.getQueryRegionStatistics(GROUP_QUERY_REGION)));
+        regions.put(RATE_QUERY_REGION, RegionStats.of(statistics.getQueryRegionStatistics(RATE_QUERY_REGION)));
+        return new Snapshot(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                // każdy zapis do tabeli przesuwa jej znacznik czasu i unieważnia zależne wyniki zapytań
+                statistics.getUpdateTimestampsCachePutCount(),
+                explicitEvictions.sum(),
+                regions);
+    }
+
+    /**
+     * Statystyki pojedynczego regionu
+     */
+    public static class RegionStats {
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long elementsInMemory;
+
+        public RegionStats(long hits, long misses, long puts, long elementsInMemory) {
+            this.hits = hits;
+            this.misses = misses;
+            this.puts = puts;
+            this.elementsInMemory = elementsInMemory;
+        }
+
+        static RegionStats of(CacheRegionStatistics statistics) {
+            if (statistics == null) {
+                return new RegionStats(0, 0, 0, 0);
+            }
+            long size = statistics.getElementCountInMemory();
+            return new RegionStats(statistics.getHitCount(), statistics.getMissCount(),
+                    statistics.getPutCount(), size == CacheRegionStatistics.NO_EXTENDED_STAT_SUPPORT_RETURN ? -1 : size);
+        }
+
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getPuts() { return puts; }
+        public long getElementsInMemory() { return elementsInMemory; }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + ", misses=" + misses + ", puts=" + puts + ", size=" + elementsInMemory;
+        }
+    }
+
+    /**
+     * Migawka statystyk cache
+     */
+    public static class Snapshot {
+        private final long entityHits;
+        private final long entityMisses;
+        private final long queryHits;
+        private final long queryMisses;
+        private final long tableInvalidations;
+        private final long explicitEvictions;
+        private final Map<String, RegionStats> regions;
+
+        public Snapshot(long entityHits, long entityMisses, long queryHits, long queryMisses,
+                        long tableInvalidations, long explicitEvictions, Map<String, RegionStats> regions) {
+            this.entityHits = entityHits;
+            this.entityMisses = entityMisses;
+            this.queryHits = queryHits;
+            this.queryMisses = queryMisses;
+            this.tableInvalidations = tableInvalidations;
+            this.explicitEvictions = explicitEvictions;
+            this.regions = regions;
+        }
+
+        public long getEntityHits() { return entityHits; }
+        public long getEntityMisses() { return entityMisses; }
+        public long getQueryHits() { return queryHits; }
+        public long getQueryMisses() { return queryMisses; }
+        public long getTableInvalidations() { return tableInvalidations; }
+        public long getExplicitEvictions() { return explicitEvictions; }
+        public Map<String, RegionStats> getRegions() { return regions; }
+
+        @Override
+        public String toString() {
+            return "Cache{entityHits=" + entityHits + ", entityMisses=" + entityMisses
+                    + ", queryHits=" + queryHits + ", queryMisses=" + queryMisses
+                    + ", invalidations=" + tableInvalidations + ", evictions=" + explicitEvictions
+                    + ", regions=" + regions + "}";
+        }
+    }
+}
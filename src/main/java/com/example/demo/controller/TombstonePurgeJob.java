@@ -0,0 +1,80 @@
+package com.example.demo.controller;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Zadanie w tle usuwające na stałe pracowników usuniętych miękko dawniej niż okres retencji.
+ *
+ * Bez niego nagrobki zostawałyby w tabeli na zawsze, powiększając indeksy i skany.
+ * Czyszczenie idzie paczkami w krótkich transakcjach (EmployeeDAO.purgeDeleted), więc
+ * nie blokuje długo tabeli. Ustawienia w hibernate.cfg.xml:
+ * employees.purge.retention.days (0 wyłącza zadanie), employees.purge.batch.size,
+ * employees.purge.interval.minutes.
+ */
+public final class TombstonePurgeJob {
+    private static final Logger logger = Logger.getLogger(TombstonePurgeJob.class.getName());
+    private static final String RETENTION_DAYS = "employees.purge.retention.days";
+    private static final String BATCH_SIZE = "employees.purge.batch.size";
+    private static final String INTERVAL_MINUTES = "employees.purge.interval.minutes";
+
+    private static ScheduledExecutorService executor;
+
+    private TombstonePurgeJob() {
+    }
+
+    /**
+     * Planuje cykliczne czyszczenie według ustawień (pierwszy przebieg po jednym interwale)
+     */
+    public static synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        Map<String, Object> settings = HibernateUtil.getSessionFactory().getProperties();
+        int retentionDays = intSetting(settings, RETENTION_DAYS, 30);
+        int batchSize = intSetting(settings, BATCH_SIZE, 500);
+        int intervalMinutes = intSetting(settings, INTERVAL_MINUTES, 60);
+        if (retentionDays <= 0 || batchSize <= 0 || intervalMinutes <= 0) {
+            logger.info("Tombstone purge disabled");
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tombstone-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> runOnce(retentionDays, batchSize),
+                intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("Tombstone purge scheduled every " + intervalMinutes + " min (retention " + retentionDays
+                + " days, batch " + batchSize + ")");
+    }
+
+    /**
+     * Jeden przebieg czyszczenia; zwraca liczbę usuniętych wierszy
+     */
+    public static long runOnce(int retentionDays, int batchSize) {
+        try {
+            return new EmployeeDAO().purgeDeleted(LocalDateTime.now().minusDays(retentionDays), batchSize);
+        } catch (RuntimeException e) {
+            // wyjątek zatrzymałby kolejne przebiegi harmonogramu
+            logger.warning("Tombstone purge failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    public static synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private static int intSetting(Map<String, Object> settings, String name, int defaultValue) {
+        Object value = settings.get(name);
+        return value != null ? Integer.parseInt(value.toString().trim()) : defaultValue;
+    }
+}
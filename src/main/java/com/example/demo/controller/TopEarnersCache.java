@@ -0,0 +1,130 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeRow;
+import com.example.demo.model.SalaryLeaderboard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Ranking CAPACITY najlepiej zarabiających pracowników w pamięci (id i pensja), zastępujący
+ * ORDER BY salary DESC przy każdym zapytaniu o najlepiej zarabiających.
+ *
+ * Ranking jest wczytywany jednym zapytaniem z limitem przy pierwszym użyciu (zawsze
+ * z bazy głównej - replika mogłaby jeszcze nie mieć zapisów już wpisanych do rankingu), a potem
+ * aktualizowany przyrostowo przez DAO po zatwierdzeniu zapisu: zapis pracownika lub
+ * zmiana pensji przesuwa tylko jego pozycję, usunięcie usuwa go z rankingu. Gdy po
+ * usunięciach i obniżkach zostanie w nim za mało pozycji, jest wczytywany ponownie.
+ * Zmiany grup (w tym usunięcie grupy z pracownikami) unieważniają go w całości.
+ */
+public final class TopEarnersCache {
+    private static final Logger logger = Logger.getLogger(TopEarnersCache.class.getName());
+    private static final String TOP_HQL =
+            "SELECT e.id, e.salary FROM Employee e WHERE e.salary IS NOT NULL ORDER BY e.salary DESC, e.id";
+
+    /**
+     * Najwięcej pozycji trzymanych w rankingu; większe zapytania idą do bazy
+     */
+    public static final int CAPACITY = 200;
+
+    // null - ranking zimny (nie wczytany albo unieważniony)
+    private static SalaryLeaderboard.Ranking<Long> ranking;
+    // zmienia się przy każdej modyfikacji; wczytanie porzuca wynik, jeśli w międzyczasie coś się zmieniło
+    private static long modCount;
+
+    private TopEarnersCache() {
+    }
+
+    /**
+     * Id limit najlepiej zarabiających (malejąco po pensji, przy równych - po id); przy zimnym
+     * rankingu wczytuje go z bazy. null, gdy limit przekracza CAPACITY
+     */
+    public static List<Long> topIds(int limit) {
+        if (limit > CAPACITY) {
+            return null;
+        }
+        long startModCount;
+        synchronized (TopEarnersCache.class) {
+            if (ranking != null) {
+                List<Long> ids = ranking.first(limit);
+                if (ids != null) {
+                    return ids;
+                }
+            }
+            startModCount = modCount;
+        }
+
+        long start = System.nanoTime();
+        List<Object[]> rows = UnitOfWork.readOnlyFromPrimary("TopEarnersCache.load", session -> session
+                .createQuery(TOP_HQL, Object[].class)
+                .setMaxResults(CAPACITY)
+                .list());
+        synchronized (TopEarnersCache.class) {
+            if (modCount == startModCount) {
+                SalaryLeaderboard.Ranking<Long> loaded = new SalaryLeaderboard.Ranking<>(CAPACITY, true);
+                loaded.load(rows, row -> (Long) row[0], row -> ((Number) row[1]).doubleValue(),
+                        row -> (Long) row[0], rows.size() < CAPACITY);
+                ranking = loaded;
+                logger.fine("Top earners cache loaded: " + rows.size() + " employees in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } else {
+                // zapis w trakcie wczytywania - wynik zwracamy, ale nie zapamiętujemy
+                logger.fine("Top earners cache load discarded (concurrent writes)");
+            }
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, rows.size()));
+        for (int i = 0; i < limit && i < rows.size(); i++) {
+            ids.add((Long) rows.get(i)[0]);
+        }
+        return ids;
+    }
+
+    /**
+     * Dodaje pracownika lub zmienia jego pensję (wywoływane po zatwierdzeniu zapisu)
+     */
+    static void put(Employee employee) {
+        put(employee.getId(), employee.getSalary());
+    }
+
+    /**
+     * Wiersze zmienione operacją zbiorczą - nowe pensje są w wierszach
+     */
+    static void putRows(List<EmployeeRow> rows) {
+        for (EmployeeRow row : rows) {
+            put(row.getId(), row.getSalary());
+        }
+    }
+
+    private static synchronized void put(Long id, Double salary) {
+        if (id == null) {
+            return;
+        }
+        modCount++;
+        if (ranking == null) {
+            return;
+        }
+        if (salary == null) {
+            ranking.remove(id);
+        } else {
+            ranking.put(id, salary, id);
+        }
+    }
+
+    static synchronized void remove(Long id) {
+        modCount++;
+        if (ranking != null) {
+            ranking.remove(id);
+        }
+    }
+
+    /**
+     * Unieważnia ranking po zmianach, których nie da się odwzorować przyrostowo
+     * (np. usunięcie grupy razem z pracownikami); zostanie wczytany przy następnym zapytaniu
+     */
+    public static synchronized void invalidate() {
+        modCount++;
+        ranking = null;
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.demo.controller;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Jednostka pracy: jedna sesja Hibernate (i jedna transakcja) na całą operację biznesową.
+ *
+ * Wywołania zagnieżdżone w tym samym wątku (np. kilka metod DAO wywołanych wewnątrz
+ * inTransaction) dołączają do już otwartej sesji zamiast otwierać własną, więc cała
+ * operacja pobiera połączenie z puli tylko raz.
+ * Jednostki tylko do odczytu działają bez jawnej transakcji, z FlushMode.MANUAL
+ * i encjami read-only (Hibernate nie trzyma dla nich kopii do dirty-checkingu);
+ * ich połączenia mogą pochodzić z repliki (DataSourceRouting).
+ *
+ * Każda zewnętrzna jednostka jest mierzona pod swoją nazwą (domyślnie Klasa.metoda
+ * wywołującego): histogram czasu (p50/p95/p99), liczba instrukcji SQL i wierszy
+ * (QueryMetrics) oraz czas pozyskania sesji z połączeniem.
+ */
+public final class UnitOfWork {
+    private static final Logger logger = Logger.getLogger(UnitOfWork.class.getName());
+    private static final ThreadLocal<Context> current = new ThreadLocal<>();
+    private static final Map<String, Timing> timings = new ConcurrentHashMap<>();
+    private static final LatencyHistogram sessionAcquisition = new LatencyHistogram();
+    // ramki pomijane przy ustalaniu nazwy jednostki z wywołującego
+    private static final Set<String> INFRASTRUCTURE = Set.of(UnitOfWork.class.getName(),
+            BatchWriter.class.getName(), QueryStreams.class.getName());
+    private static final StackWalker stackWalker = StackWalker.getInstance();
+
+    private UnitOfWork() {
+    }
+
+    /**
+     * Praca wykonywana na sesji jednostki
+     */
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T execute(Session session) throws E;
+    }
+
+    public static <T, E extends Exception> T inTransaction(Work<T, E> work) throws E {
+        return inTransaction(current.get() == null ? callerName() : null, work);
+    }
+
+    /**
+     * Wykonuje pracę w transakcji; nazwa służy do raportowania czasu jednostki
+     */
+    public static <T, E extends Exception> T inTransaction(String name, Work<T, E> work) throws E {
+        Context context = current.get();
+        if (context != null) {
+            if (context.readOnly) {
+                throw new IllegalStateException("Nie można wykonać zapisu wewnątrz jednostki tylko do odczytu");
+            }
+            return work.execute(context.session);
+        }
+
+        // czas liczony po bootstrapie, na który może czekać pierwsza jednostka
+        SessionFactory factory = HibernateUtil.getSessionFactory();
+        long start = System.nanoTime();
+        long[] sqlBefore = QueryMetrics.threadCounters();
+        Session session = factory.openSession();
+        Context newContext = new Context(session, false);
+        current.set(newContext);
+        Transaction transaction = null;
+        boolean committed = false;
+        try {
+            // początek transakcji pobiera połączenie z puli
+            transaction = session.beginTransaction();
+            sessionAcquisition.record(System.nanoTime() - start);
+            T result = work.execute(session);
+            transaction.commit();
+            committed = true;
+            DataSourceRouting.recordWrite();
+            return result;
+        } catch (Exception e) {
+            if (transaction != null && transaction.isActive()) {
+                transaction.rollback();
+            }
+            throw e;
+        } finally {
+            current.remove();
+            session.close();
+            record(name, System.nanoTime() - start, committed, sqlBefore);
+            if (committed) {
+                newContext.runAfterCommit();
+            }
+        }
+    }
+
+    public static <T, E extends Exception> T readOnly(Work<T, E> work) throws E {
+        return readOnly(current.get() == null ? callerName() : null, work);
+    }
+
+    /**
+     * Wykonuje pracę tylko do odczytu (dołącza do bieżącej jednostki, jeśli istnieje)
+     */
+    public static <T, E extends Exception> T readOnly(String name, Work<T, E> work) throws E {
+        Context context = current.get();
+        if (context != null) {
+            return work.execute(context.session);
+        }
+        return readOnlySession(name, true, work);
+    }
+
+    /**
+     * Odczyt zawsze z bazy głównej, z pominięciem repliki - dla wczytań pamięci podręcznych,
+     * które potem są aktualizowane przyrostowo po każdym zapisie: wczytanie z opóźnionej
+     * repliki zgubiłoby na stałe zapisy, które już zostały do nich dopisane.
+     * W transakcji dołącza do niej (jej połączenie jest z bazy głównej); w jednostce tylko
+     * do odczytu, która mogła czytać z repliki, otwiera na czas pracy własną sesję.
+     */
+    public static <T, E extends Exception> T readOnlyFromPrimary(String name, Work<T, E> work) throws E {
+        Context context = current.get();
+        if (context != null && !context.readOnly) {
+            return work.execute(context.session);
+        }
+        current.remove();
+        try {
+            return readOnlySession(name, false, work);
+        } finally {
+            if (context != null) {
+                current.set(context);
+            }
+        }
+    }
+
+    private static <T, E extends Exception> T readOnlySession(String name, boolean replicaAllowed,
+                                                              Work<T, E> work) throws E {
+        // czas liczony po bootstrapie, na który może czekać pierwsza jednostka
+        SessionFactory factory = HibernateUtil.getSessionFactory();
+        long start = System.nanoTime();
+        long[] sqlBefore = QueryMetrics.threadCounters();
+        Session session = factory.openSession();
+        // bez transakcji połączenie jest pobierane leniwie - liczy się w QueryMetrics
+        sessionAcquisition.record(System.nanoTime() - start);
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        current.set(new Context(session, true));
+        // zagnieżdżone odczyty w transakcji (powyżej) zostają na jej połączeniu z bazą główną
+        boolean previousRoute = replicaAllowed ? DataSourceRouting.enterReadOnly() : DataSourceRouting.enterPrimary();
+        boolean succeeded = false;
+        try {
+            T result = work.execute(session);
+            succeeded = true;
+            return result;
+        } finally {
+            current.remove();
+            session.close();
+            DataSourceRouting.exit(previousRoute);
+            record(name, System.nanoTime() - start, succeeded, sqlBefore);
+        }
+    }
+
+    /**
+     * Rejestruje akcję wykonywaną po zatwierdzeniu bieżącej transakcji
+     * (poza jednostką pracy akcja wykonuje się od razu)
+     */
+    public static void afterCommit(Runnable action) {
+        Context context = current.get();
+        if (context == null || context.readOnly) {
+            action.run();
+        } else {
+            context.afterCommit.add(action);
+        }
+    }
+
+    public static boolean isActive() {
+        return current.get() != null;
+    }
+
+    private static void record(String name, long elapsedNanos, boolean succeeded, long[] sqlBefore) {
+        long[] sqlAfter = QueryMetrics.threadCounters();
+        long statements = sqlAfter[0] - sqlBefore[0];
+        long rows = sqlAfter[1] - sqlBefore[1];
+        timings.computeIfAbsent(name, key -> new Timing()).record(elapsedNanos, succeeded, statements, rows,
+                sqlAfter[2] - sqlBefore[2]);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Unit of work " + name + " took " + elapsedNanos / 1_000_000.0 + " ms, "
+                    + statements + " statements, " + rows + " rows" + (succeeded ? "" : " (failed)"));
+        }
+    }
+
+    /**
+     * Nazwa jednostki bez jawnej nazwy: Klasa.metoda pierwszej ramki spoza infrastruktury
+     * (dla lambd - metoda, w której lambda została zapisana)
+     */
+    private static String callerName() {
+        return stackWalker.walk(frames -> frames
+                .filter(frame -> !INFRASTRUCTURE.contains(frame.getClassName()))
+                .findFirst()
+                .map(frame -> {
+                    String className = frame.getClassName();
+                    String method = frame.getMethodName();
+                    if (method.startsWith("lambda$")) {
+                        int end = method.indexOf('$', "lambda$".length());
+                        method = method.substring("lambda$".length(), end > 0 ? end : method.length());
+                    }
+                    return className.substring(className.lastIndexOf('.') + 1) + "." + method;
+                })
+                .orElse("unitOfWork"));
+    }
+
+    /**
+     * Czas od otwarcia sesji do uzyskania połączenia (dla transakcji) albo samego otwarcia
+     */
+    public static LatencyHistogram getSessionAcquisitionLatency() {
+        return sessionAcquisition;
+    }
+
+    /**
+     * Zwraca czasy jednostek pracy pogrupowane po nazwie
+     */
+    public static Map<String, Timing.Snapshot> getTimings() {
+        Map<String, Timing.Snapshot> result = new LinkedHashMap<>();
+        timings.forEach((name, timing) -> result.put(name, timing.snapshot()));
+        return result;
+    }
+
+    private static class Context {
+        private final Session session;
+        private final boolean readOnly;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        Context(Session session, boolean readOnly) {
+            this.session = session;
+            this.readOnly = readOnly;
+        }
+
+        void runAfterCommit() {
+            for (Runnable action : afterCommit) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    logger.warning("After-commit action failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Licznik czasu jednostek pracy o tej samej nazwie
+     */
+    public static class Timing {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder sqlNanos = new LongAdder();
+
+        void record(long elapsedNanos, boolean succeeded, long statementCount, long rowCount, long sqlElapsedNanos) {
+            latency.record(elapsedNanos);
+            if (!succeeded) {
+                failures.increment();
+            }
+            statements.add(statementCount);
+            rows.add(rowCount);
+            sqlNanos.add(sqlElapsedNanos);
+        }
+
+        Snapshot snapshot() {
+            return new Snapshot(latency.getCount(), failures.sum(), latency.getAverageMillis(),
+                    latency.getPercentileMillis(50), latency.getPercentileMillis(95), latency.getPercentileMillis(99),
+                    latency.getMaxMillis(), latency.getTotalMillis(), statements.sum(), rows.sum(),
+                    sqlNanos.sum() / 1_000_000.0);
+        }
+
+        public static class Snapshot {
+            private final long count;
+            private final long failures;
+            private final double averageMillis;
+            private final double p50Millis;
+            private final double p95Millis;
+            private final double p99Millis;
+            private final double maxMillis;
+            private final double totalMillis;
+            private final long statements;
+            private final long rows;
+            private final double sqlMillis;
+
+            public Snapshot(long count, long failures, double averageMillis, double p50Millis, double p95Millis,
+                            double p99Millis, double maxMillis, double totalMillis, long statements, long rows,
+                            double sqlMillis) {
+                this.count = count;
+                this.failures = failures;
+                this.averageMillis = averageMillis;
+                this.p50Millis = p50Millis;
+                this.p95Millis = p95Millis;
+                this.p99Millis = p99Millis;
+                this.maxMillis = maxMillis;
+                this.totalMillis = totalMillis;
+                this.statements = statements;
+                this.rows = rows;
+                this.sqlMillis = sqlMillis;
+            }
+
+            public long getCount() { return count; }
+            public long getFailures() { return failures; }
+            public double getAverageMillis() { return averageMillis; }
+            public double getP50Millis() { return p50Millis; }
+            public double getP95Millis() { return p95Millis; }
+            public double getP99Millis() { return p99Millis; }
+            public double getMaxMillis() { return maxMillis; }
+            public double getTotalMillis() { return totalMillis; }
+            public long getStatements() { return statements; }
+            public long getRows() { return rows; }
+            /** Czas spędzony w SQL (wykonanie i pobieranie wierszy) */
+            public double getSqlMillis() { return sqlMillis; }
+
+            @Override
+            public String toString() {
+                return String.format("count=%d, failures=%d, avg=%.2fms, p50=%.2fms, p95=%.2fms, p99=%.2fms, "
+                                + "max=%.2fms, statements=%d, rows=%d, sql=%.1fms",
+                        count, failures, averageMillis, p50Millis, p95Millis, p99Millis, maxMillis,
+                        statements, rows, sqlMillis);
+            }
+        }
+    }
+}
@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
 @Table(name = "audit_log")
 public class AuditLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "audit_log_id")
+    @TableGenerator(name = "audit_log_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "audit_log", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
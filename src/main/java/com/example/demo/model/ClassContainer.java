@@ -1,14 +1,27 @@
 package com.example.demo.model;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 //ClassContainer jako TreeMap
 
+/**
+ * Grupy pracowników według nazwy. W trybach CONCURRENT_* kontener i jego grupy
+ * (ClassEmployee.concurrent) mogą być używane z wielu wątków bez zewnętrznych blokad.
+ *
+ * Zmiana trybu kopiuje grupy do nowej mapy i publikuje ją jednym zapisem pola volatile:
+ * czytający nie czekają (do końca kopiowania widzą starą mapę), wstrzymywane jest tylko
+ * dodawanie i usuwanie grup, żeby żadna zmiana nie zginęła w trakcie kopiowania.
+ */
 public class ClassContainer {
 
     // Pola
-    private Map<String, ClassEmployee> groups;
-    private StorageMode currentMode;
+    private volatile Map<String, ClassEmployee> groups;
+    private volatile StorageMode currentMode;
+    // dodawanie/usuwanie grup - blokada współdzielona, zmiana trybu - wyłączna
+    private final ReentrantReadWriteLock modeLock = new ReentrantReadWriteLock();
 
     // Konstruktory
     // konstruktor bez parametrów
@@ -24,22 +37,45 @@ public class ClassContainer {
     // konstruktor z StorageMode
     public ClassContainer(StorageMode mode) {
         this.currentMode = mode;
-        switch (mode) {
-            case HASH_MAP -> groups = new HashMap<>();
-            case LINKED_HASH_MAP -> groups = new LinkedHashMap<>();
-            case TREE_MAP -> groups = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-        }
+        this.groups = createMap(mode);
+    }
+
+    private static Map<String, ClassEmployee> createMap(StorageMode mode) {
+        return switch (mode) {
+            case HASH_MAP -> new HashMap<>();
+            case LINKED_HASH_MAP -> new LinkedHashMap<>();
+            case TREE_MAP -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            case CONCURRENT_HASH -> new ConcurrentHashMap<>();
+            case CONCURRENT_SKIP_LIST -> new ConcurrentSkipListMap<>(String.CASE_INSENSITIVE_ORDER);
+        };
     }
 
     // Metody
     // dodawanie klasy
     public void addClass(String name, int capacity) {
-        groups.put(name, new ClassEmployee(name, capacity));
+        modeLock.readLock().lock();
+        try {
+            ClassEmployee group = currentMode != null && currentMode.isConcurrent()
+                    ? ClassEmployee.concurrent(name, capacity)
+                    : new ClassEmployee(name, capacity);
+            groups.put(name, group);
+        } finally {
+            modeLock.readLock().unlock();
+        }
     }
 
     // usuwanie klasy
     public void removeClass(String name) {
-        groups.remove(name);
+        modeLock.readLock().lock();
+        try {
+            groups.remove(name);
+        } finally {
+            modeLock.readLock().unlock();
+        }
+    }
+
+    public StorageMode getStorageMode() {
+        return currentMode;
     }
 
     // pobieranie listy klas w porządku alfabetycznym
@@ -52,54 +88,112 @@ public class ClassContainer {
         return groups.get(name);
     }
 
-    // pobieranie listy pustych klas
+    // pobieranie listy pustych klas (bez pracowników w żadnym stanie) - O(liczba grup)
     public List<String> findEmpty() {
         return groups.entrySet().stream()
-                .filter(e -> e.getValue().countByCondition(EmployeeCondition.OBECNY)
-                        + e.getValue().countByCondition(EmployeeCondition.DELEGACJA)
-                        + e.getValue().countByCondition(EmployeeCondition.NIEOBECNY)
-                        + e.getValue().countByCondition(EmployeeCondition.CHORY) == 0)
+                .filter(e -> e.getValue().countWithCondition() == 0)
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
     }
 
+    // liczniki stanów wszystkich grup - suma liczników grup, O(liczba grup)
+    public Map<EmployeeCondition, Integer> getConditionCounts() {
+        Map<EmployeeCondition, Integer> totals = new EnumMap<>(EmployeeCondition.class);
+        for (EmployeeCondition condition : EmployeeCondition.values()) {
+            totals.put(condition, 0);
+        }
+        for (ClassEmployee group : groups.values()) {
+            group.getConditionCounts().forEach((condition, count) -> totals.merge(condition, count, Integer::sum));
+        }
+        return totals;
+    }
+
+    public long countByCondition(EmployeeCondition condition) {
+        long total = 0;
+        for (ClassEmployee group : groups.values()) {
+            total += group.countByCondition(condition);
+        }
+        return total;
+    }
+
+    // procent pracowników wszystkich grup w danym stanie
+    public double getConditionPercentage(EmployeeCondition condition) {
+        long total = 0;
+        for (ClassEmployee group : groups.values()) {
+            total += group.getEmployees().size();
+        }
+        return total == 0 ? 0.0 : countByCondition(condition) * 100.0 / total;
+    }
+
+    // najlepiej zarabiający ze wszystkich grup - scalenie rankingów grup, O(liczba grup * count)
+    public List<Employee> getTopEarners(int count) {
+        return earners(count, true);
+    }
+
+    // najgorzej zarabiający ze wszystkich grup, rosnąco
+    public List<Employee> getBottomEarners(int count) {
+        return earners(count, false);
+    }
+
+    private List<Employee> earners(int count, boolean top) {
+        List<Employee> candidates = new ArrayList<>();
+        for (ClassEmployee group : groups.values()) {
+            candidates.addAll(top ? group.getTopEarners(count) : group.getBottomEarners(count));
+        }
+        // stabilnie: przy równych pensjach w kolejności grup kontenera i list grup
+        Comparator<Employee> bySalary = Comparator.comparingDouble(Employee::getSalary);
+        candidates.sort(top ? bySalary.reversed() : bySalary);
+        return new ArrayList<>(candidates.subList(0, Math.min(Math.max(count, 0), candidates.size())));
+    }
+
     // podsumowanie
     public void summary() {
         groups.forEach((k, v) -> {
-            int total = v.sortByName().size();
+            int total = v.getEmployees().size();
             System.out.println(k + " — " + total + " pracowników");
         });
     }
 
-    // liczenie pracowników w klasach
+    // liczenie pracowników w klasach (rozmiar listy zamiast sortowania jej kopii)
     public Map<String, Integer> countEmployeesInGroups() {
         return groups.entrySet().stream()
-                .filter(e -> !e.getValue().sortByName().isEmpty())
+                .filter(e -> !e.getValue().getEmployees().isEmpty())
                 .sorted((a, b) -> Integer.compare(
-                        b.getValue().sortByName().size(),
-                        a.getValue().sortByName().size()))
+                        b.getValue().getEmployees().size(),
+                        a.getValue().getEmployees().size()))
                 .collect(Collectors.toMap(
                         Map.Entry::getKey,
-                        e -> e.getValue().sortByName().size(),
+                        e -> e.getValue().getEmployees().size(),
                         (a, b) -> a,
                         LinkedHashMap::new));
     }
 
+    // statystyki wszystkich grup jednym równoległym przebiegiem (ContainerAnalytics)
+    public ContainerAnalytics.Report analyze(ContainerAnalytics analytics) {
+        return analytics.analyze(this);
+    }
+
+    // kopia mapy grup w kolejności kontenera
+    Map<String, ClassEmployee> groupsSnapshot() {
+        return new LinkedHashMap<>(groups);
+    }
+
     //zad7
     //klasa jako HashMap, LinkedHashMap, TreeMap
     public void changeStorageMode(StorageMode newMode) {
-        Map<String, ClassEmployee> newMap;
-
-        switch (newMode) {
-            case HASH_MAP -> newMap = new HashMap<>();
-            case LINKED_HASH_MAP -> newMap = new LinkedHashMap<>();
-            case TREE_MAP -> newMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
-            default -> throw new IllegalStateException();
+        modeLock.writeLock().lock();
+        try {
+            Map<String, ClassEmployee> newMap = createMap(newMode);
+            if (newMode.isConcurrent()) {
+                // grupy z trybu jednowątkowego nie były jeszcze współdzielone
+                groups.values().forEach(ClassEmployee::enableConcurrentAccess);
+            }
+            newMap.putAll(groups);
+            currentMode = newMode;
+            groups = newMap;
+        } finally {
+            modeLock.writeLock().unlock();
         }
-
-        newMap.putAll(groups);
-        groups = newMap;
-        currentMode = newMode;
     }
 
     public void demonstrateOrderDifferences() {
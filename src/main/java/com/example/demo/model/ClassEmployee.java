@@ -1,31 +1,51 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import java.util.Collection;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.EnumMap;
 import java.util.Comparator;
 import java.util.stream.Collectors;
 import java.util.Optional;
 import java.time.Year;
 import java.util.IntSummaryStatistics;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employees.groups")
 @Table(name = "class_employees")
 public class ClassEmployee extends AuditableEntity {
+    private static final Logger logger = Logger.getLogger(ClassEmployee.class.getName());
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+    // najwięcej pozycji getTopEarners/getBottomEarners obsługiwanych z rankingu grupy
+    public static final int LEADERBOARD_SIZE = 100;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "class_employees_id")
+    @TableGenerator(name = "class_employees_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "class_employees", allocationSize = 50)
     private Long id;
 
     @Column(name = "group_name", nullable = false, unique = true)
     private String groupName;
 
+    // volatile: podmieniana pod blokadą (setEmployees, removeDuplicates, enableConcurrentAccess),
+    // a czytana bez niej przez iteracje i analizy na migawce listy
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
-    private List<Employee> employees;
+    private volatile List<Employee> employees;
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Rate> rates;
@@ -33,6 +53,32 @@ public class ClassEmployee extends AuditableEntity {
     @Column(name = "max_capacity", nullable = false)
     private int maxCapacity;
 
+    // Struktury pochodne listy employees - budowane leniwie, aktualizowane przy każdej zmianie
+    // przez metody grupy (dodanie, usunięcie, zmiana pola pracownika - memberChanged), null - do zbudowania:
+    // indeksy nazw: (imię, nazwisko) -> pracownik oraz nazwisko -> pracownicy w kolejności listy
+    @Transient
+    private Map<String, Employee> byFullName;
+    @Transient
+    private Map<String, List<Employee>> byLastName;
+    // statystyki pozycyjne pensji (mediana, percentyle)
+    @Transient
+    private SalaryOrderStatistics salaries;
+    // liczba pracowników w każdym stanie (indeks = ordinal, ostatni element - bez stanu)
+    @Transient
+    private int[] conditionCounts;
+    // ranking najlepiej/najgorzej zarabiających
+    @Transient
+    private SalaryLeaderboard leaderboard;
+    // stan listy, któremu odpowiadają struktury pochodne - inny oznacza zmianę z pominięciem grupy
+    // (podmiana listy, zmiana przez getEmployees()) i wszystkie są budowane od nowa (syncDerived)
+    @Transient
+    private List<Employee> derivedList;
+    @Transient
+    private int derivedSize;
+    // blokada grupy współdzielonej między wątkami (ClassEmployee.concurrent); null - grupa jednowątkowa
+    @Transient
+    private volatile ReentrantLock lock;
+
     // konstruktor
     public ClassEmployee() {
         this.employees = new ArrayList<>();
@@ -46,6 +92,54 @@ public class ClassEmployee extends AuditableEntity {
         this.maxCapacity = maxCapacity;
     }
 
+    /**
+     * Grupa bezpieczna wątkowo: lista pracowników kopiowana przy zapisie (iteracje i analizy
+     * strumieniowe bez blokad, na migawce listy), a operacje na indeksach, licznikach
+     * i statystykach pensji pod blokadą tej grupy - wątki pracujące na różnych grupach
+     * nie czekają na siebie. Dodawanie pojedynczo kopiuje listę, więc przy wczytywaniu
+     * wielu pracowników należy używać addEmployees.
+     */
+    public static ClassEmployee concurrent(String groupName, int maxCapacity) {
+        ClassEmployee group = new ClassEmployee(groupName, maxCapacity);
+        group.enableConcurrentAccess();
+        return group;
+    }
+
+    /**
+     * Przełącza grupę w tryb wielowątkowy; wywoływane zanim grupa trafi do innych wątków.
+     * Nie dla encji zarządzanych przez sesję (podmienia kolekcję employees)
+     */
+    void enableConcurrentAccess() {
+        if (lock == null) {
+            employees = new CopyOnWriteArrayList<>(getEmployees());
+            lock = new ReentrantLock();
+        }
+    }
+
+    public boolean isConcurrent() {
+        return lock != null;
+    }
+
+    private <T> T locked(Supplier<T> action) {
+        ReentrantLock current = lock;
+        if (current == null) {
+            return action.get();
+        }
+        current.lock();
+        try {
+            return action.get();
+        } finally {
+            current.unlock();
+        }
+    }
+
+    private void locked(Runnable action) {
+        locked(() -> {
+            action.run();
+            return null;
+        });
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -71,7 +165,10 @@ public class ClassEmployee extends AuditableEntity {
     }
 
     public void setEmployees(List<Employee> employees) {
-        this.employees = employees;
+        locked(() -> {
+            this.employees = lock != null && employees != null ? new CopyOnWriteArrayList<>(employees) : employees;
+            this.derivedList = null;
+        });
     }
 
     public List<Rate> getRates() {
@@ -94,68 +191,404 @@ public class ClassEmployee extends AuditableEntity {
     }
 
     // check if employee exists
+    // O(1) - indeks (imię, nazwisko) zamiast przeglądania całej listy
     public boolean checkEmployee(Employee employee) {
-        for (Employee e : employees) {
-            if (e.getFirstName().equals(employee.getFirstName()) && e.getLastName().equals(employee.getLastName())) {
-                return true;
+        return findByName(employee.getFirstName(), employee.getLastName()) != null;
+    }
+
+    /**
+     * Pracownik o danym imieniu i nazwisku albo null
+     */
+    public Employee findByName(String firstName, String lastName) {
+        return locked(() -> {
+            Employee found = nameIndex().get(fullNameKey(firstName, lastName));
+            if (found != null && found.getFirstName().equals(firstName) && found.getLastName().equals(lastName)) {
+                return found;
             }
-        }
-        return false;
+            return null;
+        });
     }
 
     // add employee
     // jesli pracownik imieniu nazwisku istnieje lub brak mejsca to komunikat
     // inaczej dodaj
     public boolean addEmployee(Employee employee) {
-        // Sprawdzenie czy pracownik o imieniu i nazwisku juz istnieje
-        if (checkEmployee(employee)) {
-            System.out.println("Pracownik o imieniu i nazwisku juz istnieje");
-            return false;
-        }
-        // Sprawdzenie czy jest miejsce w grupie
-        if (getEmployees().size() >= maxCapacity) {
-            System.out.println("Brak miejsca w grupie");
-            return false;
-        }
-        employee.setGroup(this);
-        getEmployees().add(employee);
-        return true;
+        return locked(() -> {
+            // Sprawdzenie czy pracownik o imieniu i nazwisku juz istnieje
+            if (checkEmployee(employee)) {
+                System.out.println("Pracownik o imieniu i nazwisku juz istnieje");
+                return false;
+            }
+            // Sprawdzenie czy jest miejsce w grupie
+            if (getEmployees().size() >= maxCapacity) {
+                System.out.println("Brak miejsca w grupie");
+                return false;
+            }
+            syncDerived();
+            employee.setGroup(this);
+            employees.add(employee);
+            derived(employee);
+            derivedSize = employees.size();
+            return true;
+        });
+    }
+
+    /**
+     * Dodaje wielu pracowników naraz (z tymi samymi sprawdzeniami co addEmployee); lista
+     * grupy wielowątkowej jest kopiowana raz, a nie przy każdym pracowniku. Zwraca liczbę dodanych;
+     * pominięci (duplikaty, brak miejsca) są tylko podsumowywani w logu
+     */
+    public int addEmployees(Collection<Employee> newEmployees) {
+        return locked(() -> {
+            List<Employee> accepted = new ArrayList<>();
+            Set<String> batch = new HashSet<>();
+            int free = maxCapacity - getEmployees().size();
+            int duplicates = 0;
+            boolean full = false;
+            for (Employee employee : newEmployees) {
+                if (checkEmployee(employee) || !batch.add(fullNameKey(employee.getFirstName(), employee.getLastName()))) {
+                    duplicates++;
+                } else if (accepted.size() >= free) {
+                    full = true;
+                    break;
+                } else {
+                    accepted.add(employee);
+                }
+            }
+            if (duplicates > 0 || full) {
+                logger.fine("Grupa " + groupName + ": dodano " + accepted.size() + " z " + newEmployees.size()
+                        + " (duplikaty: " + duplicates + (full ? ", brak miejsca w grupie)" : ")"));
+            }
+            syncDerived();
+            for (Employee employee : accepted) {
+                employee.setGroup(this);
+            }
+            employees.addAll(accepted);
+            for (Employee employee : accepted) {
+                derived(employee);
+            }
+            derivedSize = employees.size();
+            return accepted.size();
+        });
     }
 
     // remove employee
     public boolean removeEmployee(Employee employee) {
-        // Sprawdzenie czy pracownik o imieniu i nazwisku istnieje
-        if (!checkEmployee(employee)) {
-            System.out.println("Pracownik o imieniu i nazwisku nie istnieje");
-            return false;
-        }
-        return employees.remove(employee);
+        return locked(() -> {
+            // Sprawdzenie czy pracownik o imieniu i nazwisku istnieje
+            if (!checkEmployee(employee)) {
+                System.out.println("Pracownik o imieniu i nazwisku nie istnieje");
+                return false;
+            }
+            int position = employees.indexOf(employee);
+            if (position < 0) {
+                return false;
+            }
+            syncDerived();
+            Employee removed = employees.remove(position);
+            if (byFullName != null) {
+                unindex(removed, removed.getFirstName(), removed.getLastName());
+            }
+            if (salaries != null && removed.getSalary() != null) {
+                salaries.remove(removed.getSalary());
+            }
+            if (conditionCounts != null) {
+                conditionCounts[conditionSlot(removed.getCondition())]--;
+            }
+            if (leaderboard != null) {
+                leaderboard.remove(removed);
+            }
+            derivedSize = employees.size();
+            return true;
+        });
     }
 
     // change condition
     public void changeCondition(Employee employee, EmployeeCondition condition) {
-        if (!checkEmployee(employee)) {
-            System.out.println("Pracownik o imieniu i nazwisku nie istnieje");
-            return;
-        }
-        employee.setCondition(condition);
+        locked(() -> {
+            if (!checkEmployee(employee)) {
+                System.out.println("Pracownik o imieniu i nazwisku nie istnieje");
+                return;
+            }
+            employee.setCondition(condition);
+        });
     }
 
     // add salary
     public void addSalary(Employee employee, double amount) {
-        if (!checkEmployee(employee)) {
-            System.out.println("Pracownik o imieniu i nazwisku nie istnieje");
+        locked(() -> {
+            if (!checkEmployee(employee)) {
+                System.out.println("Pracownik o imieniu i nazwisku nie istnieje");
+                return;
+            }
+            employee.setSalary(employee.getSalary() + amount);
+        });
+    }
+
+    // wyszukiwanie po nazwisku - indeks nazwisk, pierwszy w kolejności listy
+    public Employee searchByLastName(String lastName) {
+        return locked(() -> {
+            nameIndex();
+            List<Employee> matches = byLastName.get(lastName);
+            return matches != null ? matches.get(0) : null;
+        });
+    }
+
+    /**
+     * Porzuca wszystkie struktury pochodne, jeśli lista została podmieniona albo zmieniona
+     * bezpośrednio przez getEmployees(); wywoływane przed każdym odczytem i zmianą struktur
+     */
+    private void syncDerived() {
+        List<Employee> current = getEmployees();
+        if (derivedList != current || derivedSize != current.size()) {
+            byFullName = null;
+            byLastName = null;
+            salaries = null;
+            conditionCounts = null;
+            leaderboard = null;
+            derivedList = current;
+            derivedSize = current.size();
+        }
+    }
+
+    /**
+     * Dopisuje nowego pracownika listy do zbudowanych struktur pochodnych
+     */
+    private void derived(Employee employee) {
+        if (byFullName != null) {
+            index(employee);
+        }
+        if (salaries != null) {
+            addSalaryOf(employee);
+        }
+        if (conditionCounts != null) {
+            conditionCounts[conditionSlot(employee.getCondition())]++;
+        }
+        if (leaderboard != null) {
+            leaderboard.add(employee);
+        }
+    }
+
+    /**
+     * Indeks (imię, nazwisko). Zmiany imienia/nazwiska pracowników grupy przenoszą
+     * tylko ich wpisy (memberChanged)
+     */
+    private Map<String, Employee> nameIndex() {
+        syncDerived();
+        if (byFullName == null) {
+            byFullName = new HashMap<>(Math.max(16, employees.size() * 4 / 3 + 1));
+            byLastName = new HashMap<>();
+            for (Employee employee : employees) {
+                index(employee);
+            }
+        }
+        return byFullName;
+    }
+
+    private void index(Employee employee) {
+        // przy duplikatach (np. wczytanych z bazy) indeks wskazuje pierwszego
+        byFullName.putIfAbsent(fullNameKey(employee.getFirstName(), employee.getLastName()), employee);
+        byLastName.computeIfAbsent(employee.getLastName(), key -> new ArrayList<>(1)).add(employee);
+    }
+
+    /**
+     * Czy pracownik (po tożsamości, także duplikat imienia i nazwiska) jest na liście grupy
+     * pod danym nazwiskiem
+     */
+    private boolean isIndexed(Employee employee, String lastName) {
+        nameIndex();
+        List<Employee> sameLastName = byLastName.get(lastName);
+        if (sameLastName != null) {
+            for (Employee e : sameLastName) {
+                if (e == employee) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Usuwa wpisy pracownika zapisane pod podanym imieniem i nazwiskiem (przy zmianie nazwy - starymi)
+     */
+    private void unindex(Employee employee, String firstName, String lastName) {
+        List<Employee> sameLastName = byLastName.get(lastName);
+        Employee replacement = null;
+        if (sameLastName != null) {
+            // po tożsamości - equals porównuje tylko imię i nazwisko
+            sameLastName.removeIf(e -> e == employee);
+            if (sameLastName.isEmpty()) {
+                byLastName.remove(lastName);
+            } else {
+                for (Employee e : sameLastName) {
+                    if (e.getFirstName().equals(firstName)) {
+                        replacement = e;
+                        break;
+                    }
+                }
+            }
+        }
+        String key = fullNameKey(firstName, lastName);
+        if (byFullName.get(key) == employee) {
+            if (replacement != null) {
+                byFullName.put(key, replacement);
+            } else {
+                byFullName.remove(key);
+            }
+        }
+    }
+
+    private static String fullNameKey(String firstName, String lastName) {
+        return firstName + '\u0000' + lastName;
+    }
+
+    private SalaryOrderStatistics salaryIndex() {
+        syncDerived();
+        if (salaries == null) {
+            salaries = new SalaryOrderStatistics();
+            for (Employee employee : employees) {
+                addSalaryOf(employee);
+            }
+        }
+        return salaries;
+    }
+
+    private void addSalaryOf(Employee employee) {
+        if (employee.getSalary() != null) {
+            salaries.add(employee.getSalary());
+        }
+    }
+
+    /**
+     * Wywoływane przez pracownika tej grupy przy zmianie pola (Employee.setSalary,
+     * setCondition, zmiany imienia/nazwiska i edycje z tabeli): zmiana jest wykonywana
+     * pod blokadą grupy razem z aktualizacją indeksów nazw, statystyk pensji i liczników stanów
+     */
+    void memberChanged(Employee employee, Runnable change) {
+        locked(() -> {
+            String oldFirstName = employee.getFirstName();
+            String oldLastName = employee.getLastName();
+            Double oldSalary = employee.getSalary();
+            EmployeeCondition oldCondition = employee.getCondition();
+            // przed zmianą - po zmianie nazwy indeks zna pracownika tylko pod starą
+            boolean member = isIndexed(employee, oldLastName);
+            change.run();
+            if (member && (!Objects.equals(oldFirstName, employee.getFirstName())
+                    || !Objects.equals(oldLastName, employee.getLastName()))) {
+                unindex(employee, oldFirstName, oldLastName);
+                index(employee);
+            }
+            if (!Objects.equals(oldSalary, employee.getSalary())) {
+                salaryChanged(employee, member, oldSalary, employee.getSalary());
+            }
+            if (oldCondition != employee.getCondition()) {
+                conditionChanged(member, oldCondition, employee.getCondition());
+            }
+        });
+    }
+
+    /**
+     * Pracownik spoza listy grupy (np. kopia z samym ustawionym polem group) unieważnia
+     * statystyki i ranking zamiast je psuć - zostaną przebudowane przy następnym odczycie
+     */
+    private void salaryChanged(Employee employee, boolean member, Double oldSalary, Double newSalary) {
+        if (!member) {
+            salaries = null;
+            leaderboard = null;
             return;
         }
-        employee.setSalary(employee.getSalary() + amount);
+        if (salaries != null) {
+            if (oldSalary != null) {
+                salaries.remove(oldSalary);
+            }
+            if (newSalary != null) {
+                salaries.add(newSalary);
+            }
+        }
+        if (leaderboard != null) {
+            leaderboard.update(employee);
+        }
     }
 
-    // wyszukiwanie po nazwisku przez comparator
-    public Employee searchByLastName(String lastName) {
-        return employees.stream()
-                .filter(e -> e.getLastName().equals(lastName))
-                .findFirst()
-                .orElse(null);
+    private SalaryLeaderboard leaderboard() {
+        syncDerived();
+        if (leaderboard == null) {
+            leaderboard = SalaryLeaderboard.of(employees, LEADERBOARD_SIZE);
+        }
+        return leaderboard;
+    }
+
+    private int[] conditionCounts() {
+        syncDerived();
+        if (conditionCounts == null) {
+            conditionCounts = new int[CONDITIONS.length + 1];
+            for (Employee employee : employees) {
+                conditionCounts[conditionSlot(employee.getCondition())]++;
+            }
+        }
+        return conditionCounts;
+    }
+
+    private static int conditionSlot(EmployeeCondition condition) {
+        return condition == null ? CONDITIONS.length : condition.ordinal();
+    }
+
+    private void conditionChanged(boolean member, EmployeeCondition oldCondition, EmployeeCondition newCondition) {
+        if (conditionCounts == null) {
+            return;
+        }
+        if (!member) {
+            conditionCounts = null;
+            return;
+        }
+        conditionCounts[conditionSlot(oldCondition)]--;
+        conditionCounts[conditionSlot(newCondition)]++;
+    }
+
+    /**
+     * Liczba pracowników w każdym stanie (także zerowe) - O(1) względem liczby pracowników
+     */
+    public Map<EmployeeCondition, Integer> getConditionCounts() {
+        return locked(() -> {
+            int[] counts = conditionCounts();
+            Map<EmployeeCondition, Integer> result = new EnumMap<>(EmployeeCondition.class);
+            for (EmployeeCondition condition : CONDITIONS) {
+                result.put(condition, counts[condition.ordinal()]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Liczba pracowników z ustawionym stanem
+     */
+    public int countWithCondition() {
+        return locked(() -> {
+            int[] counts = conditionCounts();
+            int total = 0;
+            for (int i = 0; i < CONDITIONS.length; i++) {
+                total += counts[i];
+            }
+            return total;
+        });
+    }
+
+    /**
+     * Liczba pracowników grupy z pensją niższą niż podana - O(log n)
+     */
+    public int salaryRank(double salary) {
+        return locked(() -> {
+            return salaryIndex().rank(salary);
+        });
+    }
+
+    /**
+     * Pensja na danym percentylu (0-100) - O(log n)
+     */
+    public double salaryPercentile(double percentile) {
+        return locked(() -> {
+            return salaryIndex().percentile(percentile);
+        });
     }
 
     // szukanie częsciowe
@@ -165,11 +598,19 @@ public class ClassEmployee extends AuditableEntity {
                 .collect(Collectors.toList());
     }
 
-    // liczenie po condition
+    // liczenie po condition - z liczników stanów, bez przeglądania listy
     public long countByCondition(EmployeeCondition condition) {
-        return employees.stream()
-                .filter(e -> e.getCondition() == condition)
-                .count();
+        return locked(() -> {
+            return conditionCounts()[conditionSlot(condition)];
+        });
+    }
+
+    /**
+     * Kolumnowa migawka pracowników grupy do analiz na dużych zbiorach
+     * (EmployeeColumns - te same analizy na tablicach prymitywów)
+     */
+    public EmployeeColumns toColumns() {
+        return EmployeeColumns.from(employees);
     }
 
     // podsumowanie
@@ -198,24 +639,26 @@ public class ClassEmployee extends AuditableEntity {
     /////////////////////////////////////////////////////////////////////////////
     // usuwanie duplikatów
     public int removeDuplicates() {
-        if (employees.isEmpty())
-            return 0;
-
-        Set<Employee> seen = new HashSet<>();
-        List<Employee> newList = new ArrayList<>();
-        int removed = 0;
-
-        for (Employee e : employees) {
-            if (seen.add(e)) {
-                newList.add(e); // pierwsze wystąpienie
-            } else {
-                removed++; // duplikat
+        return locked(() -> {
+            if (employees.isEmpty())
+                return 0;
+
+            Set<Employee> seen = new HashSet<>();
+            List<Employee> newList = new ArrayList<>();
+            int removed = 0;
+
+            for (Employee e : employees) {
+                if (seen.add(e)) {
+                    newList.add(e); // pierwsze wystąpienie
+                } else {
+                    removed++; // duplikat
+                }
             }
-        }
 
-        employees = newList;
+            employees = lock != null ? new CopyOnWriteArrayList<>(newList) : newList;
 
-        return removed;
+            return removed;
+        });
     }
 
     // grupowanie po condition
@@ -235,23 +678,11 @@ public class ClassEmployee extends AuditableEntity {
         return result;
     }
 
-    // mediana salary
+    // mediana salary - O(1) ze statystyk pozycyjnych pensji
     public double medianSalary() {
-        if (employees.isEmpty())
-            return 0;
-
-        List<Double> salaries = employees.stream()
-                .map(Employee::getSalary)
-                .sorted()
-                .collect(Collectors.toList());
-
-        int n = salaries.size();
-
-        if (n % 2 == 1) {
-            return salaries.get(n / 2);
-        } else {
-            return (salaries.get(n / 2 - 1) + salaries.get(n / 2)) / 2;
-        }
+        return locked(() -> {
+            return salaryIndex().median();
+        });
     }
 
     // zad6 youngest, oldest employee
@@ -303,20 +734,64 @@ public class ClassEmployee extends AuditableEntity {
                 .collect(Collectors.toList());
     }
     
+    // najlepiej zarabiający malejąco (przy równych pensjach w kolejności listy, bez pracowników
+    // bez pensji); do LEADERBOARD_SIZE z rankingu grupy, więcej - sortowaniem listy
     public List<Employee> getTopEarners(int count) {
-        return employees.stream()
-                .sorted((a, b) -> Double.compare(b.getSalary(), a.getSalary()))
-                .limit(count)
-                .collect(Collectors.toList());
+        return earners(count, true);
+    }
+
+    // najgorzej zarabiający rosnąco, jak getTopEarners
+    public List<Employee> getBottomEarners(int count) {
+        return earners(count, false);
+    }
+
+    private List<Employee> earners(int count, boolean top) {
+        return locked(() -> {
+            if (count <= LEADERBOARD_SIZE) {
+                List<Employee> result = top ? leaderboard().top(count) : leaderboard().bottom(count);
+                if (result == null) {
+                    // za dużo liderów usuniętych lub obniżonych od zbudowania rankingu
+                    leaderboard = null;
+                    result = top ? leaderboard().top(count) : leaderboard().bottom(count);
+                }
+                return result;
+            }
+            Comparator<Employee> bySalary = Comparator.comparingDouble(Employee::getSalary);
+            return employees.stream()
+                    .filter(e -> e.getSalary() != null)
+                    .sorted(top ? bySalary.reversed() : bySalary)
+                    .limit(count)
+                    .collect(Collectors.toList());
+        });
     }
     
+    // pracownicy od danego percentyla pensji w górę, rosnąco; próg ze statystyk pozycyjnych,
+    // sortowani są tylko wybrani. Percentyl liczony wśród pracowników z pensją - tylko oni
+    // są w statystykach (pracownicy bez pensji nie trafiają do wyniku)
     public List<Employee> filterByPercentile(double percentile) {
-        int index = (int) Math.ceil((percentile / 100.0) * employees.size()) - 1;
-    
-        return employees.stream()
-                .sorted(Comparator.comparing(Employee::getSalary))
-                .skip(index)
-                .collect(Collectors.toList());
+        return locked(() -> {
+            SalaryOrderStatistics statistics = salaryIndex();
+            int withSalary = statistics.size();
+            int index = Math.max((int) Math.ceil((percentile / 100.0) * withSalary) - 1, 0);
+            if (index >= withSalary) {
+                return new ArrayList<>();
+            }
+            double threshold = statistics.kth(index);
+            // pracownicy z pensją równą progowi pominięci w kolejności listy, jak przy stabilnym sortowaniu
+            int skipEqual = index - statistics.rank(threshold);
+            List<Employee> result = new ArrayList<>(withSalary - index);
+            for (Employee employee : employees) {
+                if (employee.getSalary() == null) {
+                    continue;
+                }
+                int cmp = Double.compare(employee.getSalary(), threshold);
+                if (cmp > 0 || (cmp == 0 && skipEqual-- <= 0)) {
+                    result.add(employee);
+                }
+            }
+            result.sort(Comparator.comparing(Employee::getSalary));
+            return result;
+        });
     }
     
     //zad10 grupowanie po wynagrodzeniu
@@ -17,5 +17,18 @@ public class ConditionAnalyzer {
 
         return (count * 100.0) / employees.size();
     }
+
+    // wersje dla grupy - z liczników stanów grupy zamiast przeglądania listy
+
+    public static boolean hasCondition(ClassEmployee group, EmployeeCondition cond) {
+        return group.countByCondition(cond) > 0;
+    }
+
+    public static double getConditionPercentage(ClassEmployee group, EmployeeCondition cond) {
+        int size = group.getEmployees().size();
+        if (size == 0) return 0.0;
+
+        return (group.countByCondition(cond) * 100.0) / size;
+    }
 }
 
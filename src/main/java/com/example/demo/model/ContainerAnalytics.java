@@ -0,0 +1,328 @@
+package com.example.demo.model;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Statystyki wszystkich grup kontenera liczone jednym przebiegiem fork-join: dla każdej
+ * grupy i łącznie liczba pracowników, suma/min/max/mediana pensji, statystyki wieku
+ * i liczba pracowników w każdym stanie.
+ *
+ * Praca dzielona jest na grupy, a duże grupy dodatkowo na zakresy po co najwyżej
+ * splitThreshold pracowników. Każdy zakres daje częściowy wynik (Aggregate), wyniki są
+ * łączone parami (merge), mediana - przez scalanie posortowanych pensji. Grupy czytane są
+ * z migawki listy (toArray), więc analiza działa także na kontenerze w trybie CONCURRENT_*.
+ */
+public class ContainerAnalytics implements AutoCloseable {
+    public static final int DEFAULT_SPLIT_THRESHOLD = 50_000;
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+
+    private final ForkJoinPool pool;
+    private final int splitThreshold;
+
+    public ContainerAnalytics() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    public ContainerAnalytics(int parallelism, int splitThreshold) {
+        if (parallelism < 1 || splitThreshold < 1) {
+            throw new IllegalArgumentException("parallelism and splitThreshold must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.splitThreshold = splitThreshold;
+    }
+
+    public Report analyze(ClassContainer container) {
+        Map<String, ClassEmployee> groups = container.groupsSnapshot();
+        int currentYear = Year.now().getValue();
+        return pool.invoke(new ContainerTask(groups, currentYear, splitThreshold));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Wynik: statystyki każdej grupy (w kolejności kontenera) i łączne
+     */
+    public static final class Report {
+        private final Map<String, Aggregate> groups;
+        private final Aggregate total;
+
+        private Report(Map<String, Aggregate> groups, Aggregate total) {
+            this.groups = Collections.unmodifiableMap(groups);
+            this.total = total;
+        }
+
+        public Map<String, Aggregate> getGroups() {
+            return groups;
+        }
+
+        public Aggregate getGroup(String name) {
+            return groups.get(name);
+        }
+
+        public Aggregate getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Częściowy (albo końcowy) wynik dla zbioru pracowników; łączony przez merge
+     */
+    public static final class Aggregate {
+        private long count;
+        private long salaryCount;
+        private double salarySum;
+        private double salaryMin = Double.POSITIVE_INFINITY;
+        private double salaryMax = Double.NEGATIVE_INFINITY;
+        private long ageCount;
+        private long ageSum;
+        private int ageMin = Integer.MAX_VALUE;
+        private int ageMax = Integer.MIN_VALUE;
+        private final long[] conditionCounts = new long[CONDITIONS.length + 1]; // ostatni - bez stanu
+        private double[] sortedSalaries = new double[0]; // potrzebne tylko do łączenia
+        private double medianSalary;
+
+        static Aggregate of(Employee[] employees, int from, int to, int currentYear) {
+            Aggregate aggregate = new Aggregate();
+            double[] salaries = new double[to - from];
+            int salaryCount = 0;
+            for (int i = from; i < to; i++) {
+                Employee employee = employees[i];
+                aggregate.count++;
+                Double salary = employee.getSalary();
+                if (salary != null) {
+                    salaries[salaryCount++] = salary;
+                    aggregate.salarySum += salary;
+                    aggregate.salaryMin = Math.min(aggregate.salaryMin, salary);
+                    aggregate.salaryMax = Math.max(aggregate.salaryMax, salary);
+                }
+                Integer birthYear = employee.getBirthYear();
+                if (birthYear != null) {
+                    int age = currentYear - birthYear;
+                    aggregate.ageCount++;
+                    aggregate.ageSum += age;
+                    aggregate.ageMin = Math.min(aggregate.ageMin, age);
+                    aggregate.ageMax = Math.max(aggregate.ageMax, age);
+                }
+                EmployeeCondition condition = employee.getCondition();
+                aggregate.conditionCounts[condition == null ? CONDITIONS.length : condition.ordinal()]++;
+            }
+            aggregate.salaryCount = salaryCount;
+            aggregate.sortedSalaries = salaryCount == salaries.length ? salaries : Arrays.copyOf(salaries, salaryCount);
+            Arrays.sort(aggregate.sortedSalaries);
+            return aggregate;
+        }
+
+        /**
+         * Nowy wynik dla sumy obu zbiorów
+         */
+        Aggregate merge(Aggregate other) {
+            Aggregate merged = new Aggregate();
+            merged.count = count + other.count;
+            merged.salaryCount = salaryCount + other.salaryCount;
+            merged.salarySum = salarySum + other.salarySum;
+            merged.salaryMin = Math.min(salaryMin, other.salaryMin);
+            merged.salaryMax = Math.max(salaryMax, other.salaryMax);
+            merged.ageCount = ageCount + other.ageCount;
+            merged.ageSum = ageSum + other.ageSum;
+            merged.ageMin = Math.min(ageMin, other.ageMin);
+            merged.ageMax = Math.max(ageMax, other.ageMax);
+            for (int i = 0; i < conditionCounts.length; i++) {
+                merged.conditionCounts[i] = conditionCounts[i] + other.conditionCounts[i];
+            }
+            merged.sortedSalaries = mergeSorted(sortedSalaries, other.sortedSalaries);
+            return merged;
+        }
+
+        private static double[] mergeSorted(double[] a, double[] b) {
+            double[] result = new double[a.length + b.length];
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < a.length && j < b.length) {
+                result[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+            }
+            System.arraycopy(a, i, result, k, a.length - i);
+            System.arraycopy(b, j, result, k + a.length - i, b.length - j);
+            return result;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSalarySum() {
+            return salarySum;
+        }
+
+        public double getAverageSalary() {
+            return salaryCount == 0 ? 0.0 : salarySum / salaryCount;
+        }
+
+        // 0 dla grupy bez pensji, jak ClassEmployee.medianSalary
+        public double getSalaryMin() {
+            return salaryCount == 0 ? 0.0 : salaryMin;
+        }
+
+        public double getSalaryMax() {
+            return salaryCount == 0 ? 0.0 : salaryMax;
+        }
+
+        public double getMedianSalary() {
+            return sortedSalaries != null ? median(sortedSalaries) : medianSalary;
+        }
+
+        private static double median(double[] sorted) {
+            int n = sorted.length;
+            if (n == 0) {
+                return 0.0;
+            }
+            return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+        }
+
+        /**
+         * Wynik końcowy: mediana zapamiętana, posortowane pensje zwolnione
+         */
+        private void finish() {
+            if (sortedSalaries != null) {
+                medianSalary = median(sortedSalaries);
+                sortedSalaries = null;
+            }
+        }
+
+        public AgeStatistics getAgeStatistics() {
+            // jak IntSummaryStatistics w ClassEmployee.getAgeStatistics
+            return new AgeStatistics(ageMin, ageMax, ageCount == 0 ? 0.0 : (double) ageSum / ageCount, (int) count);
+        }
+
+        public Map<EmployeeCondition, Long> getConditionCounts() {
+            Map<EmployeeCondition, Long> result = new EnumMap<>(EmployeeCondition.class);
+            for (EmployeeCondition condition : CONDITIONS) {
+                result.put(condition, conditionCounts[condition.ordinal()]);
+            }
+            return result;
+        }
+
+        public long countByCondition(EmployeeCondition condition) {
+            return conditionCounts[condition.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, salary sum=%.2f min=%.2f max=%.2f median=%.2f, %s, %s",
+                    count, salarySum, getSalaryMin(), getSalaryMax(), getMedianSalary(),
+                    getAgeStatistics(), getConditionCounts());
+        }
+    }
+
+    /**
+     * Wszystkie grupy: zadanie na grupę, potem łączenie w wynik całkowity
+     */
+    private static final class ContainerTask extends RecursiveTask<Report> {
+        // RecursiveTask jest Serializable, ale zadania nie są serializowane - dane grup są transient
+        private static final long serialVersionUID = 1L;
+        private final transient Map<String, ClassEmployee> groups;
+        private final int currentYear;
+        private final int splitThreshold;
+
+        private ContainerTask(Map<String, ClassEmployee> groups, int currentYear, int splitThreshold) {
+            this.groups = groups;
+            this.currentYear = currentYear;
+            this.splitThreshold = splitThreshold;
+        }
+
+        @Override
+        protected Report compute() {
+            List<String> names = new ArrayList<>(groups.keySet());
+            List<RangeTask> tasks = new ArrayList<>(names.size());
+            for (String name : names) {
+                Employee[] members = groups.get(name).getEmployees().toArray(new Employee[0]);
+                tasks.add(new RangeTask(members, 0, members.length, currentYear, splitThreshold));
+            }
+            invokeAll(tasks);
+            Map<String, Aggregate> perGroup = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                perGroup.put(names.get(i), tasks.get(i).join());
+            }
+            Aggregate total = new MergeTask(new ArrayList<>(perGroup.values()), 0, perGroup.size()).invoke();
+            perGroup.values().forEach(Aggregate::finish);
+            total.finish();
+            return new Report(perGroup, total);
+        }
+    }
+
+    /**
+     * Zakres pracowników jednej grupy, dzielony na pół powyżej splitThreshold
+     */
+    private static final class RangeTask extends RecursiveTask<Aggregate> {
+        private static final long serialVersionUID = 1L;
+        private final transient Employee[] employees;
+        private final int from;
+        private final int to;
+        private final int currentYear;
+        private final int splitThreshold;
+
+        private RangeTask(Employee[] employees, int from, int to, int currentYear, int splitThreshold) {
+            this.employees = employees;
+            this.from = from;
+            this.to = to;
+            this.currentYear = currentYear;
+            this.splitThreshold = splitThreshold;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (to - from <= splitThreshold) {
+                return Aggregate.of(employees, from, to, currentYear);
+            }
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(employees, from, middle, currentYear, splitThreshold);
+            RangeTask right = new RangeTask(employees, middle, to, currentYear, splitThreshold);
+            left.fork();
+            Aggregate rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+    }
+
+    /**
+     * Łączenie wyników grup w drzewo (równolegle scalane pensje do mediany łącznej)
+     */
+    private static final class MergeTask extends RecursiveTask<Aggregate> {
+        private static final long serialVersionUID = 1L;
+        private final transient List<Aggregate> parts;
+        private final int from;
+        private final int to;
+
+        private MergeTask(List<Aggregate> parts, int from, int to) {
+            this.parts = parts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Aggregate compute() {
+            if (to - from == 0) {
+                return new Aggregate();
+            }
+            if (to - from == 1) {
+                return parts.get(from);
+            }
+            int middle = (from + to) >>> 1;
+            MergeTask left = new MergeTask(parts, from, middle);
+            left.fork();
+            Aggregate rightResult = new MergeTask(parts, middle, to).compute();
+            return left.join().merge(rightResult);
+        }
+    }
+}
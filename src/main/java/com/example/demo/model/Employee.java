@@ -2,12 +2,22 @@ package com.example.demo.model;
 
 import jakarta.persistence.*;
 import javafx.beans.property.*;
-
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.SoftDelete;
+
+/**
+ * Pracownik. Usuwanie jest miękkie: kolumną "deleted" zarządza Hibernate (@SoftDelete),
+ * usunięte wiersze są pomijane we wszystkich zapytaniach, ładowaniu po id i kolekcjach.
+ * Przywracanie i ostateczne czyszczenie - EmployeeDAO.restore()/purgeDeleted().
+ */
 @Entity
+@SoftDelete
 @Table(name = "employees")
 public class Employee extends AuditableEntity implements Comparable<Employee> {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "employees_id")
+    @TableGenerator(name = "employees_id", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "employees", allocationSize = 50)
     private Long id;
 
     @Column(name = "first_name", nullable = false)
@@ -30,9 +40,6 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     @JoinColumn(name = "group_id", nullable = false)
     private ClassEmployee group;
 
-    @Column(name = "deleted")
-    private Boolean deleted = false;
-
     // JavaFX Properties (transient - nie zapisywane w bazie)
     @Transient
     private StringProperty firstNameProperty;
@@ -44,9 +51,11 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     private IntegerProperty birthYearProperty;
     @Transient
     private DoubleProperty salaryProperty;
+    // true, gdy setter przepisuje nową wartość do właściwości - listener nie zgłasza wtedy zmiany drugi raz
+    @Transient
+    private boolean syncingProperty;
 
     public Employee() {
-        initializeProperties();
     }
 
     public Employee(String firstName, String lastName, EmployeeCondition condition, int birthYear, double salary) {
@@ -55,50 +64,35 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
         this.condition = condition;
         this.birthYear = birthYear;
         this.salary = salary;
-        initializeProperties();
     }
 
-    private void initializeProperties() {
-        this.firstNameProperty = new SimpleStringProperty(firstName);
-        this.lastNameProperty = new SimpleStringProperty(lastName);
-        this.conditionProperty = new SimpleObjectProperty<>(condition);
-        this.birthYearProperty = new SimpleIntegerProperty(birthYear != null ? birthYear : 0);
-        this.salaryProperty = new SimpleDoubleProperty(salary != null ? salary : 0.0);
-        
-        // Synchronizacja properties z polami
-        bindProperties();
+    // Właściwości JavaFX tworzone są leniwie przy pierwszym wywołaniu xxxProperty(),
+    // więc encje tylko eksportowane/liczone/filtrowane nie płacą za obiekty i listenery
+
+    @PostLoad
+    private void syncPropertiesAfterLoad() {
+        syncProperty(this::syncCreatedProperties);
     }
 
-    private void bindProperties() {
+    private void syncCreatedProperties() {
+        // Tylko właściwości już utworzone (np. przy refresh) wymagają odświeżenia
         if (firstNameProperty != null) {
-            firstNameProperty.addListener((obs, oldVal, newVal) -> this.firstName = newVal);
+            firstNameProperty.set(firstName);
         }
         if (lastNameProperty != null) {
-            lastNameProperty.addListener((obs, oldVal, newVal) -> this.lastName = newVal);
+            lastNameProperty.set(lastName);
         }
         if (conditionProperty != null) {
-            conditionProperty.addListener((obs, oldVal, newVal) -> this.condition = newVal);
+            conditionProperty.set(condition);
         }
         if (birthYearProperty != null) {
-            birthYearProperty.addListener((obs, oldVal, newVal) -> this.birthYear = newVal.intValue());
+            birthYearProperty.set(birthYear != null ? birthYear : 0);
         }
         if (salaryProperty != null) {
-            salaryProperty.addListener((obs, oldVal, newVal) -> this.salary = newVal.doubleValue());
+            salaryProperty.set(salary != null ? salary : 0.0);
         }
     }
 
-    @PostLoad
-    private void syncPropertiesAfterLoad() {
-        if (firstNameProperty == null) {
-            initializeProperties();
-        }
-        firstNameProperty.set(firstName);
-        lastNameProperty.set(lastName);
-        conditionProperty.set(condition);
-        birthYearProperty.set(birthYear);
-        salaryProperty.set(salary);
-    }
-
     // Getters and Setters for database fields
     public Long getId() {
         return id;
@@ -113,9 +107,9 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     }
 
     public void setFirstName(String firstName) {
-        this.firstName = firstName;
+        change(() -> this.firstName = firstName);
         if (firstNameProperty != null) {
-            firstNameProperty.set(firstName);
+            syncProperty(() -> firstNameProperty.set(firstName));
         }
     }
 
@@ -124,9 +118,9 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     }
 
     public void setLastName(String lastName) {
-        this.lastName = lastName;
+        change(() -> this.lastName = lastName);
         if (lastNameProperty != null) {
-            lastNameProperty.set(lastName);
+            syncProperty(() -> lastNameProperty.set(lastName));
         }
     }
 
@@ -135,9 +129,9 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     }
 
     public void setCondition(EmployeeCondition condition) {
-        this.condition = condition;
+        change(() -> this.condition = condition);
         if (conditionProperty != null) {
-            conditionProperty.set(condition);
+            syncProperty(() -> conditionProperty.set(condition));
         }
     }
 
@@ -146,9 +140,9 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     }
 
     public void setBirthYear(Integer birthYear) {
-        this.birthYear = birthYear;
+        change(() -> this.birthYear = birthYear);
         if (birthYearProperty != null) {
-            birthYearProperty.set(birthYear);
+            syncProperty(() -> birthYearProperty.set(birthYear != null ? birthYear : 0));
         }
     }
 
@@ -157,9 +151,9 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     }
 
     public void setSalary(Double salary) {
-        this.salary = salary;
+        change(() -> this.salary = salary);
         if (salaryProperty != null) {
-            salaryProperty.set(salary);
+            syncProperty(() -> salaryProperty.set(salary != null ? salary : 0.0));
         }
     }
 
@@ -167,6 +161,31 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
         return group;
     }
 
+    /**
+     * Zmiana pola pracownika grupy przechodzi przez grupę (pod jej blokadą w trybie
+     * wielowątkowym), która aktualizuje indeksy nazw, statystyki pensji i liczniki stanów
+     */
+    private void change(Runnable update) {
+        // niezainicjalizowane proxy grupy nie ma jeszcze indeksów ani statystyk do aktualizacji
+        if (group != null && Hibernate.isInitialized(group)) {
+            group.memberChanged(this, update);
+        } else {
+            update.run();
+        }
+    }
+
+    /**
+     * Przepisanie wartości pola do właściwości JavaFX bez ponownego zgłaszania zmiany przez listener
+     */
+    private void syncProperty(Runnable sync) {
+        syncingProperty = true;
+        try {
+            sync.run();
+        } finally {
+            syncingProperty = false;
+        }
+    }
+
     public void setGroup(ClassEmployee group) {
         this.group = group;
     }
@@ -174,35 +193,60 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     // JavaFX Property getters (for compatibility with existing code)
     public StringProperty firstNameProperty() {
         if (firstNameProperty == null) {
-            initializeProperties();
+            firstNameProperty = new SimpleStringProperty(firstName);
+            firstNameProperty.addListener((obs, oldVal, newVal) -> {
+                if (!syncingProperty) {
+                    change(() -> this.firstName = newVal);
+                }
+            });
         }
         return firstNameProperty;
     }
 
     public StringProperty lastNameProperty() {
         if (lastNameProperty == null) {
-            initializeProperties();
+            lastNameProperty = new SimpleStringProperty(lastName);
+            lastNameProperty.addListener((obs, oldVal, newVal) -> {
+                if (!syncingProperty) {
+                    change(() -> this.lastName = newVal);
+                }
+            });
         }
         return lastNameProperty;
     }
 
     public ObjectProperty<EmployeeCondition> conditionProperty() {
         if (conditionProperty == null) {
-            initializeProperties();
+            conditionProperty = new SimpleObjectProperty<>(condition);
+            conditionProperty.addListener((obs, oldVal, newVal) -> {
+                if (!syncingProperty) {
+                    change(() -> this.condition = newVal);
+                }
+            });
         }
         return conditionProperty;
     }
 
     public IntegerProperty birthYearProperty() {
         if (birthYearProperty == null) {
-            initializeProperties();
+            birthYearProperty = new SimpleIntegerProperty(birthYear != null ? birthYear : 0);
+            birthYearProperty.addListener((obs, oldVal, newVal) -> {
+                if (!syncingProperty) {
+                    change(() -> this.birthYear = newVal.intValue());
+                }
+            });
         }
         return birthYearProperty;
     }
 
     public DoubleProperty salaryProperty() {
         if (salaryProperty == null) {
-            initializeProperties();
+            salaryProperty = new SimpleDoubleProperty(salary != null ? salary : 0.0);
+            salaryProperty.addListener((obs, oldVal, newVal) -> {
+                if (!syncingProperty) {
+                    change(() -> this.salary = newVal.doubleValue());
+                }
+            });
         }
         return salaryProperty;
     }
@@ -235,23 +279,5 @@ public class Employee extends AuditableEntity implements Comparable<Employee> {
     public int hashCode() {
         return java.util.Objects.hash(getFirstName(), getLastName());
     }
-
-    // Soft delete
-    public void delete() {
-        this.deleted = true;
-    }
-
-    public boolean isDeleted() {
-        return deleted;
-    }
-
-    public void setDeleted(boolean deleted) {
-        this.deleted = deleted;
-    }
-
-    // Restore dla usuniętych pracowników
-    public void restore() {
-        this.deleted = false;
-    }
 }
 
@@ -0,0 +1,396 @@
+package com.example.demo.model;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kolumnowa (tablice prymitywów) kopia pracowników do analiz w pamięci.
+ *
+ * Każdy atrybut leży w osobnej tablicy: pensja w double[], rok urodzenia w short[],
+ * stan jako ordinal w byte[], a imiona i nazwiska jako indeksy słownika w int[]
+ * (każdy napis przechowywany raz). Analizy z ClassEmployee liczone są pętlami po
+ * tablicach, bez rozpakowywania Double/Integer i skakania po obiektach.
+ *
+ * Kolumny są migawką: późniejsze zmiany encji Employee nie są w nich widoczne.
+ * Wyniki filtrowania to numery wierszy, zamieniane na encje przez toEmployees(rows).
+ */
+public class EmployeeColumns {
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+    private static final byte NO_CONDITION = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+    private double[] salary;
+    private short[] birthYear;
+    private byte[] condition;
+    private int[] firstName;
+    private int[] lastName;
+    private final Dictionary names = new Dictionary();
+
+    public EmployeeColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public EmployeeColumns(int capacity) {
+        int initial = Math.max(capacity, 1);
+        salary = new double[initial];
+        birthYear = new short[initial];
+        condition = new byte[initial];
+        firstName = new int[initial];
+        lastName = new int[initial];
+    }
+
+    public static EmployeeColumns from(Collection<Employee> employees) {
+        EmployeeColumns columns = new EmployeeColumns(employees.size());
+        for (Employee employee : employees) {
+            columns.add(employee);
+        }
+        return columns;
+    }
+
+    public int add(Employee employee) {
+        return add(employee.getFirstName(), employee.getLastName(), employee.getCondition(),
+                employee.getBirthYear(), employee.getSalary());
+    }
+
+    /**
+     * Dopisuje wiersz i zwraca jego numer
+     */
+    public int add(String first, String last, EmployeeCondition employeeCondition, int year, double pay) {
+        if (year < Short.MIN_VALUE || year > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Birth year out of range: " + year);
+        }
+        if (size == salary.length) {
+            grow();
+        }
+        int row = size++;
+        salary[row] = pay;
+        birthYear[row] = (short) year;
+        condition[row] = employeeCondition == null ? NO_CONDITION : (byte) employeeCondition.ordinal();
+        firstName[row] = names.encode(first);
+        lastName[row] = names.encode(last);
+        return row;
+    }
+
+    private void grow() {
+        int capacity = salary.length + (salary.length >> 1) + 1;
+        salary = Arrays.copyOf(salary, capacity);
+        birthYear = Arrays.copyOf(birthYear, capacity);
+        condition = Arrays.copyOf(condition, capacity);
+        firstName = Arrays.copyOf(firstName, capacity);
+        lastName = Arrays.copyOf(lastName, capacity);
+    }
+
+    /**
+     * Przycina tablice do liczby wierszy (po zakończeniu ładowania)
+     */
+    public void trimToSize() {
+        if (size < salary.length) {
+            int capacity = Math.max(size, 1);
+            salary = Arrays.copyOf(salary, capacity);
+            birthYear = Arrays.copyOf(birthYear, capacity);
+            condition = Arrays.copyOf(condition, capacity);
+            firstName = Arrays.copyOf(firstName, capacity);
+            lastName = Arrays.copyOf(lastName, capacity);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getSalary(int row) {
+        checkRow(row);
+        return salary[row];
+    }
+
+    public int getBirthYear(int row) {
+        checkRow(row);
+        return birthYear[row];
+    }
+
+    public EmployeeCondition getCondition(int row) {
+        checkRow(row);
+        return condition[row] == NO_CONDITION ? null : CONDITIONS[condition[row]];
+    }
+
+    public String getFirstName(int row) {
+        checkRow(row);
+        return names.decode(firstName[row]);
+    }
+
+    public String getLastName(int row) {
+        checkRow(row);
+        return names.decode(lastName[row]);
+    }
+
+    /**
+     * Liczba różnych napisów (imion i nazwisk) w słowniku
+     */
+    public int getDictionarySize() {
+        return names.values.size();
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+    }
+
+    // most do encji
+
+    /**
+     * Nowa (odłączona, bez grupy i id) encja z danymi wiersza
+     */
+    public Employee toEmployee(int row) {
+        checkRow(row);
+        return new Employee(names.decode(firstName[row]), names.decode(lastName[row]),
+                getCondition(row), birthYear[row], salary[row]);
+    }
+
+    public List<Employee> toEmployees() {
+        List<Employee> employees = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            employees.add(toEmployee(row));
+        }
+        return employees;
+    }
+
+    public List<Employee> toEmployees(int[] rows) {
+        List<Employee> employees = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            employees.add(toEmployee(row));
+        }
+        return employees;
+    }
+
+    // analizy - te same wyniki co odpowiednie metody ClassEmployee
+
+    public double medianSalary() {
+        if (size == 0) {
+            return 0;
+        }
+        // wybór k-tego elementu w kopii zamiast pełnego sortowania
+        double[] values = Arrays.copyOf(salary, size);
+        int middle = size / 2;
+        double upper = select(values, middle);
+        if (size % 2 == 1) {
+            return upper;
+        }
+        // po select(middle) wszystkie elementy przed middle są nie większe
+        double lower = values[0];
+        for (int i = 1; i < middle; i++) {
+            if (values[i] > lower) {
+                lower = values[i];
+            }
+        }
+        return (lower + upper) / 2;
+    }
+
+    public double getAverageAge() {
+        if (size == 0) {
+            return 0.0;
+        }
+        int current = Year.now().getValue();
+        long sum = 0;
+        for (int row = 0; row < size; row++) {
+            sum += current - birthYear[row];
+        }
+        return (double) sum / size;
+    }
+
+    public AgeStatistics getAgeStatistics() {
+        if (size == 0) {
+            // jak IntSummaryStatistics dla pustego strumienia
+            return new AgeStatistics(Integer.MAX_VALUE, Integer.MIN_VALUE, 0.0, 0);
+        }
+        int current = Year.now().getValue();
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        long sum = 0;
+        for (int row = 0; row < size; row++) {
+            int age = current - birthYear[row];
+            min = Math.min(min, age);
+            max = Math.max(max, age);
+            sum += age;
+        }
+        return new AgeStatistics(min, max, (double) sum / size, size);
+    }
+
+    public long countByCondition(EmployeeCondition employeeCondition) {
+        byte wanted = (byte) employeeCondition.ordinal();
+        long count = 0;
+        for (int row = 0; row < size; row++) {
+            if (condition[row] == wanted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Wiersze z pensją co najmniej minSalary, od najwyższej pensji
+     */
+    public int[] filterByMinSalary(double minSalary) {
+        return filterBySalaryRange(minSalary, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Wiersze z pensją w przedziale [min, max], od najwyższej pensji
+     */
+    public int[] filterBySalaryRange(double min, double max) {
+        int[] rows = new int[size];
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            double value = salary[row];
+            if (value >= min && value <= max) {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+        sortBySalary(rows, true);
+        return rows;
+    }
+
+    /**
+     * Wiersze od podanego percentyla pensji w górę, od najniższej pensji
+     */
+    public int[] filterByPercentile(double percentile) {
+        int index = Math.max((int) Math.ceil((percentile / 100.0) * size) - 1, 0);
+        int[] rows = new int[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+        }
+        sortBySalary(rows, false);
+        return index >= size ? new int[0] : Arrays.copyOfRange(rows, index, size);
+    }
+
+    /**
+     * Wiersze pogrupowane w przedziały pensji "od-do" o szerokości rangeSize
+     */
+    public Map<String, int[]> groupBySalaryRange(double rangeSize) {
+        // pierwsze przejście liczy wiersze przedziałów, drugie wpisuje je do tablic
+        long[] buckets = new long[size];
+        Map<Long, int[]> counts = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            buckets[row] = (long) Math.floor(salary[row] / rangeSize);
+            counts.computeIfAbsent(buckets[row], b -> new int[2])[0]++;
+        }
+        Map<Long, int[]> rowsByBucket = new HashMap<>();
+        counts.forEach((bucket, count) -> rowsByBucket.put(bucket, new int[count[0]]));
+        for (int row = 0; row < size; row++) {
+            rowsByBucket.get(buckets[row])[counts.get(buckets[row])[1]++] = row;
+        }
+        Map<String, int[]> result = new HashMap<>();
+        rowsByBucket.forEach((bucket, rows) -> {
+            double floor = bucket * rangeSize;
+            double ceil = floor + rangeSize;
+            result.put((int) floor + "-" + (int) ceil, rows);
+        });
+        return result;
+    }
+
+    /**
+     * Sortuje numery wierszy po pensji sortowaniem pozycyjnym (LSD, po bajcie) kluczy
+     * z bitów double zachowujących porządek. Sortowanie jest stabilne, więc równe pensje
+     * zostają w kolejności wierszy, jak przy sortowaniu listy
+     */
+    private void sortBySalary(int[] rows, boolean descending) {
+        int n = rows.length;
+        if (n < 2) {
+            return;
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            long bits = Double.doubleToLongBits(salary[rows[i]]);
+            // ujemne: odwrócenie wszystkich bitów, dodatnie: tylko bitu znaku
+            long key = bits ^ ((bits >> 63) | Long.MIN_VALUE);
+            keys[i] = descending ? ~key : key;
+        }
+        long[] keyBuffer = new long[n];
+        int[] rowBuffer = new int[n];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < Long.SIZE; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[(int) ((keys[i] >>> shift) & 0xFF) + 1]++;
+            }
+            if (counts[(int) ((keys[0] >>> shift) & 0xFF) + 1] == n) {
+                continue; // wszystkie klucze mają ten sam bajt
+            }
+            for (int b = 0; b < 256; b++) {
+                counts[b + 1] += counts[b];
+            }
+            for (int i = 0; i < n; i++) {
+                int position = counts[(int) ((keys[i] >>> shift) & 0xFF)]++;
+                keyBuffer[position] = keys[i];
+                rowBuffer[position] = rows[i];
+            }
+            long[] swapKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swapKeys;
+            System.arraycopy(rowBuffer, 0, rows, 0, n);
+        }
+    }
+
+    /**
+     * Ustawia w values[k] k-ty najmniejszy element (elementy przed k są nie większe)
+     */
+    private static double select(double[] values, int k) {
+        int from = 0;
+        int to = values.length - 1;
+        while (from < to) {
+            double pivot = values[from + (to - from) / 2];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (Double.compare(values[i], pivot) < 0) {
+                    i++;
+                }
+                while (Double.compare(values[j], pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    double tmp = values[i];
+                    values[i++] = values[j];
+                    values[j--] = tmp;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+
+    /**
+     * Słownik napisów: każdy różny napis zapisany raz, w kolumnach tylko jego numer
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.model;
+
+/**
+ * Niemutowalny wiersz pracownika do odczytu (projekcja SELECT new).
+ *
+ * Nie jest encją: Hibernate nie trzyma dla niego migawki do dirty-checkingu,
+ * a obiekt nie tworzy właściwości JavaFX. Do edycji encję ładuje się po id.
+ */
+public final class EmployeeRow {
+    private final Long id;
+    private final String firstName;
+    private final String lastName;
+    private final EmployeeCondition condition;
+    private final Integer birthYear;
+    private final Double salary;
+    private final String groupName;
+
+    public EmployeeRow(Long id, String firstName, String lastName, EmployeeCondition condition,
+                       Integer birthYear, Double salary, String groupName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.condition = condition;
+        this.birthYear = birthYear;
+        this.salary = salary;
+        this.groupName = groupName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public EmployeeCondition getCondition() {
+        return condition;
+    }
+
+    public Integer getBirthYear() {
+        return birthYear;
+    }
+
+    public Double getSalary() {
+        return salary;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    /**
+     * Tworzy odłączony obiekt Employee dla widoków, które wymagają encji
+     * (bez grupy - zapis idzie przez EmployeeDAO.updateDetails po id)
+     */
+    public Employee toEmployee() {
+        Employee employee = new Employee(firstName, lastName, condition,
+                birthYear != null ? birthYear : 0, salary != null ? salary : 0.0);
+        employee.setId(id);
+        return employee;
+    }
+
+    @Override
+    public String toString() {
+        return firstName + " " + lastName + " (" + condition + ", " + birthYear + ", " + salary + ")";
+    }
+}
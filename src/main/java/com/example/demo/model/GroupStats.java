@@ -0,0 +1,89 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Zmaterializowane statystyki grupy (tabela group_stats, jeden wiersz na grupę).
+ *
+ * Aktualizowane w tej samej transakcji co zapisy pracowników i ocen (GroupStatsDAO),
+ * więc statystyki grup czyta się bez agregowania tabel employees i rates.
+ * Pracownicy usunięci miękko nie są wliczani.
+ */
+@Entity
+@Table(name = "group_stats")
+public class GroupStats {
+    @Id
+    @Column(name = "group_id")
+    private Long groupId;
+
+    @Column(name = "employee_count", nullable = false)
+    private long employeeCount;
+
+    @Column(name = "salary_sum", nullable = false)
+    private double salarySum;
+
+    @Column(name = "salary_min")
+    private Double salaryMin; // null - grupa bez pracowników
+
+    @Column(name = "salary_max")
+    private Double salaryMax;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private long ratingSum;
+
+    public GroupStats() {
+    }
+
+    public GroupStats(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public long getEmployeeCount() {
+        return employeeCount;
+    }
+
+    public double getSalarySum() {
+        return salarySum;
+    }
+
+    public Double getSalaryMin() {
+        return salaryMin;
+    }
+
+    public Double getSalaryMax() {
+        return salaryMax;
+    }
+
+    public double getAverageSalary() {
+        return employeeCount == 0 ? 0.0 : salarySum / employeeCount;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+    }
+
+    @Override
+    public String toString() {
+        return "GroupStats{" +
+                "groupId=" + groupId +
+                ", employeeCount=" + employeeCount +
+                ", salarySum=" + salarySum +
+                ", ratingCount=" + ratingCount +
+                '}';
+    }
+}
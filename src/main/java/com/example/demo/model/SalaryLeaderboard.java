@@ -0,0 +1,223 @@
+package com.example.demo.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Ranking najlepiej i najgorzej zarabiających pracowników grupy: dwa ograniczone
+ * rankingi (malejąco i rosnąco po pensji) po 2 * size pozycji - zapas pozwala usuwać
+ * i obniżać pensje liderom bez przebudowy przy każdej zmianie.
+ *
+ * Dodanie, usunięcie i zmiana pensji - O(log size). Przy równych pensjach kolejność jest
+ * kolejnością dodania do rankingu, więc ranking zbudowany z listy grupy daje ten sam wynik
+ * co stabilne sortowanie listy. Pracownicy bez pensji nie są w rankingu.
+ */
+public class SalaryLeaderboard {
+    private final int size;
+    private final Ranking<Employee> top;
+    private final Ranking<Employee> bottom;
+    // numer pracownika w kolejności dodania (porządek przy równych pensjach); po tożsamości,
+    // bo equals porównuje tylko imię i nazwisko
+    private final Map<Employee, Long> keys = new IdentityHashMap<>();
+    private long nextKey;
+
+    public SalaryLeaderboard(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        this.size = size;
+        this.top = new Ranking<>(2 * size, true);
+        this.bottom = new Ranking<>(2 * size, false);
+    }
+
+    /**
+     * Ranking pracowników z listy, w jej kolejności
+     */
+    public static SalaryLeaderboard of(List<Employee> employees, int size) {
+        SalaryLeaderboard leaderboard = new SalaryLeaderboard(size);
+        for (Employee employee : employees) {
+            leaderboard.add(employee);
+        }
+        return leaderboard;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void add(Employee employee) {
+        if (keys.containsKey(employee)) {
+            update(employee);
+            return;
+        }
+        long key = nextKey++;
+        keys.put(employee, key);
+        if (employee.getSalary() != null) {
+            top.put(key, employee.getSalary(), employee);
+            bottom.put(key, employee.getSalary(), employee);
+        }
+    }
+
+    public void remove(Employee employee) {
+        Long key = keys.remove(employee);
+        if (key != null) {
+            top.remove(key);
+            bottom.remove(key);
+        }
+    }
+
+    /**
+     * Po zmianie pensji pracownika już dodanego
+     */
+    public void update(Employee employee) {
+        Long key = keys.get(employee);
+        if (key == null) {
+            return;
+        }
+        if (employee.getSalary() == null) {
+            top.remove(key);
+            bottom.remove(key);
+        } else {
+            top.put(key, employee.getSalary(), employee);
+            bottom.put(key, employee.getSalary(), employee);
+        }
+    }
+
+    /**
+     * count najlepiej zarabiających, malejąco; null, gdy po usunięciach w rankingu zostało
+     * mniej pozycji niż potrzeba i ranking trzeba zbudować od nowa z listy
+     */
+    public List<Employee> top(int count) {
+        return top.first(count);
+    }
+
+    /**
+     * count najgorzej zarabiających, rosnąco; null jak w top()
+     */
+    public List<Employee> bottom(int count) {
+        return bottom.first(count);
+    }
+
+    /**
+     * Ograniczony ranking wartości po pensji (malejąco albo rosnąco, przy równych - rosnąco
+     * po kluczu). Wszystkie wartości spoza rankingu są nie lepsze od ostatniej w rankingu;
+     * ranking jest "pełny", dopóki nic nie zostało z niego wypchnięte - wtedy zawiera
+     * wszystkie wartości. Używany też przez cache zapytań o najlepiej zarabiających.
+     */
+    public static final class Ranking<T> {
+        private final int capacity;
+        private final TreeSet<Entry<T>> entries;
+        private final Map<Long, Entry<T>> byKey = new HashMap<>();
+        private boolean complete = true;
+
+        public Ranking(int capacity, boolean descending) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive");
+            }
+            this.capacity = capacity;
+            Comparator<Entry<T>> bySalary = (a, b) -> Double.compare(a.salary, b.salary);
+            this.entries = new TreeSet<>((descending ? bySalary.reversed() : bySalary)
+                    .thenComparingLong(entry -> entry.key));
+        }
+
+        private static final class Entry<T> {
+            private final long key;
+            private final double salary;
+            private final T value;
+
+            private Entry(long key, double salary, T value) {
+                this.key = key;
+                this.salary = salary;
+                this.value = value;
+            }
+        }
+
+        public int size() {
+            return entries.size();
+        }
+
+        public boolean isComplete() {
+            return complete;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Dodaje wartość albo zmienia jej pensję. Wartość spoza rankingu wchodzi do niego tylko,
+         * jeśli jest lepsza od ostatniej; wartość z rankingu, która spadła poniżej ostatniej,
+         * wypada z niego (poza rankingiem pełnym)
+         */
+        public void put(long key, double salary, T value) {
+            Entry<T> previous = byKey.get(key);
+            if (previous != null) {
+                if (Double.compare(previous.salary, salary) == 0 && previous.value == value) {
+                    return;
+                }
+                entries.remove(previous);
+                byKey.remove(key);
+            }
+            Entry<T> entry = new Entry<>(key, salary, value);
+            if (!complete && (entries.isEmpty() || entries.comparator().compare(entry, entries.last()) > 0)) {
+                return;
+            }
+            entries.add(entry);
+            byKey.put(key, entry);
+            if (entries.size() > capacity) {
+                byKey.remove(entries.pollLast().key);
+                complete = false;
+            }
+        }
+
+        public void remove(long key) {
+            Entry<T> entry = byKey.remove(key);
+            if (entry != null) {
+                entries.remove(entry);
+            }
+        }
+
+        public boolean contains(long key) {
+            return byKey.containsKey(key);
+        }
+
+        /**
+         * Wczytuje ranking z wierszy uporządkowanych jak ranking (np. wynik ORDER BY z limitem
+         * capacity); complete - czy to wszystkie wartości
+         */
+        public <R> void load(List<R> rows, ToLongFunction<R> key, ToDoubleFunction<R> salary,
+                             Function<R, T> value, boolean complete) {
+            entries.clear();
+            byKey.clear();
+            this.complete = true;
+            for (R row : rows) {
+                put(key.applyAsLong(row), salary.applyAsDouble(row), value.apply(row));
+            }
+            this.complete = complete && this.complete;
+        }
+
+        /**
+         * count pierwszych wartości; null, gdy w rankingu jest ich mniej, a nie jest pełny
+         */
+        public List<T> first(int count) {
+            if (entries.size() < count && !complete) {
+                return null;
+            }
+            List<T> result = new ArrayList<>(Math.min(count, entries.size()));
+            Iterator<Entry<T>> iterator = entries.iterator();
+            while (result.size() < count && iterator.hasNext()) {
+                result.add(iterator.next().value);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.demo.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Statystyki pozycyjne pensji grupy: drzewo (treap) różnych wartości pensji z liczbą
+ * wystąpień i rozmiarem poddrzewa w każdym węźle.
+ *
+ * Dodanie, usunięcie i zmiana pensji - O(log n) oczekiwanie; mediana jest liczona
+ * po każdej zmianie, więc jej odczyt jest O(1); k-ta wartość, percentyl i ranga - O(log n).
+ */
+public class SalaryOrderStatistics {
+    private final SplittableRandom random = new SplittableRandom(0x5eed);
+    private Node root;
+    private double median;
+
+    private static final class Node {
+        private final double value;
+        private final int priority;
+        private int count;  // liczba pracowników z tą pensją
+        private int size;   // liczba pracowników w poddrzewie
+        private Node left;
+        private Node right;
+
+        private Node(double value, int priority) {
+            this.value = value;
+            this.priority = priority;
+            this.count = 1;
+            this.size = 1;
+        }
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void add(double salary) {
+        root = insert(root, salary);
+        updateMedian();
+    }
+
+    /**
+     * Usuwa jedno wystąpienie pensji; false, jeśli jej nie było
+     */
+    public boolean remove(double salary) {
+        int before = size();
+        root = delete(root, salary);
+        if (size() == before) {
+            return false;
+        }
+        updateMedian();
+        return true;
+    }
+
+    public void change(double oldSalary, double newSalary) {
+        if (Double.compare(oldSalary, newSalary) != 0) {
+            remove(oldSalary);
+            add(newSalary);
+        }
+    }
+
+    /**
+     * Mediana jak w ClassEmployee.medianSalary (średnia dwóch środkowych przy parzystej
+     * liczbie, 0 dla pustej grupy)
+     */
+    public double median() {
+        return median;
+    }
+
+    /**
+     * k-ta najmniejsza pensja (od 0)
+     */
+    public double kth(int k) {
+        if (k < 0 || k >= size()) {
+            throw new IndexOutOfBoundsException("k=" + k + ", size=" + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k < leftSize + node.count) {
+                return node.value;
+            } else {
+                k -= leftSize + node.count;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Pensja na danym percentylu (0-100): element o indeksie ceil(p/100 * n) - 1
+     * w kolejności rosnącej, jak w ClassEmployee.filterByPercentile
+     */
+    public double percentile(double percentile) {
+        if (isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil((percentile / 100.0) * size()) - 1;
+        return kth(Math.min(Math.max(index, 0), size() - 1));
+    }
+
+    /**
+     * Liczba pensji mniejszych niż podana
+     */
+    public int rank(double salary) {
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int cmp = Double.compare(salary, node.value);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + node.count;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Liczba wystąpień danej pensji
+     */
+    public int count(double salary) {
+        Node node = root;
+        while (node != null) {
+            int cmp = Double.compare(salary, node.value);
+            if (cmp == 0) {
+                return node.count;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return 0;
+    }
+
+    private void updateMedian() {
+        int n = size();
+        if (n == 0) {
+            median = 0;
+        } else if (n % 2 == 1) {
+            median = kth(n / 2);
+        } else {
+            median = (kth(n / 2 - 1) + kth(n / 2)) / 2;
+        }
+    }
+
+    private Node insert(Node node, double value) {
+        if (node == null) {
+            return new Node(value, random.nextInt());
+        }
+        int cmp = Double.compare(value, node.value);
+        if (cmp == 0) {
+            node.count++;
+        } else if (cmp < 0) {
+            node.left = insert(node.left, value);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, value);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node delete(Node node, double value) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = Double.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = delete(node.left, value);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, value);
+        } else if (node.count > 1) {
+            node.count--;
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    // łączy dwa poddrzewa, gdy wszystkie wartości left < right
+    private Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + node.count + size(node.right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.demo.model;
 
-//trzy tryby map
+//tryby map; CONCURRENT_* - kontener i grupy bezpieczne wątkowo
 public enum StorageMode {
     HASH_MAP,
     LINKED_HASH_MAP,
-    TREE_MAP
+    TREE_MAP,
+    CONCURRENT_HASH,
+    CONCURRENT_SKIP_LIST;
+
+    public boolean isConcurrent() {
+        return this == CONCURRENT_HASH || this == CONCURRENT_SKIP_LIST;
+    }
 }
 
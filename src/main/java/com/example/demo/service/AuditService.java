@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.controller.HibernateUtil;
+import com.example.demo.controller.UnitOfWork;
 import com.example.demo.model.AuditLog;
 import com.example.demo.model.OperationType;
 import org.hibernate.Session;
@@ -9,6 +10,7 @@ import org.hibernate.query.Query;
 import java.util.logging.Logger;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -16,6 +18,7 @@ import java.util.List;
  */
 public class AuditService {
     private static final Logger logger = Logger.getLogger(AuditService.class.getName());
+    private static final int BATCH_SIZE = 50;
 
     /**
      * Loguje zmianę w encji
@@ -48,6 +51,37 @@ public class AuditService {
         }
     }
 
+    /**
+     * Loguje tę samą zmianę dla wielu encji jednym wsadowym INSERT-em
+     */
+    public void logChanges(OperationType type, Collection<?> entities, String changes, String username) {
+        if (entities == null || entities.isEmpty()) {
+            return;
+        }
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            session.setJdbcBatchSize(BATCH_SIZE);
+            Transaction transaction = session.beginTransaction();
+            try {
+                int count = 0;
+                for (Object entity : entities) {
+                    session.persist(new AuditLog(type, entity.getClass().getSimpleName(),
+                            getEntityId(entity), username, changes));
+                    if (++count % BATCH_SIZE == 0) {
+                        session.flush();
+                        session.clear();
+                    }
+                }
+                transaction.commit();
+                logger.info("Audit logs created: " + type + " x" + entities.size() + " [" + changes + "]");
+            } catch (Exception e) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                logger.severe("Error logging audit changes: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Pobiera ID encji przez refleksję
      */
@@ -65,15 +99,17 @@ public class AuditService {
      * Pobiera historię zmian dla encji
      */
     public List<AuditLog> getHistoryForEntity(String entityName, Long entityId) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM AuditLog a WHERE a.entityName = :entityName AND a.entityId = :entityId " +
-                    "ORDER BY a.timestamp DESC";
-            Query<AuditLog> query = session.createQuery(hql, AuditLog.class);
-            query.setParameter("entityName", entityName);
-            query.setParameter("entityId", entityId);
+        try {
+            return UnitOfWork.readOnly("AuditService.getHistoryForEntity", session -> {
+                String hql = "FROM AuditLog a WHERE a.entityName = :entityName AND a.entityId = :entityId " +
+                        "ORDER BY a.timestamp DESC";
+                Query<AuditLog> query = session.createQuery(hql, AuditLog.class);
+                query.setParameter("entityName", entityName);
+                query.setParameter("entityId", entityId);
             
-            logger.info("Getting audit history for " + entityName + "[" + entityId + "]");
-            return query.list();
+                logger.fine("Getting audit history for " + entityName + "[" + entityId + "]");
+                return query.list();
+            });
         } catch (Exception e) {
             logger.severe("Error getting audit history: " + e.getMessage());
             return List.of();
@@ -85,41 +121,43 @@ public class AuditService {
      */
     public List<AuditLog> getHistoryFiltered(OperationType operationType, LocalDateTime fromDate, 
                                             LocalDateTime toDate, String username) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            StringBuilder hql = new StringBuilder("FROM AuditLog a WHERE 1=1");
+        try {
+            return UnitOfWork.readOnly("AuditService.getHistoryFiltered", session -> {
+                StringBuilder hql = new StringBuilder("FROM AuditLog a WHERE 1=1");
             
-            if (operationType != null) {
-                hql.append(" AND a.operationType = :operationType");
-            }
-            if (fromDate != null) {
-                hql.append(" AND a.timestamp >= :fromDate");
-            }
-            if (toDate != null) {
-                hql.append(" AND a.timestamp <= :toDate");
-            }
-            if (username != null && !username.isEmpty()) {
-                hql.append(" AND a.username = :username");
-            }
+                if (operationType != null) {
+                    hql.append(" AND a.operationType = :operationType");
+                }
+                if (fromDate != null) {
+                    hql.append(" AND a.timestamp >= :fromDate");
+                }
+                if (toDate != null) {
+                    hql.append(" AND a.timestamp <= :toDate");
+                }
+                if (username != null && !username.isEmpty()) {
+                    hql.append(" AND a.username = :username");
+                }
             
-            hql.append(" ORDER BY a.timestamp DESC");
+                hql.append(" ORDER BY a.timestamp DESC");
             
-            Query<AuditLog> query = session.createQuery(hql.toString(), AuditLog.class);
+                Query<AuditLog> query = session.createQuery(hql.toString(), AuditLog.class);
             
-            if (operationType != null) {
-                query.setParameter("operationType", operationType);
-            }
-            if (fromDate != null) {
-                query.setParameter("fromDate", fromDate);
-            }
-            if (toDate != null) {
-                query.setParameter("toDate", toDate);
-            }
-            if (username != null && !username.isEmpty()) {
-                query.setParameter("username", username);
-            }
+                if (operationType != null) {
+                    query.setParameter("operationType", operationType);
+                }
+                if (fromDate != null) {
+                    query.setParameter("fromDate", fromDate);
+                }
+                if (toDate != null) {
+                    query.setParameter("toDate", toDate);
+                }
+                if (username != null && !username.isEmpty()) {
+                    query.setParameter("username", username);
+                }
             
-            logger.info("Getting filtered audit history");
-            return query.list();
+                logger.fine("Getting filtered audit history");
+                return query.list();
+            });
         } catch (Exception e) {
             logger.severe("Error getting filtered audit history: " + e.getMessage());
             return List.of();
@@ -1,10 +1,8 @@
 package com.example.demo.service;
 
-import com.example.demo.controller.HibernateUtil;
-import com.example.demo.model.Employee;
-import org.hibernate.Session;
-import org.hibernate.ScrollableResults;
-import org.hibernate.query.Query;
+import com.example.demo.model.EmployeeRow;
+import com.example.demo.controller.QueryStreams;
+import com.example.demo.controller.UnitOfWork;
 import java.util.logging.Logger;
 
 import java.io.*;
@@ -25,60 +23,32 @@ public class CSVExportService {
      * Eksportuje wszystkich pracowników do CSV
      */
     public void exportEmployeesToCSV(String filename, Consumer<Integer> progressCallback) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession();
-             BufferedWriter writer = new BufferedWriter(
+        try (BufferedWriter writer = new BufferedWriter(
                      new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8))) {
             
             // Nagłówki CSV
             writer.write("ID,First Name,Last Name,Condition,Birth Year,Salary,Group Name\n");
             
-            // Zapytanie z scroll() dla efektywnego przetwarzania
-            String hql = "SELECT e.id, e.firstName, e.lastName, e.condition, e.birthYear, e.salary, c.groupName " +
-                    "FROM Employee e LEFT JOIN e.group c ORDER BY e.lastName";
-            Query<Object[]> query = session.createQuery(hql, Object[].class);
-            query.setReadOnly(true);
-            
-            ScrollableResults results = query.scroll();
-            
-            int totalCount = 0;
-            int processedCount = 0;
-            
-            // Zliczanie całkowitej liczby rekordów
-            if (results.last()) {
-                totalCount = results.getRowNumber() + 1;
-                results.beforeFirst();
-            }
-            
+            // Liczność z COUNT zamiast przewijania kursora na koniec (co wczytałoby cały wynik)
+            long totalCount = countEmployees();
             logger.info("Starting export of " + totalCount + " employees to " + filename);
             
-            while (results.next()) {
-                Object[] row = (Object[]) results.get();
-                
-                // Formatowanie danych
-                String line = formatEmployeeRow(row);
-                writer.write(line);
+            // Wiersze czytane strumieniowo: kursor w paczkach, sesja czyszczona co paczkę
+            long[] processedCount = {0};
+            QueryStreams.forEach("exportEmployeesToCSV", session -> session.createQuery(
+                    "SELECT e.id, e.firstName, e.lastName, e.condition, e.birthYear, e.salary, c.groupName " +
+                    "FROM Employee e LEFT JOIN e.group c ORDER BY e.lastName", Object[].class), row -> {
+                writer.write(formatEmployeeRow(row));
                 writer.newLine();
-                
-                processedCount++;
-                
-                // Batch processing - flush co BATCH_SIZE rekordów
-                if (processedCount % BATCH_SIZE == 0) {
-                    writer.flush();
-                    session.clear(); // Clear session cache
-                    
-                    if (progressCallback != null && totalCount > 0) {
-                        int progress = (int) ((processedCount * 100.0) / totalCount);
-                        progressCallback.accept(progress);
-                    }
-                }
-            }
+                reportProgress(++processedCount[0], totalCount, progressCallback);
+            });
             
             writer.flush();
             if (progressCallback != null) {
                 progressCallback.accept(100);
             }
             
-            logger.info("Export completed: " + processedCount + " employees exported to " + filename);
+            logger.info("Export completed: " + processedCount[0] + " employees exported to " + filename);
             
         } catch (IOException e) {
             logger.severe("Error writing to CSV file: " + filename + " - " + e.getMessage());
@@ -89,6 +59,20 @@ public class CSVExportService {
         }
     }
 
+    private long countEmployees() {
+        return UnitOfWork.readOnly(session ->
+                session.createQuery("SELECT COUNT(e) FROM Employee e", Long.class).uniqueResult());
+    }
+
+    /**
+     * Postęp raportowany co BATCH_SIZE wierszy
+     */
+    private void reportProgress(long processedCount, long totalCount, Consumer<Integer> progressCallback) {
+        if (progressCallback != null && totalCount > 0 && processedCount % BATCH_SIZE == 0) {
+            progressCallback.accept((int) ((processedCount * 100.0) / totalCount));
+        }
+    }
+
     /**
      * Formatuje wiersz pracownika do CSV
      */
@@ -122,28 +106,26 @@ public class CSVExportService {
      * Eksportuje statystyki grup do CSV
      */
     public void exportGroupStatisticsToCSV(String filename, Consumer<Integer> progressCallback) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession();
-             BufferedWriter writer = new BufferedWriter(
+        try (BufferedWriter writer = new BufferedWriter(
                      new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8))) {
             
             // Nagłówki CSV
             writer.write("Group Name,Employee Count,Average Salary,Rating Count,Average Rating,Max Capacity,Fill Percentage\n");
             
+            // Statystyki z modelu odczytu group_stats: jeden wiersz na grupę, bez agregacji pracowników i ocen
             String hql = "SELECT new com.example.demo.service.GroupStatisticsDTO(" +
                     "c.groupName, " +
-                    "COUNT(DISTINCT e), " +
-                    "COALESCE(AVG(e.salary), 0), " +
-                    "COUNT(DISTINCT r), " +
-                    "COALESCE(AVG(r.value), 0), " +
+                    "s.employeeCount, " +
+                    "CASE WHEN s.employeeCount > 0 THEN s.salarySum / s.employeeCount ELSE 0.0 END, " +
+                    "s.ratingCount, " +
+                    "CASE WHEN s.ratingCount > 0 THEN 1.0 * s.ratingSum / s.ratingCount ELSE 0.0 END, " +
                     "c.maxCapacity) " +
-                    "FROM ClassEmployee c " +
-                    "LEFT JOIN c.employees e " +
-                    "LEFT JOIN c.rates r " +
-                    "GROUP BY c.groupName, c.maxCapacity " +
+                    "FROM GroupStats s " +
+                    "JOIN ClassEmployee c ON c.id = s.groupId " +
                     "ORDER BY c.groupName";
             
-            Query<GroupStatisticsDTO> query = session.createQuery(hql, GroupStatisticsDTO.class);
-            List<GroupStatisticsDTO> results = query.list();
+            List<GroupStatisticsDTO> results = UnitOfWork.readOnly("exportGroupStatisticsToCSV",
+                    session -> session.createQuery(hql, GroupStatisticsDTO.class).list());
             
             int totalCount = results.size();
             int processedCount = 0;
@@ -190,7 +172,13 @@ public class CSVExportService {
      */
     public void exportFilteredEmployeesToCSV(EmployeeFilterDTO filter, String filename, Consumer<Integer> progressCallback) {
         EmployeeCriteriaService criteriaService = new EmployeeCriteriaService();
-        PagedResult<Employee> result = criteriaService.buildDynamicFilter(filter);
+        // Strony pobierane kursorem keyset - głębokie strony nie skanują wcześniejszych wierszy;
+        // paginacja zmieniana na kopii, filtr wywołującego (np. stan widoku) zostaje bez zmian
+        EmployeeFilterDTO pageFilter = filter.copy();
+        pageFilter.setKeysetPaging(true);
+        pageFilter.setAfterToken(null);
+        pageFilter.setIncludeTotalCount(true);
+        PagedResult<EmployeeRow> result = criteriaService.buildDynamicFilterRows(pageFilter);
         
         try (BufferedWriter writer = new BufferedWriter(
                 new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8))) {
@@ -203,13 +191,11 @@ public class CSVExportService {
             
             logger.info("Starting export of " + totalCount + " filtered employees to " + filename);
             
-            // Eksportujemy wszystkie strony
-            int currentPage = 1;
-            while (currentPage <= result.getTotalPages()) {
-                filter.setPage(currentPage);
-                PagedResult<Employee> pageResult = criteriaService.buildDynamicFilter(filter);
-                
-                for (Employee emp : pageResult.getData()) {
+            // Eksportujemy wszystkie strony; liczność jest już znana, kolejne strony jej nie liczą
+            pageFilter.setIncludeTotalCount(false);
+            PagedResult<EmployeeRow> pageResult = result;
+            while (true) {
+                for (EmployeeRow emp : pageResult.getData()) {
                     String line = String.format("%d,%s,%s,%s,%d,%.2f,%s\n",
                             emp.getId(),
                             escapeCSV(emp.getFirstName()),
@@ -217,7 +203,7 @@ public class CSVExportService {
                             emp.getCondition(),
                             emp.getBirthYear(),
                             emp.getSalary(),
-                            escapeCSV(emp.getGroup() != null ? emp.getGroup().getGroupName() : ""));
+                            escapeCSV(emp.getGroupName() != null ? emp.getGroupName() : ""));
                     
                     writer.write(line);
                     processedCount++;
@@ -228,7 +214,11 @@ public class CSVExportService {
                     }
                 }
                 
-                currentPage++;
+                if (!pageResult.hasNext()) {
+                    break;
+                }
+                pageFilter.setAfterToken(pageResult.getNextPageToken());
+                pageResult = criteriaService.buildDynamicFilterRows(pageFilter);
             }
             
             writer.flush();
@@ -248,8 +238,7 @@ public class CSVExportService {
      * Eksportuje pracowników z danymi z relacji (JOIN)
      */
     public void exportWithJoins(String filename, Consumer<Integer> progressCallback) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession();
-             BufferedWriter writer = new BufferedWriter(
+        try (BufferedWriter writer = new BufferedWriter(
                      new OutputStreamWriter(new FileOutputStream(filename), StandardCharsets.UTF_8))) {
             
             // Nagłówki CSV z dodatkowymi danymi z relacji
@@ -264,48 +253,25 @@ public class CSVExportService {
                     "GROUP BY e.id, e.firstName, e.lastName, e.condition, e.birthYear, e.salary, c.groupName, c.maxCapacity " +
                     "ORDER BY e.lastName";
             
-            Query<Object[]> query = session.createQuery(hql, Object[].class);
-            query.setReadOnly(true);
-            
-            ScrollableResults results = query.scroll();
-            
-            int totalCount = 0;
-            int processedCount = 0;
-            
-            if (results.last()) {
-                totalCount = results.getRowNumber() + 1;
-                results.beforeFirst();
-            }
-            
+            // jeden wiersz na pracownika, więc liczność to liczba pracowników
+            long totalCount = countEmployees();
             logger.info("Starting export with joins: " + totalCount + " employees to " + filename);
             
-            while (results.next()) {
-                Object[] row = (Object[]) results.get();
-                
+            long[] processedCount = {0};
+            QueryStreams.forEach("exportWithJoins", session -> session.createQuery(hql, Object[].class), row -> {
                 String line = String.format("%s,%s,%s,%s,%s,%.2f,%s,%s,%s,%.2f\n",
                         row[0], escapeCSV(row[1]), escapeCSV(row[2]), row[3], row[4], row[5],
                         escapeCSV(row[6]), row[7], row[8], row[9]);
-                
                 writer.write(line);
-                processedCount++;
-                
-                if (processedCount % BATCH_SIZE == 0) {
-                    writer.flush();
-                    session.clear();
-                    
-                    if (progressCallback != null && totalCount > 0) {
-                        int progress = (int) ((processedCount * 100.0) / totalCount);
-                        progressCallback.accept(progress);
-                    }
-                }
-            }
+                reportProgress(++processedCount[0], totalCount, progressCallback);
+            });
             
             writer.flush();
             if (progressCallback != null) {
                 progressCallback.accept(100);
             }
             
-            logger.info("Export with joins completed: " + processedCount + " employees exported to " + filename);
+            logger.info("Export with joins completed: " + processedCount[0] + " employees exported to " + filename);
             
         } catch (IOException e) {
             logger.severe("Error writing to CSV file: " + filename + " - " + e.getMessage());
@@ -316,4 +282,3 @@ public class CSVExportService {
         }
     }
 }
-
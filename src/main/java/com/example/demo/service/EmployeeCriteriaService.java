@@ -1,85 +1,272 @@
 package com.example.demo.service;
 
+import com.example.demo.controller.EmployeeDAO;
 import com.example.demo.controller.HibernateUtil;
+import com.example.demo.controller.NameSearchIndex;
+import com.example.demo.controller.UnitOfWork;
+import com.example.demo.model.ClassEmployee;
 import com.example.demo.model.Employee;
 import com.example.demo.model.EmployeeCondition;
-import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.EmployeeRow;
+import com.example.demo.service.FilterQueryCache.FilterShape;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.*;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
-import java.util.logging.Logger;
+import org.hibernate.stat.Statistics;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.function.Function;
+import java.util.logging.Logger;
 
 /**
  * Serwis do dynamicznego filtrowania z użyciem Criteria API
  */
 public class EmployeeCriteriaService {
     private static final Logger logger = Logger.getLogger(EmployeeCriteriaService.class.getName());
+    private static final CountCache countCache = new CountCache();
+    private static final FilterQueryCache queryCache = new FilterQueryCache();
+
+    private boolean compiledQueries = true;
+
+    /**
+     * Włącza/wyłącza zapytania skompilowane per kształt filtra; wyłączone - każde
+     * wywołanie buduje drzewa Criteria od nowa (punkt odniesienia dla benchmarku)
+     */
+    public void setCompiledQueriesEnabled(boolean compiledQueries) {
+        this.compiledQueries = compiledQueries;
+    }
+
+    /**
+     * Trafienia cache kształtów filtra oraz cache planów zapytań Hibernate
+     */
+    public static QueryCacheStats getQueryCacheStats() {
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        return new QueryCacheStats(queryCache.size(), queryCache.getHits(), queryCache.getMisses(),
+                statistics.getQueryPlanCacheHitCount(), statistics.getQueryPlanCacheMissCount());
+    }
 
     /**
-     * Buduje dynamiczne zapytanie na podstawie DTO
+     * Buduje dynamiczne zapytanie na podstawie DTO.
+     *
+     * W trybie keyset (filter.isKeysetPaging()) strona jest wyszukiwana warunkiem
+     * (klucz sortowania, id) > (ostatni wiersz poprzedniej strony) zamiast OFFSET,
+     * więc kolejne strony kosztują tyle samo niezależnie od głębokości.
+     *
+     * @throws IllegalArgumentException gdy token strony jest uszkodzony albo pochodzi z innego sortowania
      */
     public PagedResult<Employee> buildDynamicFilter(EmployeeFilterDTO filter) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        KeysetCursor cursor = decodeCursor(filter);
+        try {
+            return UnitOfWork.readOnly("buildDynamicFilter",
+                    session -> executeDynamicFilter(session, filter, cursor, false, row -> row.get(2, Employee.class)));
+        } catch (Exception e) {
+            logger.severe("Error executing dynamic filter: " + e.getMessage());
+            return new PagedResult<>(List.of(), 0, filter.getPage(), filter.getPageSize(),
+                    null, filter.isKeysetPaging());
+        }
+    }
+
+    /**
+     * To samo filtrowanie co buildDynamicFilter, ale zwraca lekkie wiersze (projekcja)
+     * zamiast encji - do eksportów i widoków tylko do odczytu
+     *
+     * @throws IllegalArgumentException gdy token strony jest uszkodzony albo pochodzi z innego sortowania
+     */
+    public PagedResult<EmployeeRow> buildDynamicFilterRows(EmployeeFilterDTO filter) {
+        KeysetCursor cursor = decodeCursor(filter);
+        try {
+            return UnitOfWork.readOnly("buildDynamicFilterRows",
+                    session -> executeDynamicFilter(session, filter, cursor, true, row -> new EmployeeRow(
+                            row.get(0, Long.class), row.get(2, String.class), row.get(3, String.class),
+                            row.get(4, EmployeeCondition.class), row.get(5, Integer.class),
+                            row.get(6, Double.class), row.get(7, String.class))));
+        } catch (Exception e) {
+            logger.severe("Error executing dynamic filter: " + e.getMessage());
+            return new PagedResult<>(List.of(), 0, filter.getPage(), filter.getPageSize(),
+                    null, filter.isKeysetPaging());
+        }
+    }
+
+    /**
+     * Dekoduje token strony przed zapytaniem, żeby błędny token nie trafił do obsługi
+     * błędów bazy i nie wyglądał jak pusta ostatnia strona
+     */
+    private static KeysetCursor decodeCursor(EmployeeFilterDTO filter) {
+        if (!filter.isKeysetPaging() || filter.getAfterToken() == null || filter.getAfterToken().isEmpty()) {
+            return null;
+        }
+        return KeysetCursor.decode(filter.getAfterToken(), normalizeSortKey(filter.getSortBy()),
+                "DESC".equalsIgnoreCase(filter.getSortDirection()));
+    }
+
+    /**
+     * Wiersz wyniku: [0] id, [1] wartość klucza sortowania, dalej encja albo kolumny projekcji
+     */
+    private <T> PagedResult<T> executeDynamicFilter(Session session, EmployeeFilterDTO filter, KeysetCursor cursor,
+                                                    boolean projection, Function<Tuple, T> mapper) {
+        String sortKey = normalizeSortKey(filter.getSortBy());
+        boolean descending = "DESC".equalsIgnoreCase(filter.getSortDirection());
+        boolean keyset = filter.isKeysetPaging();
+
+        List<Long> nameIds = lastNameCandidates(filter);
+        if (nameIds != null && nameIds.isEmpty()) {
+            // indeks nazw nie zna pasującego nazwiska - nie ma po co pytać bazy
+            return new PagedResult<>(List.of(), 0, filter.getPage(), filter.getPageSize(), null, keyset);
+        }
+
+        FilterShape shape = compiledQueries
+                ? new FilterShape(filter, nameIds != null, sortKey, descending, projection, cursor != null)
+                : null;
+        long totalCount = filter.isIncludeTotalCount() || !keyset
+                ? countMatching(session, filter, nameIds, shape)
+                : PagedResult.UNKNOWN_COUNT;
+
+        Query<Tuple> query;
+        if (shape != null) {
+            query = session.createQuery(queryCache.get(shape).getDataHql(), Tuple.class);
+            shape.bind(query, filter, nameIds, cursor);
+        } else {
+            query = session.createQuery(buildCriteriaQuery(session.getCriteriaBuilder(), filter, nameIds,
+                    sortKey, descending, projection, cursor));
+        }
+        if (keyset) {
+            // Jeden wiersz więcej mówi, czy istnieje następna strona, bez zliczania
+            query.setMaxResults(filter.getPageSize() + 1);
+        } else {
+            query.setFirstResult((filter.getPage() - 1) * filter.getPageSize());
+            query.setMaxResults(filter.getPageSize());
+        }
+
+        List<Tuple> rows = query.getResultList();
+        boolean hasMore = keyset && rows.size() > filter.getPageSize();
+        if (hasMore) {
+            rows = rows.subList(0, filter.getPageSize());
+        }
+
+        List<T> results = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            results.add(mapper.apply(row));
+        }
+
+        String nextPageToken = null;
+        if (hasMore) {
+            Tuple last = rows.get(rows.size() - 1);
+            nextPageToken = new KeysetCursor(sortKey, descending, last.get(1), last.get(0, Long.class)).encode();
+        }
+
+        logger.fine("Dynamic filter executed: " + results.size() + " results, total: " + totalCount
+                + (keyset ? " (keyset)" : ""));
+
+        return new PagedResult<>(results, totalCount, filter.getPage(), filter.getPageSize(),
+                nextPageToken, keyset);
+    }
+
+    /**
+     * Zapytanie Criteria budowane od zera przy każdym wywołaniu (ścieżka bez cache kształtów)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CriteriaQuery<Tuple> buildCriteriaQuery(CriteriaBuilder cb, EmployeeFilterDTO filter, List<Long> nameIds,
+                                                    String sortKey, boolean descending, boolean projection,
+                                                    KeysetCursor cursor) {
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Employee> root = cq.from(Employee.class);
+        Join<Employee, ClassEmployee> groupJoin;
+        if (projection) {
+            groupJoin = root.join("group", JoinType.LEFT);
+        } else {
+            // Grupa dociągana od razu, bo encje są używane po zamknięciu sesji
+            Fetch<Employee, ClassEmployee> groupFetch = root.fetch("group", JoinType.LEFT);
+            groupJoin = (Join<Employee, ClassEmployee>) groupFetch;
+        }
+        Path sortPath = getSortPath(root, groupJoin, sortKey);
+        if (projection) {
+            cq.multiselect(root.get("id"), sortPath, root.get("firstName"), root.get("lastName"),
+                    root.get("condition"), root.get("birthYear"), root.get("salary"), groupJoin.get("groupName"));
+        } else {
+            cq.multiselect(root.get("id"), sortPath, root);
+        }
+
+        List<Predicate> predicates = buildPredicates(cb, root, groupJoin, filter, nameIds);
+        if (cursor != null) {
+            Comparable lastValue = (Comparable) cursor.getLastValue();
+            Path<Long> idPath = root.get("id");
+            // (sort, id) > (lastValue, lastId) rozpisane tak, żeby MySQL mógł użyć indeksu
+            predicates.add(descending
+                    ? cb.or(cb.lessThan(sortPath, lastValue),
+                            cb.and(cb.equal(sortPath, lastValue), cb.lessThan(idPath, cursor.getLastId())))
+                    : cb.or(cb.greaterThan(sortPath, lastValue),
+                            cb.and(cb.equal(sortPath, lastValue), cb.greaterThan(idPath, cursor.getLastId()))));
+        }
+        if (!predicates.isEmpty()) {
+            cq.where(predicates.toArray(new Predicate[0]));
+        }
+
+        // Sortowanie; id jako drugi klucz daje stabilny porządek przy powtarzających się wartościach
+        if (descending) {
+            cq.orderBy(cb.desc(sortPath), cb.desc(root.get("id")));
+        } else {
+            cq.orderBy(cb.asc(sortPath), cb.asc(root.get("id")));
+        }
+        return cq;
+    }
+
+    /**
+     * Id pracowników pasujących do fragmentu nazwiska według indeksu nazw; null, gdy
+     * filtra nazwiska nie ma albo trzeba użyć LIKE (indeks zimny lub zbyt wielu kandydatów)
+     */
+    private List<Long> lastNameCandidates(EmployeeFilterDTO filter) {
+        if (filter.getLastName() == null || filter.getLastName().isEmpty()) {
+            return null;
+        }
+        // LIKE '%x%' to pełny skan tabeli; przy gotowym indeksie nazw zawężamy po id
+        List<Long> ids = NameSearchIndex.search(filter.getLastName(), NameSearchIndex.Field.LAST_NAME,
+                filter.getGroupName() != null && !filter.getGroupName().isEmpty() ? filter.getGroupName() : null);
+        return ids != null && ids.size() <= NameSearchIndex.MAX_IN_LIST ? ids : null;
+    }
+
+    /**
+     * Zlicza wyniki filtra; wynik jest zapamiętywany dla danego zestawu warunków,
+     * więc przechodzenie po stronach nie powtarza pełnego COUNT
+     */
+    private long countMatching(Session session, EmployeeFilterDTO filter, List<Long> nameIds, FilterShape shape) {
+        String key = countKey(filter);
+        long version = EmployeeDAO.getWriteVersion();
+        Long cached = countCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Query<Long> query;
+        if (shape != null) {
+            query = session.createQuery(queryCache.get(shape).getCountHql(), Long.class);
+            shape.bind(query, filter, nameIds, null);
+        } else {
             CriteriaBuilder cb = session.getCriteriaBuilder();
-            
-            // Zapytanie do zliczania całkowitej liczby wyników
             CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
             Root<Employee> countRoot = countQuery.from(Employee.class);
             Join<Employee, ClassEmployee> countGroupJoin = countRoot.join("group", JoinType.LEFT);
             countQuery.select(cb.count(countRoot));
-            List<Predicate> countPredicates = buildPredicates(cb, countRoot, countGroupJoin, filter);
+            List<Predicate> countPredicates = buildPredicates(cb, countRoot, countGroupJoin, filter, nameIds);
             if (!countPredicates.isEmpty()) {
                 countQuery.where(countPredicates.toArray(new Predicate[0]));
             }
-            
-            // Zapytanie główne
-            CriteriaQuery<Employee> cq = cb.createQuery(Employee.class);
-            Root<Employee> root = cq.from(Employee.class);
-            Join<Employee, ClassEmployee> groupJoin = root.join("group", JoinType.LEFT);
-            
-            List<Predicate> predicates = buildPredicates(cb, root, groupJoin, filter);
-            if (!predicates.isEmpty()) {
-                cq.where(predicates.toArray(new Predicate[0]));
-            }
-            
-            // Sortowanie
-            if (filter.getSortBy() != null && !filter.getSortBy().isEmpty()) {
-                Path<?> sortPath = getSortPath(root, groupJoin, filter.getSortBy());
-                if (sortPath != null) {
-                    if ("DESC".equalsIgnoreCase(filter.getSortDirection())) {
-                        cq.orderBy(cb.desc(sortPath));
-                    } else {
-                        cq.orderBy(cb.asc(sortPath));
-                    }
-                }
-            } else {
-                cq.orderBy(cb.asc(root.get("lastName")));
-            }
-            
-            // Wykonanie zapytania zliczającego
-            Long totalCount = session.createQuery(countQuery).uniqueResult();
-            
-            // Wykonanie zapytania głównego z paginacją
-            Query<Employee> query = session.createQuery(cq);
-            int offset = (filter.getPage() - 1) * filter.getPageSize();
-            query.setFirstResult(offset);
-            query.setMaxResults(filter.getPageSize());
-            
-            List<Employee> results = query.getResultList();
-            
-            logger.info("Dynamic filter executed: " + results.size() + " results, total: " + totalCount);
-            
-            return new PagedResult<>(results, totalCount != null ? totalCount : 0, 
-                    filter.getPage(), filter.getPageSize());
-        } catch (Exception e) {
-            logger.severe("Error executing dynamic filter: " + e.getMessage());
-            return new PagedResult<>(List.of(), 0, filter.getPage(), filter.getPageSize());
+            query = session.createQuery(countQuery);
         }
+        Long totalCount = query.uniqueResult();
+        long count = totalCount != null ? totalCount : 0;
+        countCache.put(key, count, version);
+        return count;
+    }
+
+    private String countKey(EmployeeFilterDTO filter) {
+        return filter.getLastName() + "|" + filter.getMinSalary() + "|" + filter.getMaxSalary() + "|"
+                + filter.getCondition() + "|" + filter.getBirthYearFrom() + "|" + filter.getBirthYearTo() + "|"
+                + filter.getGroupName();
     }
 
     /**
@@ -87,10 +274,12 @@ public class EmployeeCriteriaService {
      */
     private List<Predicate> buildPredicates(CriteriaBuilder cb, Root<Employee> root, 
                                           Join<Employee, ClassEmployee> groupJoin, 
-                                          EmployeeFilterDTO filter) {
+                                          EmployeeFilterDTO filter, List<Long> nameIds) {
         List<Predicate> predicates = new ArrayList<>();
         
-        if (filter.getLastName() != null && !filter.getLastName().isEmpty()) {
+        if (nameIds != null) {
+            predicates.add(root.get("id").in(nameIds));
+        } else if (filter.getLastName() != null && !filter.getLastName().isEmpty()) {
             predicates.add(cb.like(cb.lower(root.get("lastName")), 
                     "%" + filter.getLastName().toLowerCase() + "%"));
         }
@@ -126,7 +315,7 @@ public class EmployeeCriteriaService {
      * Zwraca ścieżkę do sortowania
      */
     private Path<?> getSortPath(Root<Employee> root, Join<Employee, ClassEmployee> groupJoin, String sortBy) {
-        return switch (sortBy.toLowerCase()) {
+        return switch (normalizeSortKey(sortBy)) {
             case "lastname" -> root.get("lastName");
             case "firstname" -> root.get("firstName");
             case "salary" -> root.get("salary");
@@ -137,25 +326,111 @@ public class EmployeeCriteriaService {
         };
     }
 
+    private static String normalizeSortKey(String sortBy) {
+        if (sortBy == null) {
+            return "lastname";
+        }
+        return switch (sortBy.toLowerCase()) {
+            case "firstname", "salary", "birthyear", "condition", "groupname" -> sortBy.toLowerCase();
+            default -> "lastname";
+        };
+    }
+
+    /**
+     * Migawka statystyk zapytań filtra dynamicznego
+     */
+    public static class QueryCacheStats {
+        private final int shapes;
+        private final long shapeHits;
+        private final long shapeMisses;
+        private final long planCacheHits;
+        private final long planCacheMisses;
+
+        public QueryCacheStats(int shapes, long shapeHits, long shapeMisses, long planCacheHits, long planCacheMisses) {
+            this.shapes = shapes;
+            this.shapeHits = shapeHits;
+            this.shapeMisses = shapeMisses;
+            this.planCacheHits = planCacheHits;
+            this.planCacheMisses = planCacheMisses;
+        }
+
+        public int getShapes() { return shapes; }
+        public long getShapeHits() { return shapeHits; }
+        public long getShapeMisses() { return shapeMisses; }
+        public long getPlanCacheHits() { return planCacheHits; }
+        public long getPlanCacheMisses() { return planCacheMisses; }
+
+        public double getShapeHitRate() {
+            long total = shapeHits + shapeMisses;
+            return total == 0 ? 0.0 : (double) shapeHits / total;
+        }
+
+        public double getPlanCacheHitRate() {
+            long total = planCacheHits + planCacheMisses;
+            return total == 0 ? 0.0 : (double) planCacheHits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("shapes=%d, shape hit rate=%.1f%% (%d/%d), plan cache hit rate=%.1f%% (%d/%d)",
+                    shapes, getShapeHitRate() * 100, shapeHits, shapeHits + shapeMisses,
+                    getPlanCacheHitRate() * 100, planCacheHits, planCacheHits + planCacheMisses);
+        }
+    }
+
+    /**
+     * Pamięć liczności filtrów: LRU z czasem życia wpisu. Wpis jest też nieaktualny,
+     * gdy od jego zapisania zatwierdzono jakąkolwiek zmianę pracowników.
+     */
+    private static class CountCache {
+        private static final int MAX_ENTRIES = 128;
+        private static final long TTL_MILLIS = 30_000;
+
+        private final Map<String, long[]> entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+        synchronized Long get(String key) {
+            long[] entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry[1] > TTL_MILLIS || entry[2] != EmployeeDAO.getWriteVersion()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry[0];
+        }
+
+        synchronized void put(String key, long count, long version) {
+            entries.put(key, new long[]{count, System.currentTimeMillis(), version});
+        }
+    }
+
     /**
      * Wyszukiwanie pracowników z JOIN FETCH dla grupy
      */
     public List<Employee> searchEmployeesWithJoin() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<Employee> cq = cb.createQuery(Employee.class);
-            Root<Employee> root = cq.from(Employee.class);
+        try {
+            return UnitOfWork.readOnly("EmployeeCriteriaService.searchEmployeesWithJoin", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Employee> cq = cb.createQuery(Employee.class);
+                Root<Employee> root = cq.from(Employee.class);
             
-            // JOIN FETCH dla grupy
-            root.fetch("group", JoinType.LEFT);
+                // JOIN FETCH dla grupy
+                root.fetch("group", JoinType.LEFT);
             
-            cq.select(root).distinct(true);
+                cq.select(root).distinct(true);
             
-            logger.info("Executing Criteria query with JOIN FETCH");
-            List<Employee> results = session.createQuery(cq).getResultList();
-            logger.info("Found " + results.size() + " employees with groups");
+                logger.fine("Executing Criteria query with JOIN FETCH");
+                List<Employee> results = session.createQuery(cq).getResultList();
+                logger.fine("Found " + results.size() + " employees with groups");
             
-            return results;
+                return results;
+            });
         } catch (Exception e) {
             logger.severe("Error searching employees with join: " + e.getMessage());
             return List.of();
@@ -166,27 +441,29 @@ public class EmployeeCriteriaService {
      * Liczba pracowników według stanu (grupowanie z COUNT)
      */
     public Map<EmployeeCondition, Long> getEmployeeCountByCondition() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
-            Root<Employee> root = cq.from(Employee.class);
+        try {
+            return UnitOfWork.readOnly("EmployeeCriteriaService.getEmployeeCountByCondition", session -> {
+                CriteriaBuilder cb = session.getCriteriaBuilder();
+                CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+                Root<Employee> root = cq.from(Employee.class);
             
-            cq.select(cb.array(root.get("condition"), cb.count(root)));
-            cq.groupBy(root.get("condition"));
-            cq.orderBy(cb.asc(root.get("condition")));
+                cq.select(cb.array(root.get("condition"), cb.count(root)));
+                cq.groupBy(root.get("condition"));
+                cq.orderBy(cb.asc(root.get("condition")));
             
-            logger.info("Executing Criteria query for employee count by condition");
-            List<Object[]> results = session.createQuery(cq).getResultList();
+                logger.fine("Executing Criteria query for employee count by condition");
+                List<Object[]> results = session.createQuery(cq).getResultList();
             
-            Map<EmployeeCondition, Long> resultMap = new HashMap<>();
-            for (Object[] row : results) {
-                EmployeeCondition condition = (EmployeeCondition) row[0];
-                Long count = (Long) row[1];
-                resultMap.put(condition, count);
-            }
+                Map<EmployeeCondition, Long> resultMap = new HashMap<>();
+                for (Object[] row : results) {
+                    EmployeeCondition condition = (EmployeeCondition) row[0];
+                    Long count = (Long) row[1];
+                    resultMap.put(condition, count);
+                }
             
-            logger.info("Found counts for " + resultMap.size() + " conditions");
-            return resultMap;
+                logger.fine("Found counts for " + resultMap.size() + " conditions");
+                return resultMap;
+            });
         } catch (Exception e) {
             logger.severe("Error getting employee count by condition: " + e.getMessage());
             return Map.of();
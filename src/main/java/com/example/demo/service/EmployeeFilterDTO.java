@@ -17,6 +17,10 @@ public class EmployeeFilterDTO {
     private String sortDirection = "ASC";
     private int page = 1;
     private int pageSize = 20;
+    // Paginacja keyset: zamiast OFFSET kolejna strona szuka po (klucz sortowania, id)
+    private boolean keysetPaging = false;
+    private String afterToken;
+    private boolean includeTotalCount = true;
 
     // Getters and Setters
     public String getLastName() {
@@ -107,6 +111,52 @@ public class EmployeeFilterDTO {
         this.pageSize = pageSize;
     }
 
+    public boolean isKeysetPaging() {
+        return keysetPaging;
+    }
+
+    public void setKeysetPaging(boolean keysetPaging) {
+        this.keysetPaging = keysetPaging;
+    }
+
+    public String getAfterToken() {
+        return afterToken;
+    }
+
+    public void setAfterToken(String afterToken) {
+        this.afterToken = afterToken;
+    }
+
+    public boolean isIncludeTotalCount() {
+        return includeTotalCount;
+    }
+
+    public void setIncludeTotalCount(boolean includeTotalCount) {
+        this.includeTotalCount = includeTotalCount;
+    }
+
+    /**
+     * Kopia filtra - do zmiany paginacji bez naruszania filtra wywołującego
+     */
+    public EmployeeFilterDTO copy() {
+        EmployeeFilterDTO copy = new EmployeeFilterDTO();
+        copy.lastName = lastName;
+        copy.minSalary = minSalary;
+        copy.maxSalary = maxSalary;
+        copy.condition = condition;
+        copy.birthYearFrom = birthYearFrom;
+        copy.birthYearTo = birthYearTo;
+        copy.groupName = groupName;
+        copy.sortBy = sortBy;
+        copy.sortDirection = sortDirection;
+        copy.page = page;
+        copy.pageSize = pageSize;
+        copy.keysetPaging = keysetPaging;
+        copy.afterToken = afterToken;
+        copy.includeTotalCount = includeTotalCount;
+        return copy;
+    }
+
     // Builder pattern
     public static class Builder {
         private final EmployeeFilterDTO dto = new EmployeeFilterDTO();
@@ -166,6 +216,21 @@ public class EmployeeFilterDTO {
             return this;
         }
 
+        public Builder keysetPaging(boolean keysetPaging) {
+            dto.setKeysetPaging(keysetPaging);
+            return this;
+        }
+
+        public Builder afterToken(String afterToken) {
+            dto.setAfterToken(afterToken);
+            return this;
+        }
+
+        public Builder includeTotalCount(boolean includeTotalCount) {
+            dto.setIncludeTotalCount(includeTotalCount);
+            return this;
+        }
+
         public EmployeeFilterDTO build() {
             return dto;
         }
@@ -1,6 +1,9 @@
 package com.example.demo.service;
 
-import com.example.demo.controller.HibernateUtil;
+import com.example.demo.controller.NameSearchIndex;
+import com.example.demo.controller.QueryStreams;
+import com.example.demo.controller.TopEarnersCache;
+import com.example.demo.controller.UnitOfWork;
 import com.example.demo.model.Employee;
 import com.example.demo.model.EmployeeCondition;
 import org.hibernate.Session;
@@ -10,28 +13,49 @@ import java.util.logging.Logger;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Serwis do wykonywania zaawansowanych zapytań HQL
  */
 public class EmployeeQueryService {
     private static final Logger logger = Logger.getLogger(EmployeeQueryService.class.getName());
+    private static final String SALARY_RANGE_HQL =
+            "FROM Employee e WHERE e.salary BETWEEN :minSalary AND :maxSalary ORDER BY e.salary DESC";
+    private static final String CONDITION_HQL = "FROM Employee e WHERE e.condition = :condition ORDER BY e.lastName";
+    private static final String BIRTH_YEAR_HQL =
+            "FROM Employee e WHERE e.birthYear BETWEEN :yearFrom AND :yearTo ORDER BY e.birthYear";
 
     /**
-     * Wyszukiwanie pracowników po wzorcu nazwiska (LIKE)
+     * Wyszukiwanie pracowników po fragmencie nazwiska: kandydaci z indeksu nazw,
+     * a gdy indeks jest zimny lub fragment zbyt ogólny - LIKE w bazie
      */
     public List<Employee> findEmployeesByLastNamePattern(String pattern) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Employee e WHERE e.lastName LIKE :pattern ORDER BY e.lastName";
-            Query<Employee> query = session.createQuery(hql, Employee.class);
-            query.setParameter("pattern", "%" + pattern + "%");
+        List<Long> ids = NameSearchIndex.search(pattern, NameSearchIndex.Field.LAST_NAME, null);
+        if (ids != null && ids.isEmpty()) {
+            return List.of();
+        }
+        boolean indexed = ids != null && ids.size() <= NameSearchIndex.MAX_IN_LIST;
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.findEmployeesByLastNamePattern", session -> {
+                String hql = indexed
+                        ? "FROM Employee e WHERE e.id IN :ids ORDER BY e.lastName"
+                        : "FROM Employee e WHERE e.lastName LIKE :pattern ORDER BY e.lastName";
+                Query<Employee> query = session.createQuery(hql, Employee.class);
+                if (indexed) {
+                    query.setParameter("ids", ids);
+                } else {
+                    query.setParameter("pattern", "%" + pattern + "%");
+                }
             
-            logger.info("Executing HQL: " + hql + " with pattern: " + pattern);
-            List<Employee> result = query.list();
-            logger.info("Found " + result.size() + " employees matching pattern");
+                logger.fine("Executing HQL: " + hql + " with pattern: " + pattern);
+                List<Employee> result = query.list();
+                logger.fine("Found " + result.size() + " employees matching pattern");
             
-            return result;
+                return result;
+            });
         } catch (Exception e) {
             logger.severe("Error finding employees by last name pattern: " + e.getMessage());
             return List.of();
@@ -42,17 +66,16 @@ public class EmployeeQueryService {
      * Wyszukiwanie pracowników w zakresie wynagrodzeń
      */
     public List<Employee> findEmployeesBySalaryRange(double min, double max) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Employee e WHERE e.salary BETWEEN :minSalary AND :maxSalary ORDER BY e.salary DESC";
-            Query<Employee> query = session.createQuery(hql, Employee.class);
-            query.setParameter("minSalary", min);
-            query.setParameter("maxSalary", max);
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.findEmployeesBySalaryRange", session -> {
+                Query<Employee> query = salaryRangeQuery(session, min, max);
             
-            logger.info("Executing HQL: " + hql + " with range: " + min + " - " + max);
-            List<Employee> result = query.list();
-            logger.info("Found " + result.size() + " employees in salary range");
+                logger.fine("Executing HQL: " + SALARY_RANGE_HQL + " with range: " + min + " - " + max);
+                List<Employee> result = query.list();
+                logger.fine("Found " + result.size() + " employees in salary range");
             
-            return result;
+                return result;
+            });
         } catch (Exception e) {
             logger.severe("Error finding employees by salary range: " + e.getMessage());
             return List.of();
@@ -63,37 +86,86 @@ public class EmployeeQueryService {
      * Filtrowanie pracowników po stanie
      */
     public List<Employee> findEmployeesWithCondition(EmployeeCondition condition) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Employee e WHERE e.condition = :condition ORDER BY e.lastName";
-            Query<Employee> query = session.createQuery(hql, Employee.class);
-            query.setParameter("condition", condition);
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.findEmployeesWithCondition", session -> {
+                Query<Employee> query = conditionQuery(session, condition);
             
-            logger.info("Executing HQL: " + hql + " with condition: " + condition);
-            List<Employee> result = query.list();
-            logger.info("Found " + result.size() + " employees with condition " + condition);
+                logger.fine("Executing HQL: " + CONDITION_HQL + " with condition: " + condition);
+                List<Employee> result = query.list();
+                logger.fine("Found " + result.size() + " employees with condition " + condition);
             
-            return result;
+                return result;
+            });
         } catch (Exception e) {
             logger.severe("Error finding employees by condition: " + e.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * Strumieniowe warianty wyszukiwań: wyniki czytane kursorem w paczkach, w stałej pamięci.
+     * Strumień trzyma otwartą sesję, więc trzeba go zamknąć (try-with-resources).
+     */
+    public Stream<Employee> streamEmployeesBySalaryRange(double min, double max) {
+        return QueryStreams.stream(session -> salaryRangeQuery(session, min, max));
+    }
+
+    public Stream<Employee> streamEmployeesWithCondition(EmployeeCondition condition) {
+        return QueryStreams.stream(session -> conditionQuery(session, condition));
+    }
+
+    public Stream<Employee> streamEmployeesHiredBetween(int yearFrom, int yearTo) {
+        return QueryStreams.stream(session -> birthYearQuery(session, yearFrom, yearTo));
+    }
+
+    /**
+     * Przekazuje wszystkich pracowników (z grupą) do handlera bez budowania listy;
+     * zwraca liczbę przetworzonych
+     */
+    public <E extends Exception> long forEachEmployee(int fetchSize,
+                                                      QueryStreams.RowHandler<? super Employee, E> handler) throws E {
+        return QueryStreams.forEach("EmployeeQueryService.forEachEmployee",
+                session -> session.createQuery("FROM Employee e LEFT JOIN FETCH e.group ORDER BY e.id", Employee.class),
+                fetchSize, handler);
+    }
+
+    private static Query<Employee> salaryRangeQuery(Session session, double min, double max) {
+        Query<Employee> query = session.createQuery(SALARY_RANGE_HQL, Employee.class);
+        query.setParameter("minSalary", min);
+        query.setParameter("maxSalary", max);
+        return query;
+    }
+
+    private static Query<Employee> conditionQuery(Session session, EmployeeCondition condition) {
+        Query<Employee> query = session.createQuery(CONDITION_HQL, Employee.class);
+        query.setParameter("condition", condition);
+        return query;
+    }
+
+    private static Query<Employee> birthYearQuery(Session session, int yearFrom, int yearTo) {
+        Query<Employee> query = session.createQuery(BIRTH_YEAR_HQL, Employee.class);
+        query.setParameter("yearFrom", yearFrom);
+        query.setParameter("yearTo", yearTo);
+        return query;
+    }
+
     /**
      * Zwraca statystyki pracowników (liczba, średnia pensja, min, max)
      */
     public Optional<EmployeeStatistics> getEmployeeStatistics() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT new com.example.demo.service.EmployeeStatistics(" +
-                    "COUNT(e), AVG(e.salary), MIN(e.salary), MAX(e.salary)) " +
-                    "FROM Employee e";
-            Query<EmployeeStatistics> query = session.createQuery(hql, EmployeeStatistics.class);
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.getEmployeeStatistics", session -> {
+                String hql = "SELECT new com.example.demo.service.EmployeeStatistics(" +
+                        "COUNT(e), AVG(e.salary), MIN(e.salary), MAX(e.salary)) " +
+                        "FROM Employee e";
+                Query<EmployeeStatistics> query = session.createQuery(hql, EmployeeStatistics.class);
             
-            logger.info("Executing HQL: " + hql);
-            EmployeeStatistics result = query.uniqueResult();
-            logger.info("Statistics: " + result);
+                logger.fine("Executing HQL: " + hql);
+                EmployeeStatistics result = query.uniqueResult();
+                logger.fine("Statistics: " + result);
             
-            return Optional.ofNullable(result);
+                return Optional.ofNullable(result);
+            });
         } catch (Exception e) {
             logger.severe("Error getting employee statistics: " + e.getMessage());
             return Optional.empty();
@@ -101,19 +173,31 @@ public class EmployeeQueryService {
     }
 
     /**
-     * N najlepiej zarabiających pracowników
+     * N najlepiej zarabiających pracowników: kolejność z rankingu w pamięci (TopEarnersCache),
+     * ładowani są tylko wybrani po id; powyżej TopEarnersCache.CAPACITY - ORDER BY w bazie
      */
     public List<Employee> findTopEarners(int limit) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Employee e ORDER BY e.salary DESC";
-            Query<Employee> query = session.createQuery(hql, Employee.class);
-            query.setMaxResults(limit);
+        try {
+            List<Long> ids = TopEarnersCache.topIds(limit);
+            return UnitOfWork.readOnly("EmployeeQueryService.findTopEarners", session -> {
+                if (ids != null) {
+                    // multiLoad zachowuje kolejność id; usunięci w międzyczasie są pomijani
+                    return session.byMultipleIds(Employee.class)
+                            .multiLoad(ids)
+                            .stream()
+                            .filter(Objects::nonNull)
+                            .toList();
+                }
+                String hql = "FROM Employee e WHERE e.salary IS NOT NULL ORDER BY e.salary DESC, e.id";
+                Query<Employee> query = session.createQuery(hql, Employee.class);
+                query.setMaxResults(limit);
             
-            logger.info("Executing HQL: " + hql + " with limit: " + limit);
-            List<Employee> result = query.list();
-            logger.info("Found " + result.size() + " top earners");
+                logger.fine("Executing HQL: " + hql + " with limit: " + limit);
+                List<Employee> result = query.list();
+                logger.fine("Found " + result.size() + " top earners");
             
-            return result;
+                return result;
+            });
         } catch (Exception e) {
             logger.severe("Error finding top earners: " + e.getMessage());
             return List.of();
@@ -124,17 +208,16 @@ public class EmployeeQueryService {
      * Pracownicy w zakresie lat urodzenia
      */
     public List<Employee> findEmployeesHiredBetween(int yearFrom, int yearTo) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "FROM Employee e WHERE e.birthYear BETWEEN :yearFrom AND :yearTo ORDER BY e.birthYear";
-            Query<Employee> query = session.createQuery(hql, Employee.class);
-            query.setParameter("yearFrom", yearFrom);
-            query.setParameter("yearTo", yearTo);
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.findEmployeesHiredBetween", session -> {
+                Query<Employee> query = birthYearQuery(session, yearFrom, yearTo);
             
-            logger.info("Executing HQL: " + hql + " with years: " + yearFrom + " - " + yearTo);
-            List<Employee> result = query.list();
-            logger.info("Found " + result.size() + " employees in birth year range");
+                logger.fine("Executing HQL: " + BIRTH_YEAR_HQL + " with years: " + yearFrom + " - " + yearTo);
+                List<Employee> result = query.list();
+                logger.fine("Found " + result.size() + " employees in birth year range");
             
-            return result;
+                return result;
+            });
         } catch (Exception e) {
             logger.severe("Error finding employees by birth year range: " + e.getMessage());
             return List.of();
@@ -142,28 +225,29 @@ public class EmployeeQueryService {
     }
 
     /**
-     * Liczba pracowników w każdej grupie (GROUP BY)
+     * Liczba pracowników w każdej grupie (z modelu odczytu group_stats)
      */
     public Map<String, Long> countEmployeesByGroup() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT c.groupName, COUNT(e) " +
-                    "FROM ClassEmployee c LEFT JOIN c.employees e " +
-                    "GROUP BY c.groupName " +
-                    "ORDER BY c.groupName";
-            Query<Object[]> query = session.createQuery(hql, Object[].class);
-            
-            logger.info("Executing HQL: " + hql);
-            List<Object[]> results = query.list();
-            
-            Map<String, Long> resultMap = new HashMap<>();
-            for (Object[] row : results) {
-                String groupName = (String) row[0];
-                Long count = (Long) row[1];
-                resultMap.put(groupName, count);
-            }
-            
-            logger.info("Found " + resultMap.size() + " groups with employee counts");
-            return resultMap;
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.countEmployeesByGroup", session -> {
+                String hql = "SELECT c.groupName, s.employeeCount " +
+                        "FROM GroupStats s JOIN ClassEmployee c ON c.id = s.groupId " +
+                        "ORDER BY c.groupName";
+                Query<Object[]> query = session.createQuery(hql, Object[].class);
+            
+                logger.fine("Executing HQL: " + hql);
+                List<Object[]> results = query.list();
+            
+                Map<String, Long> resultMap = new HashMap<>();
+                for (Object[] row : results) {
+                    String groupName = (String) row[0];
+                    Long count = (Long) row[1];
+                    resultMap.put(groupName, count);
+                }
+            
+                logger.fine("Found " + resultMap.size() + " groups with employee counts");
+                return resultMap;
+            });
         } catch (Exception e) {
             logger.severe("Error counting employees by group: " + e.getMessage());
             return Map.of();
@@ -174,21 +258,21 @@ public class EmployeeQueryService {
      * Grupy z minimum liczbą pracowników
      */
     public List<String> findGroupsWithMinimumEmployees(int minCount) {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            String hql = "SELECT c.groupName " +
-                    "FROM ClassEmployee c " +
-                    "LEFT JOIN c.employees e " +
-                    "GROUP BY c.groupName " +
-                    "HAVING COUNT(e) >= :minCount " +
-                    "ORDER BY c.groupName";
-            Query<String> query = session.createQuery(hql, String.class);
-            query.setParameter("minCount", (long) minCount);
-            
-            logger.info("Executing HQL: " + hql + " with minCount: " + minCount);
-            List<String> result = query.list();
-            logger.info("Found " + result.size() + " groups with at least " + minCount + " employees");
-            
-            return result;
+        try {
+            return UnitOfWork.readOnly("EmployeeQueryService.findGroupsWithMinimumEmployees", session -> {
+                String hql = "SELECT c.groupName " +
+                        "FROM GroupStats s JOIN ClassEmployee c ON c.id = s.groupId " +
+                        "WHERE s.employeeCount >= :minCount " +
+                        "ORDER BY c.groupName";
+                Query<String> query = session.createQuery(hql, String.class);
+                query.setParameter("minCount", (long) minCount);
+            
+                logger.fine("Executing HQL: " + hql + " with minCount: " + minCount);
+                List<String> result = query.list();
+                logger.fine("Found " + result.size() + " groups with at least " + minCount + " employees");
+            
+                return result;
+            });
         } catch (Exception e) {
             logger.severe("Error finding groups with minimum employees: " + e.getMessage());
             return List.of();
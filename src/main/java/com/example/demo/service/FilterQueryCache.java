@@ -0,0 +1,228 @@
+package com.example.demo.service;
+
+import org.hibernate.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Skompilowane zapytania filtra dynamicznego, po jednym na kształt filtra.
+ *
+ * Kształt to zestaw ustawionych pól EmployeeFilterDTO, sposób filtrowania nazwiska,
+ * kolumna i kierunek sortowania, rodzaj wyniku (encje/projekcja) i obecność kursora.
+ * Dla kształtu raz budowany jest sparametryzowany HQL; ten sam tekst zapytania trafia
+ * w cache planów Hibernate, więc kolejne wywołania tylko wiążą wartości parametrów.
+ */
+final class FilterQueryCache {
+    private final Map<String, CompiledFilter> compiled = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Zwraca zapytania dla kształtu, budując je przy pierwszym użyciu. Chybienie liczy tylko
+     * wątek, który faktycznie zbudował zapytania - przy równoczesnym pierwszym użyciu
+     * pozostałe czekają na jego wynik i liczą trafienie
+     */
+    CompiledFilter get(FilterShape shape) {
+        CompiledFilter result = compiled.get(shape.key());
+        if (result != null) {
+            hits.increment();
+            return result;
+        }
+        boolean[] built = new boolean[1];
+        result = compiled.computeIfAbsent(shape.key(), key -> {
+            built[0] = true;
+            return compile(shape);
+        });
+        if (built[0]) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    int size() {
+        return compiled.size();
+    }
+
+    private static CompiledFilter compile(FilterShape shape) {
+        String from = shape.projection
+                ? " FROM Employee e LEFT JOIN e.group g"
+                // grupa dociągana od razu, bo encje są używane po zamknięciu sesji
+                : " FROM Employee e LEFT JOIN FETCH e.group g";
+        String sort = sortExpression(shape.sortKey);
+        String select = shape.projection
+                ? "SELECT e.id, " + sort + ", e.firstName, e.lastName, e.condition, e.birthYear, e.salary, g.groupName"
+                : "SELECT e.id, " + sort + ", e";
+
+        List<String> conditions = filterConditions(shape);
+        String countHql = "SELECT COUNT(e) FROM Employee e LEFT JOIN e.group g" + where(conditions);
+
+        if (shape.afterCursor) {
+            // (sort, id) > (lastValue, lastId) rozpisane tak, żeby MySQL mógł użyć indeksu
+            String op = shape.descending ? "<" : ">";
+            conditions.add("(" + sort + " " + op + " :lastValue OR (" + sort + " = :lastValue AND e.id "
+                    + op + " :lastId))");
+        }
+        // id jako drugi klucz daje stabilny porządek przy powtarzających się wartościach
+        String direction = shape.descending ? " DESC" : " ASC";
+        String dataHql = select + from + where(conditions)
+                + " ORDER BY " + sort + direction + ", e.id" + direction;
+        return new CompiledFilter(dataHql, countHql);
+    }
+
+    private static List<String> filterConditions(FilterShape shape) {
+        List<String> conditions = new ArrayList<>();
+        if (shape.lastNameIds) {
+            conditions.add("e.id IN :nameIds");
+        } else if (shape.lastNameLike) {
+            conditions.add("lower(e.lastName) LIKE :lastName");
+        }
+        if (shape.minSalary) {
+            conditions.add("e.salary >= :minSalary");
+        }
+        if (shape.maxSalary) {
+            conditions.add("e.salary <= :maxSalary");
+        }
+        if (shape.condition) {
+            conditions.add("e.condition = :condition");
+        }
+        if (shape.birthYearFrom) {
+            conditions.add("e.birthYear >= :birthYearFrom");
+        }
+        if (shape.birthYearTo) {
+            conditions.add("e.birthYear <= :birthYearTo");
+        }
+        if (shape.groupName) {
+            conditions.add("g.groupName = :groupName");
+        }
+        return conditions;
+    }
+
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String sortExpression(String sortKey) {
+        return switch (sortKey) {
+            case "firstname" -> "e.firstName";
+            case "salary" -> "e.salary";
+            case "birthyear" -> "e.birthYear";
+            case "condition" -> "e.condition";
+            case "groupname" -> "g.groupName";
+            default -> "e.lastName";
+        };
+    }
+
+    /**
+     * Kształt filtra: które warunki występują, bez ich wartości
+     */
+    static final class FilterShape {
+        private final boolean lastNameIds;
+        private final boolean lastNameLike;
+        private final boolean minSalary;
+        private final boolean maxSalary;
+        private final boolean condition;
+        private final boolean birthYearFrom;
+        private final boolean birthYearTo;
+        private final boolean groupName;
+        private final String sortKey;
+        private final boolean descending;
+        private final boolean projection;
+        private final boolean afterCursor;
+        private final String key;
+
+        FilterShape(EmployeeFilterDTO filter, boolean lastNameIds, String sortKey, boolean descending,
+                    boolean projection, boolean afterCursor) {
+            this.lastNameIds = lastNameIds;
+            this.lastNameLike = !lastNameIds && filter.getLastName() != null && !filter.getLastName().isEmpty();
+            this.minSalary = filter.getMinSalary() != null;
+            this.maxSalary = filter.getMaxSalary() != null;
+            this.condition = filter.getCondition() != null;
+            this.birthYearFrom = filter.getBirthYearFrom() != null;
+            this.birthYearTo = filter.getBirthYearTo() != null;
+            this.groupName = filter.getGroupName() != null && !filter.getGroupName().isEmpty();
+            this.sortKey = sortKey;
+            this.descending = descending;
+            this.projection = projection;
+            this.afterCursor = afterCursor;
+            StringBuilder bits = new StringBuilder(16);
+            for (boolean bit : new boolean[]{lastNameIds, lastNameLike, minSalary, maxSalary, condition,
+                    birthYearFrom, birthYearTo, groupName, descending, projection, afterCursor}) {
+                bits.append(bit ? '1' : '0');
+            }
+            this.key = bits.append('|').append(sortKey).toString();
+        }
+
+        String key() {
+            return key;
+        }
+
+        /**
+         * Wiąże wartości filtra z parametrami zapytania tego kształtu; kursor tylko
+         * dla zapytania o dane (zapytanie zliczające go nie ma)
+         */
+        void bind(Query<?> query, EmployeeFilterDTO filter, List<Long> nameIds, KeysetCursor cursor) {
+            if (lastNameIds) {
+                query.setParameter("nameIds", nameIds);
+            } else if (lastNameLike) {
+                query.setParameter("lastName", "%" + filter.getLastName().toLowerCase() + "%");
+            }
+            if (minSalary) {
+                query.setParameter("minSalary", filter.getMinSalary());
+            }
+            if (maxSalary) {
+                query.setParameter("maxSalary", filter.getMaxSalary());
+            }
+            if (condition) {
+                query.setParameter("condition", filter.getCondition());
+            }
+            if (birthYearFrom) {
+                query.setParameter("birthYearFrom", filter.getBirthYearFrom());
+            }
+            if (birthYearTo) {
+                query.setParameter("birthYearTo", filter.getBirthYearTo());
+            }
+            if (groupName) {
+                query.setParameter("groupName", filter.getGroupName());
+            }
+            if (cursor != null) {
+                query.setParameter("lastValue", cursor.getLastValue());
+                query.setParameter("lastId", cursor.getLastId());
+            }
+        }
+    }
+
+    /**
+     * Tekst zapytania o dane i zapytania zliczającego dla jednego kształtu
+     */
+    static final class CompiledFilter {
+        private final String dataHql;
+        private final String countHql;
+
+        CompiledFilter(String dataHql, String countHql) {
+            this.dataHql = dataHql;
+            this.countHql = countHql;
+        }
+
+        String getDataHql() {
+            return dataHql;
+        }
+
+        String getCountHql() {
+            return countHql;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EmployeeCondition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Kursor paginacji keyset: wartość klucza sortowania i id ostatniego wiersza strony.
+ *
+ * Token jest nieprzezroczysty dla klienta (Base64) i zawiera też pole i kierunek
+ * sortowania, żeby nie dało się go użyć z innym porządkiem niż ten, z którego powstał.
+ */
+final class KeysetCursor {
+    private static final String SEPARATOR = "\u001F";
+
+    private final String sortBy;
+    private final boolean descending;
+    private final Object lastValue;
+    private final long lastId;
+
+    KeysetCursor(String sortBy, boolean descending, Object lastValue, long lastId) {
+        this.sortBy = sortBy;
+        this.descending = descending;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    String getSortBy() { return sortBy; }
+    boolean isDescending() { return descending; }
+    Object getLastValue() { return lastValue; }
+    long getLastId() { return lastId; }
+
+    String encode() {
+        String value = lastValue instanceof EmployeeCondition condition ? condition.name() : String.valueOf(lastValue);
+        String raw = sortBy + SEPARATOR + (descending ? "D" : "A") + SEPARATOR + lastId + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Dekoduje token; rzuca IllegalArgumentException dla tokenu uszkodzonego
+     * lub wystawionego dla innego sortowania
+     */
+    static KeysetCursor decode(String token, String sortBy, boolean descending) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieprawidłowy token strony", e);
+        }
+        String[] parts = raw.split(SEPARATOR, 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Nieprawidłowy token strony");
+        }
+        if (!parts[0].equals(sortBy) || parts[1].equals("D") != descending) {
+            throw new IllegalArgumentException("Token strony nie pasuje do bieżącego sortowania");
+        }
+        try {
+            return new KeysetCursor(sortBy, descending, parseValue(sortBy, parts[3]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Nieprawidłowy token strony", e);
+        }
+    }
+
+    private static Object parseValue(String sortBy, String value) {
+        return switch (sortBy) {
+            case "salary" -> Double.valueOf(value);
+            case "birthyear" -> Integer.valueOf(value);
+            case "condition" -> EmployeeCondition.valueOf(value);
+            default -> value;
+        };
+    }
+}
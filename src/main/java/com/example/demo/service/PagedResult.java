@@ -3,19 +3,33 @@ package com.example.demo.service;
 import java.util.List;
 
 /**
- * Klasa do przechowywania wyników z paginacją
+ * Klasa do przechowywania wyników z paginacją.
+ *
+ * W trybie keyset kolejną stronę wskazuje nextPageToken (null na ostatniej stronie),
+ * a totalCount może być nieznany (UNKNOWN_COUNT), jeśli nie zażądano zliczania.
  */
 public class PagedResult<T> {
+    public static final long UNKNOWN_COUNT = -1;
+
     private final List<T> data;
     private final long totalCount;
     private final int currentPage;
     private final int pageSize;
+    private final String nextPageToken;
+    private final boolean keyset;
 
     public PagedResult(List<T> data, long totalCount, int currentPage, int pageSize) {
+        this(data, totalCount, currentPage, pageSize, null, false);
+    }
+
+    public PagedResult(List<T> data, long totalCount, int currentPage, int pageSize,
+                       String nextPageToken, boolean keyset) {
         this.data = data;
         this.totalCount = totalCount;
         this.currentPage = currentPage;
         this.pageSize = pageSize;
+        this.nextPageToken = nextPageToken;
+        this.keyset = keyset;
     }
 
     public List<T> getData() {
@@ -34,11 +48,32 @@ public class PagedResult<T> {
         return pageSize;
     }
 
+    public boolean isTotalCountKnown() {
+        return totalCount != UNKNOWN_COUNT;
+    }
+
+    /**
+     * Token do pobrania następnej strony w trybie keyset
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean isKeyset() {
+        return keyset;
+    }
+
     public int getTotalPages() {
+        if (!isTotalCountKnown()) {
+            return 0;
+        }
         return pageSize > 0 ? (int) Math.ceil((double) totalCount / pageSize) : 0;
     }
 
     public boolean hasNext() {
+        if (keyset) {
+            return nextPageToken != null;
+        }
         return currentPage < getTotalPages();
     }
 
@@ -6,25 +6,30 @@ import javafx.scene.control.*;
 import javafx.scene.input.Clipboard;
 import javafx.scene.input.ClipboardContent;
 
+import java.util.function.Consumer;
+
 public class ContextMenuBuilder {
     private final TableView<Employee> tableView;
     private final Runnable onEdit;
     private final Runnable onDelete;
-    private final Runnable onChangeCondition;
+    private final Consumer<EmployeeCondition> onChangeCondition;
     private final Runnable onRaiseSalary;
+    private final Runnable onGroupRaise;
     private final Runnable onShowDetails;
 
     public ContextMenuBuilder(TableView<Employee> tableView,
                               Runnable onEdit,
                               Runnable onDelete,
-                              Runnable onChangeCondition,
+                              Consumer<EmployeeCondition> onChangeCondition,
                               Runnable onRaiseSalary,
+                              Runnable onGroupRaise,
                               Runnable onShowDetails) {
         this.tableView = tableView;
         this.onEdit = onEdit;
         this.onDelete = onDelete;
         this.onChangeCondition = onChangeCondition;
         this.onRaiseSalary = onRaiseSalary;
+        this.onGroupRaise = onGroupRaise;
         this.onShowDetails = onShowDetails;
         setupContextMenu();
     }
@@ -50,30 +55,33 @@ public class ContextMenuBuilder {
         });
         contextMenu.getItems().add(deleteItem);
 
-        // Zmień stan - submenu
+        // Zmień stan - submenu (dla wszystkich zaznaczonych)
         Menu changeConditionMenu = new Menu("Zmień stan");
         for (EmployeeCondition condition : EmployeeCondition.values()) {
             MenuItem conditionItem = new MenuItem(condition.toString());
             conditionItem.setOnAction(e -> {
-                Employee selected = tableView.getSelectionModel().getSelectedItem();
-                if (selected != null) {
-                    selected.setCondition(condition);
-                    onChangeCondition.run();
+                if (!tableView.getSelectionModel().getSelectedItems().isEmpty()) {
+                    onChangeCondition.accept(condition);
                 }
             });
             changeConditionMenu.getItems().add(conditionItem);
         }
         contextMenu.getItems().add(changeConditionMenu);
 
-        // Podwyżka 10%
+        // Podwyżka 10% (dla wszystkich zaznaczonych)
         MenuItem raiseItem = new MenuItem("Podwyżka 10%");
         raiseItem.setOnAction(e -> {
-            if (tableView.getSelectionModel().getSelectedItem() != null) {
+            if (!tableView.getSelectionModel().getSelectedItems().isEmpty()) {
                 onRaiseSalary.run();
             }
         });
         contextMenu.getItems().add(raiseItem);
 
+        // Podwyżka dla całej grupy
+        MenuItem groupRaiseItem = new MenuItem("Podwyżka w grupie...");
+        groupRaiseItem.setOnAction(e -> onGroupRaise.run());
+        contextMenu.getItems().add(groupRaiseItem);
+
         contextMenu.getItems().add(new SeparatorMenuItem());
 
         // Kopiuj dane
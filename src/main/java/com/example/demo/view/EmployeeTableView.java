@@ -5,6 +5,7 @@ import com.example.demo.model.EmployeeCondition;
 import javafx.animation.FadeTransition;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
+import javafx.scene.control.SelectionMode;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.ComboBoxTableCell;
@@ -19,6 +20,8 @@ public class EmployeeTableView extends TableView<Employee> {
     public EmployeeTableView() {
         super();
         setupColumns();
+        // Zaznaczenie wielu wierszy dla operacji zbiorczych (podwyżka, zmiana stanu)
+        getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
     }
 
     private void setupColumns() {
@@ -94,14 +94,8 @@ public class GroupStatisticsView extends BorderPane {
         pieChart.getData().clear();
         pieChart.setTitle("Rozkład stanów pracowników");
 
-        Map<EmployeeCondition, Integer> counts = new HashMap<>();
-        for (EmployeeCondition cond : EmployeeCondition.values()) {
-            counts.put(cond, 0);
-        }
-
-        for (Employee emp : group.getEmployees()) {
-            counts.put(emp.getCondition(), counts.get(emp.getCondition()) + 1);
-        }
+        // liczniki stanów utrzymywane przez grupę
+        Map<EmployeeCondition, Integer> counts = group.getConditionCounts();
 
         for (Map.Entry<EmployeeCondition, Integer> entry : counts.entrySet()) {
             if (entry.getValue() > 0) {
@@ -199,13 +193,7 @@ public class GroupStatisticsView extends BorderPane {
                 writer.write("Zapełnienie: " + String.format("%.1f", fillPercentage) + "%\n\n");
                 
                 writer.write("Rozkład stanów:\n");
-                Map<EmployeeCondition, Integer> counts = new HashMap<>();
-                for (EmployeeCondition cond : EmployeeCondition.values()) {
-                    counts.put(cond, 0);
-                }
-                for (Employee emp : employees) {
-                    counts.put(emp.getCondition(), counts.get(emp.getCondition()) + 1);
-                }
+                Map<EmployeeCondition, Integer> counts = group.getConditionCounts();
                 for (Map.Entry<EmployeeCondition, Integer> entry : counts.entrySet()) {
                     writer.write("  " + entry.getKey() + ": " + entry.getValue() + "\n");
                 }
@@ -5,6 +5,7 @@ module com.example.demo {
     requires jakarta.persistence;
     requires java.naming;
     requires java.sql;
+    requires com.zaxxer.hikari;
     requires org.slf4j;
 
     opens com.example.demo to javafx.fxml;
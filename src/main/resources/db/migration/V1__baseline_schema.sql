@@ -0,0 +1,48 @@
+-- Schemat bazowy zgodny z mapowaniami encji (hbm2ddl.auto=validate).
+-- IF NOT EXISTS: na istniejącej bazie (tabele utworzone wcześniej ręcznie) migracja nic nie zmienia,
+-- na pustej bazie (np. H2 w testach, lokalny MySQL) tworzy kompletny schemat.
+CREATE TABLE IF NOT EXISTS `class_employees` (
+    `id`           BIGINT       NOT NULL,
+    `group_name`   VARCHAR(255) NOT NULL,
+    `max_capacity` INT          NOT NULL,
+    `created_at`   DATETIME(6),
+    `updated_at`   DATETIME(6),
+    PRIMARY KEY (`id`),
+    CONSTRAINT `uk_class_employees_group_name` UNIQUE (`group_name`)
+);
+
+CREATE TABLE IF NOT EXISTS `employees` (
+    `id`          BIGINT       NOT NULL,
+    `first_name`  VARCHAR(255) NOT NULL,
+    `last_name`   VARCHAR(255) NOT NULL,
+    `condition`   VARCHAR(255) NOT NULL,
+    `birth_year`  INT          NOT NULL,
+    `salary`      DOUBLE       NOT NULL,
+    `group_id`    BIGINT       NOT NULL,
+    `deleted`     BIT,
+    `created_at`  DATETIME(6),
+    `updated_at`  DATETIME(6),
+    PRIMARY KEY (`id`),
+    CONSTRAINT `fk_employees_group` FOREIGN KEY (`group_id`) REFERENCES `class_employees` (`id`)
+);
+
+CREATE TABLE IF NOT EXISTS `rates` (
+    `id`          BIGINT        NOT NULL,
+    `value`       INT           NOT NULL,
+    `group_id`    BIGINT        NOT NULL,
+    `rating_date` DATE          NOT NULL,
+    `comment`     VARCHAR(1000),
+    PRIMARY KEY (`id`),
+    CONSTRAINT `fk_rates_group` FOREIGN KEY (`group_id`) REFERENCES `class_employees` (`id`)
+);
+
+CREATE TABLE IF NOT EXISTS `audit_log` (
+    `id`             BIGINT        NOT NULL,
+    `operation_type` VARCHAR(255)  NOT NULL,
+    `entity_name`    VARCHAR(255)  NOT NULL,
+    `entity_id`      BIGINT        NOT NULL,
+    `timestamp`      DATETIME(6)   NOT NULL,
+    `username`       VARCHAR(255),
+    `changes`        VARCHAR(2000),
+    PRIMARY KEY (`id`)
+);
@@ -0,0 +1,22 @@
+-- Tabela generatorów ID (@TableGenerator, optymalizator pooled, allocationSize = 50).
+-- Zastępuje GenerationType.IDENTITY, który wyłącza batchowanie INSERT-ów w Hibernate.
+-- Wartość startowa = MAX(id) + 50, żeby pierwsza pula ID nie kolidowała z istniejącymi wierszami.
+-- Warunki IF NOT EXISTS / NOT EXISTS: bazy, na których skrypt uruchomiono wcześniej ręcznie, zostają bez zmian.
+CREATE TABLE IF NOT EXISTS `id_generators` (
+    `gen_name`  VARCHAR(255) NOT NULL,
+    `gen_value` BIGINT       NOT NULL,
+    PRIMARY KEY (`gen_name`)
+);
+
+INSERT INTO `id_generators` (`gen_name`, `gen_value`)
+SELECT 'employees', COALESCE(MAX(`id`), 0) + 50 FROM `employees`
+WHERE NOT EXISTS (SELECT 1 FROM `id_generators` WHERE `gen_name` = 'employees');
+INSERT INTO `id_generators` (`gen_name`, `gen_value`)
+SELECT 'class_employees', COALESCE(MAX(`id`), 0) + 50 FROM `class_employees`
+WHERE NOT EXISTS (SELECT 1 FROM `id_generators` WHERE `gen_name` = 'class_employees');
+INSERT INTO `id_generators` (`gen_name`, `gen_value`)
+SELECT 'rates', COALESCE(MAX(`id`), 0) + 50 FROM `rates`
+WHERE NOT EXISTS (SELECT 1 FROM `id_generators` WHERE `gen_name` = 'rates');
+INSERT INTO `id_generators` (`gen_name`, `gen_value`)
+SELECT 'audit_log', COALESCE(MAX(`id`), 0) + 50 FROM `audit_log`
+WHERE NOT EXISTS (SELECT 1 FROM `id_generators` WHERE `gen_name` = 'audit_log');
@@ -0,0 +1,28 @@
+-- Indeksy pod najczęstsze zapytania (EmployeeDAO, ClassEmployeeDAO, EmployeeQueryService,
+-- EmployeeCriteriaService, AuditService). InnoDB dokleja klucz główny (id) do każdego indeksu
+-- wtórnego, więc indeksy po kolumnie sortowania obsługują też paginację keyset (kolumna, id).
+
+-- Pracownicy grupy: filtr e.group.groupName (JOIN po group_id) + nazwisko/imię
+-- (findByLastName, employeeExists, lista pracowników grupy)
+CREATE INDEX `idx_employees_group_last_name` ON `employees` (`group_id`, `last_name`, `first_name`);
+
+-- Pensja w obrębie grupy: findByMinSalary, findBySalaryRange (ORDER BY salary DESC)
+CREATE INDEX `idx_employees_group_salary` ON `employees` (`group_id`, `salary`);
+
+-- Stan w obrębie grupy: findByCondition
+CREATE INDEX `idx_employees_group_condition` ON `employees` (`group_id`, `condition`);
+
+-- Sortowanie i zakresy po całej tabeli: ORDER BY last_name (LIKE '%x%' nie użyje zakresu,
+-- ale sortowanie idzie po indeksie), salary BETWEEN / top zarobki, birth_year BETWEEN
+CREATE INDEX `idx_employees_last_name` ON `employees` (`last_name`);
+CREATE INDEX `idx_employees_salary` ON `employees` (`salary`);
+CREATE INDEX `idx_employees_birth_year` ON `employees` (`birth_year`);
+
+-- Stan + sortowanie po nazwisku: findEmployeesByCondition
+CREATE INDEX `idx_employees_condition_last_name` ON `employees` (`condition`, `last_name`);
+
+-- Historia encji: WHERE entity_name = ? AND entity_id = ? ORDER BY timestamp DESC
+CREATE INDEX `idx_audit_log_entity` ON `audit_log` (`entity_name`, `entity_id`, `timestamp`);
+
+-- Historia filtrowana zakresem dat, ORDER BY timestamp DESC
+CREATE INDEX `idx_audit_log_timestamp` ON `audit_log` (`timestamp`);
@@ -0,0 +1,17 @@
+-- Miękkie usuwanie pracowników (Employee @SoftDelete).
+-- Hibernate dokleja do każdego zapytania warunek deleted = false, więc wiersze z NULL
+-- (zapisane przed włączeniem miękkiego usuwania) zniknęłyby z aplikacji - uzupełniamy je.
+UPDATE `employees` SET `deleted` = FALSE WHERE `deleted` IS NULL;
+ALTER TABLE `employees` MODIFY COLUMN `deleted` BIT NOT NULL DEFAULT 0;
+
+-- Moment usunięcia; zadanie czyszczące (TombstonePurgeJob) usuwa na stałe wiersze starsze niż retencja
+ALTER TABLE `employees` ADD COLUMN `deleted_at` DATETIME(6);
+
+-- MySQL nie ma indeksów częściowych (WHERE deleted = false), więc flaga jest drugą kolumną:
+-- żywe wiersze grupy tworzą ciągły zakres (group_id, false, ...), a nagrobki nie przeplatają się
+-- z nimi przy skanowaniu po nazwisku. Zastępuje idx_employees_group_last_name z V3.
+CREATE INDEX `idx_employees_group_deleted_last_name` ON `employees` (`group_id`, `deleted`, `last_name`, `first_name`);
+ALTER TABLE `employees` DROP INDEX `idx_employees_group_last_name`;
+
+-- Wyszukiwanie starych nagrobków do czyszczenia: WHERE deleted = true AND deleted_at < ?
+CREATE INDEX `idx_employees_deleted_at` ON `employees` (`deleted`, `deleted_at`);
@@ -0,0 +1,35 @@
+-- Model odczytu statystyk grup (encja GroupStats, utrzymywana przez GroupStatsDAO w transakcjach
+-- zapisu pracowników, ocen i grup). Zastępuje agregację LEFT JOIN employees/rates + GROUP BY
+-- przy każdym odczycie statystyk - odczyt jest teraz proporcjonalny do liczby grup.
+CREATE TABLE IF NOT EXISTS `group_stats` (
+    `group_id`       BIGINT NOT NULL,
+    `employee_count` BIGINT NOT NULL,
+    `salary_sum`     DOUBLE NOT NULL,
+    `salary_min`     DOUBLE,
+    `salary_max`     DOUBLE,
+    `rating_count`   BIGINT NOT NULL,
+    `rating_sum`     BIGINT NOT NULL,
+    PRIMARY KEY (`group_id`),
+    CONSTRAINT `fk_group_stats_group` FOREIGN KEY (`group_id`) REFERENCES `class_employees` (`id`)
+);
+
+-- Wypełnienie dla istniejących grup (pracownicy usunięci miękko nie są liczeni); NOT EXISTS - grupy
+-- wypełnione przez przerwaną wcześniej próbę migracji zostają bez zmian
+INSERT INTO `group_stats` (`group_id`, `employee_count`, `salary_sum`, `salary_min`, `salary_max`,
+                           `rating_count`, `rating_sum`)
+SELECT c.`id`,
+       COALESCE(e.`employee_count`, 0), COALESCE(e.`salary_sum`, 0), e.`salary_min`, e.`salary_max`,
+       COALESCE(r.`rating_count`, 0), COALESCE(r.`rating_sum`, 0)
+FROM `class_employees` c
+LEFT JOIN (SELECT `group_id`, COUNT(*) AS `employee_count`, SUM(`salary`) AS `salary_sum`,
+                  MIN(`salary`) AS `salary_min`, MAX(`salary`) AS `salary_max`
+           FROM `employees` WHERE `deleted` = FALSE GROUP BY `group_id`) e ON e.`group_id` = c.`id`
+LEFT JOIN (SELECT `group_id`, COUNT(*) AS `rating_count`, SUM(`value`) AS `rating_sum`
+           FROM `rates` GROUP BY `group_id`) r ON r.`group_id` = c.`id`
+WHERE NOT EXISTS (SELECT 1 FROM `group_stats` s WHERE s.`group_id` = c.`id`);
+
+-- MIN/MAX pensji żywych pracowników grupy (przeliczane przy każdej zmianie pracowników grupy)
+-- czyta się z końców zakresu (group_id, false, salary) zamiast skanować grupę. Obsługuje też
+-- findByMinSalary/findBySalaryRange, więc zastępuje idx_employees_group_salary z V3.
+CREATE INDEX `idx_employees_group_deleted_salary` ON `employees` (`group_id`, `deleted`, `salary`);
+ALTER TABLE `employees` DROP INDEX `idx_employees_group_salary`;
@@ -0,0 +1,133 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeColumns;
+import com.example.demo.model.EmployeeCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Analizy grupy na liście encji (ClassEmployee) i na kopii kolumnowej (EmployeeColumns).
+ *
+ * Mierzone są: pamięć zajęta przez każdą z reprezentacji (różnica zajętej sterty po GC)
+ * oraz czasy medianSalary, getAverageAge, getAgeStatistics, filterBySalaryRange,
+ * groupBySalaryRange i filterByPercentile. Wyniki obu reprezentacji są porównywane.
+ * Imiona i nazwiska pochodzą z puli, więc obie wersje współdzielą te same napisy.
+ *
+ * Działa bez bazy. Uruchomienie: java -Xmx4g ... com.example.demo.benchmark.ColumnarAnalyticsBenchmark [n]
+ * (domyślnie 10 000 000 wierszy)
+ */
+public class ColumnarAnalyticsBenchmark {
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        String[] firstNames = names("Imie", 5_000);
+        String[] lastNames = names("Nazwisko", 50_000);
+
+        long base = usedHeap();
+        List<Employee> employees = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            employees.add(new Employee(firstNames[i % firstNames.length], lastNames[(i * 31) % lastNames.length],
+                    CONDITIONS[i % CONDITIONS.length], 1960 + (i * 7) % 45, 3000 + (i * 2_654_435_761L) % 9000));
+        }
+        long objectBytes = usedHeap() - base;
+
+        long start = System.nanoTime();
+        EmployeeColumns columns = EmployeeColumns.from(employees);
+        columns.trimToSize();
+        long bridgeNanos = System.nanoTime() - start;
+        long columnBytes = usedHeap() - base - objectBytes;
+
+        System.out.printf("n=%,d%n", n);
+        System.out.printf("memory   objects %,8.1f MB (%5.1f B/row)   columns %,8.1f MB (%5.1f B/row)   bridge %.0f ms%n",
+                objectBytes / 1e6, objectBytes / (double) n, columnBytes / 1e6, columnBytes / (double) n,
+                bridgeNanos / 1e6);
+
+        ClassEmployee group = new ClassEmployee("benchmark", Integer.MAX_VALUE);
+        group.setEmployees(employees);
+
+        compare("medianSalary", group::medianSalary, columns::medianSalary, Function.identity());
+        compare("getAverageAge", group::getAverageAge, columns::getAverageAge, Function.identity());
+        compare("getAgeStatistics", () -> group.getAgeStatistics().toString(),
+                columns::getAgeStatistics, Object::toString);
+        compare("filterBySalaryRange", () -> salaryKey(group.filterBySalaryRange(5000, 6000)),
+                () -> columns.filterBySalaryRange(5000, 6000), rows -> salaryKey(columns.toEmployees(rows)));
+        compare("groupBySalaryRange", () -> groupKey(group.groupBySalaryRange(1000)),
+                () -> columns.groupBySalaryRange(1000), ColumnarAnalyticsBenchmark::groupKeyRows);
+        compare("filterByPercentile", () -> salaryKey(group.filterByPercentile(90)),
+                () -> columns.filterByPercentile(90), rows -> salaryKey(columns.toEmployees(rows)));
+    }
+
+    /**
+     * Czas na kolumnach obejmuje tylko analizę (wynik w numerach wierszy);
+     * zamiana na encje do porównania wyników jest poza pomiarem
+     */
+    private static <T> void compare(String name, Supplier<Object> objects, Supplier<T> columnar,
+                                    Function<T, Object> resultKey) {
+        Object expected = null;
+        T actual = null;
+        long objectNanos = Long.MAX_VALUE;
+        long columnNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            expected = objects.get();
+            objectNanos = Math.min(objectNanos, System.nanoTime() - start);
+            start = System.nanoTime();
+            actual = columnar.get();
+            columnNanos = Math.min(columnNanos, System.nanoTime() - start);
+        }
+        Object actualKey = resultKey.apply(actual);
+        if (!expected.equals(actualKey)) {
+            throw new IllegalStateException(name + ": " + expected + " != " + actualKey);
+        }
+        System.out.printf("%-20s objects %9.1f ms   columns %9.1f ms   x%.1f%n",
+                name, objectNanos / 1e6, columnNanos / 1e6, objectNanos / (double) columnNanos);
+    }
+
+    /**
+     * Porównanie list po kolejności pensji i liczności (encje z kopii to nowe obiekty)
+     */
+    private static Object salaryKey(List<Employee> employees) {
+        double checksum = 0;
+        for (int i = 0; i < employees.size(); i++) {
+            checksum = checksum * 31 + employees.get(i).getSalary();
+        }
+        return employees.size() + ":" + checksum;
+    }
+
+    private static Object groupKey(Map<String, List<Employee>> groups) {
+        Map<String, Integer> sizes = new TreeMap<>();
+        groups.forEach((range, members) -> sizes.put(range, members.size()));
+        return sizes;
+    }
+
+    private static Object groupKeyRows(Map<String, int[]> groups) {
+        Map<String, Integer> sizes = new TreeMap<>();
+        groups.forEach((range, rows) -> sizes.put(range, rows.length));
+        return sizes;
+    }
+
+    private static String[] names(String prefix, int count) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = prefix + i;
+        }
+        return names;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
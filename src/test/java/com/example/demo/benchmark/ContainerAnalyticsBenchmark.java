@@ -0,0 +1,115 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ClassContainer;
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.ContainerAnalytics;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Statystyki wszystkich grup kontenera: liczba, suma/min/max/mediana pensji, wiek, stany.
+ *
+ * Tryby:
+ *  - streams: grupa po grupie, osobny strumień na każdą statystykę (jak dotychczasowe
+ *    metody ClassEmployee: mediana przez sortowanie listy Double),
+ *  - fork-join p=N: ContainerAnalytics z N wątkami (jeden przebieg, podział na grupy
+ *    i zakresy dużych grup).
+ * Kontener ma GROUPS grup po SMALL pracowników i jedną dużą grupę.
+ *
+ * Działa bez bazy. Uruchomienie: java -Xmx4g ... com.example.demo.benchmark.ContainerAnalyticsBenchmark [large]
+ * (domyślnie duża grupa 2 000 000 pracowników)
+ */
+public class ContainerAnalyticsBenchmark {
+    private static final int GROUPS = 200;
+    private static final int SMALL = 10_000;
+    private static final int ROUNDS = 3;
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+
+    public static void main(String[] args) {
+        int large = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        ClassContainer container = container(large);
+        System.out.printf("groups=%d + 1 large (%,d), employees=%,d, processors=%d%n",
+                GROUPS, large, GROUPS * SMALL + large, Runtime.getRuntime().availableProcessors());
+
+        double expected = 0;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            expected = streams(container);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-14s %9.1f ms%n", "streams", best / 1e6);
+
+        for (int parallelism : new int[]{1, 2, 4, 8}) {
+            try (ContainerAnalytics analytics = new ContainerAnalytics(parallelism, ContainerAnalytics.DEFAULT_SPLIT_THRESHOLD)) {
+                best = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    ContainerAnalytics.Report report = container.analyze(analytics);
+                    best = Math.min(best, System.nanoTime() - start);
+                    double checksum = 0;
+                    for (ContainerAnalytics.Aggregate group : report.getGroups().values()) {
+                        checksum += group.getMedianSalary() + group.getSalaryMax() - group.getSalaryMin();
+                    }
+                    if (checksum != expected) {
+                        throw new IllegalStateException("Results differ: " + checksum + " != " + expected);
+                    }
+                }
+                System.out.printf("%-14s %9.1f ms%n", "fork-join p=" + parallelism, best / 1e6);
+            }
+        }
+    }
+
+    private static ClassContainer container(int large) {
+        ClassContainer container = new ClassContainer();
+        SplittableRandom random = new SplittableRandom(42);
+        for (int g = 0; g <= GROUPS; g++) {
+            String name = "grupa" + g;
+            int size = g == GROUPS ? large : SMALL;
+            container.addClass(name, size);
+            List<Employee> employees = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                employees.add(new Employee("Imie" + i, "Nazwisko" + g, CONDITIONS[random.nextInt(CONDITIONS.length)],
+                        1960 + random.nextInt(45), 3000 + random.nextInt(9000)));
+            }
+            container.getGroup(name).setEmployees(employees);
+        }
+        return container;
+    }
+
+    /**
+     * Statystyki liczone osobnymi strumieniami; zwraca sumę kontrolną jak w trybie fork-join
+     */
+    private static double streams(ClassContainer container) {
+        int current = Year.now().getValue();
+        double checksum = 0;
+        for (String name : container.getGroupsInOrder()) {
+            ClassEmployee group = container.getGroup(name);
+            List<Employee> employees = group.getEmployees();
+            double sum = employees.stream().mapToDouble(Employee::getSalary).sum();
+            double min = employees.stream().mapToDouble(Employee::getSalary).min().orElse(0);
+            double max = employees.stream().mapToDouble(Employee::getSalary).max().orElse(0);
+            List<Double> sorted = employees.stream().map(Employee::getSalary).sorted().collect(Collectors.toList());
+            int n = sorted.size();
+            double median = n == 0 ? 0 : n % 2 == 1 ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+            IntSummaryStatistics ages = employees.stream().mapToInt(e -> current - e.getBirthYear()).summaryStatistics();
+            Map<EmployeeCondition, Long> conditions = employees.stream()
+                    .collect(Collectors.groupingBy(Employee::getCondition, () -> new EnumMap<>(EmployeeCondition.class),
+                            Collectors.counting()));
+            if (sum < 0 || ages.getCount() != n || conditions.isEmpty() && n > 0) {
+                throw new IllegalStateException();
+            }
+            checksum += median + max - min;
+        }
+        return checksum;
+    }
+}
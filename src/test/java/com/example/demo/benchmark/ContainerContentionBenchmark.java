@@ -0,0 +1,146 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ClassContainer;
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import com.example.demo.model.StorageMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Przepustowość jednego kontenera grup używanego z 1-32 wątków.
+ *
+ * Każda operacja wybiera losową grupę: 80% odczytów (countByCondition, checkEmployee,
+ * medianSalary, findEmpty co tysięczna), 10% zmian stanu lub pensji, 10% dodania
+ * i usunięcia pracownika. Tryby:
+ *  - locked: TREE_MAP i zwykłe grupy, każda operacja pod jedną wspólną blokadą
+ *    (tak trzeba było współdzielić kontener dotąd),
+ *  - CONCURRENT_HASH / CONCURRENT_SKIP_LIST: bez zewnętrznych blokad,
+ *  - CONCURRENT_HASH+migrate: jak wyżej, a osobny wątek co 20 ms zmienia tryb kontenera.
+ *
+ * Działa bez bazy. Uruchomienie: java ... com.example.demo.benchmark.ContainerContentionBenchmark [ms]
+ * (domyślnie 1000 ms na pomiar)
+ */
+public class ContainerContentionBenchmark {
+    private static final int GROUPS = 64;
+    private static final int EMPLOYEES_PER_GROUP = 1_000;
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1_000;
+        run("warmup", StorageMode.CONCURRENT_HASH, false, false, 4, 500);
+        System.out.printf("%-8s %14s %14s %14s %14s%n", "threads", "locked", "CONC_HASH", "CONC_SKIP", "HASH+migrate");
+        for (int threads = 1; threads <= 32; threads *= 2) {
+            System.out.printf("%-8d %14s %14s %14s %14s%n", threads,
+                    format(run("locked", StorageMode.TREE_MAP, true, false, threads, millis)),
+                    format(run("hash", StorageMode.CONCURRENT_HASH, false, false, threads, millis)),
+                    format(run("skip", StorageMode.CONCURRENT_SKIP_LIST, false, false, threads, millis)),
+                    format(run("migrate", StorageMode.CONCURRENT_HASH, false, true, threads, millis)));
+        }
+    }
+
+    private static String format(double opsPerSecond) {
+        return String.format("%,.0f/s", opsPerSecond);
+    }
+
+    private static double run(String name, StorageMode mode, boolean globalLock, boolean migrate,
+                              int threads, long millis) throws InterruptedException {
+        ClassContainer container = new ClassContainer(mode);
+        List<String> names = new ArrayList<>();
+        for (int g = 0; g < GROUPS; g++) {
+            String groupName = "grupa" + g;
+            names.add(groupName);
+            container.addClass(groupName, EMPLOYEES_PER_GROUP * 2);
+            List<Employee> employees = new ArrayList<>();
+            for (int i = 0; i < EMPLOYEES_PER_GROUP; i++) {
+                employees.add(new Employee("Imie" + i, "Nazwisko" + g, CONDITIONS[i % CONDITIONS.length],
+                        1970 + i % 30, 3000 + i % 4000));
+            }
+            container.getGroup(groupName).addEmployees(employees);
+        }
+
+        Object sharedLock = new Object();
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long count = 0;
+                long sink = 0;
+                while (running.get()) {
+                    if (globalLock) {
+                        synchronized (sharedLock) {
+                            sink += operation(container, names, random, seed);
+                        }
+                    } else {
+                        sink += operation(container, names, random, seed);
+                    }
+                    count++;
+                }
+                operations.add(count);
+                if (sink == Long.MIN_VALUE) {
+                    System.out.println(name);
+                }
+                done.countDown();
+            }, name + "-" + t);
+            worker.start();
+        }
+        Thread migrator = null;
+        if (migrate) {
+            migrator = new Thread(() -> {
+                boolean hash = true;
+                while (running.get()) {
+                    container.changeStorageMode(hash ? StorageMode.CONCURRENT_SKIP_LIST : StorageMode.CONCURRENT_HASH);
+                    hash = !hash;
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "migrator");
+            migrator.start();
+        }
+        Thread.sleep(millis);
+        running.set(false);
+        done.await();
+        if (migrator != null) {
+            migrator.join();
+        }
+        return operations.sum() * 1000.0 / millis;
+    }
+
+    private static long operation(ClassContainer container, List<String> names, SplittableRandom random, long seed) {
+        ClassEmployee group = container.getGroup(names.get(random.nextInt(names.size())));
+        int roll = random.nextInt(100);
+        if (roll < 80) {
+            return switch (roll % 4) {
+                case 0 -> group.countByCondition(CONDITIONS[roll % CONDITIONS.length]);
+                case 1 -> group.checkEmployee(group.getEmployees().get(random.nextInt(EMPLOYEES_PER_GROUP))) ? 1 : 0;
+                case 2 -> (long) group.medianSalary();
+                default -> roll == 3 && random.nextInt(250) == 0 ? container.findEmpty().size() : 0;
+            };
+        }
+        Employee member = group.getEmployees().get(random.nextInt(EMPLOYEES_PER_GROUP));
+        if (roll < 90) {
+            if (roll % 2 == 0) {
+                member.setCondition(CONDITIONS[random.nextInt(CONDITIONS.length)]);
+            } else {
+                member.setSalary(3000.0 + random.nextInt(4000));
+            }
+            return 1;
+        }
+        // pracownik tymczasowy: unikalne imię wątku, dodany i od razu usunięty
+        Employee temporary = new Employee("Tymczasowy" + seed, "Watek" + random.nextInt(1_000_000),
+                EmployeeCondition.OBECNY, 1990, 3500);
+        return group.addEmployee(temporary) && group.removeEmployee(temporary) ? 1 : 0;
+    }
+}
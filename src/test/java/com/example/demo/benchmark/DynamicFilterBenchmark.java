@@ -0,0 +1,64 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.controller.HibernateUtil;
+import com.example.demo.model.EmployeeCondition;
+import com.example.demo.service.EmployeeCriteriaService;
+import com.example.demo.service.EmployeeFilterDTO;
+
+/**
+ * Porównanie filtra dynamicznego: drzewa Criteria budowane przy każdym wywołaniu
+ * kontra zapytania skompilowane per kształt filtra (tylko wiązanie parametrów).
+ *
+ * Działa na bazie z hibernate.cfg.xml i niczego nie zapisuje - z klasami testowymi na classpath
+ * pierwszy musi być katalog src/main/resources, inaczej zostanie użyta testowa baza H2 w pamięci.
+ * Wartości filtrów zmieniają się co iterację, żeby cache liczności nie ukrywał zapytań COUNT.
+ *
+ * Uruchomienie: java ... com.example.demo.benchmark.DynamicFilterBenchmark [iteracje]
+ * (domyślnie 2 000 na tryb)
+ */
+public class DynamicFilterBenchmark {
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+    private static final String[] SORT_COLUMNS = {"lastName", "salary", "birthYear"};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        EmployeeCriteriaService service = new EmployeeCriteriaService();
+        try {
+            // rozgrzewka JIT i cache planów dla obu ścieżek
+            for (boolean compiled : new boolean[]{false, true}) {
+                service.setCompiledQueriesEnabled(compiled);
+                run(service, Math.min(iterations, 200));
+            }
+            for (boolean compiled : new boolean[]{false, true}) {
+                service.setCompiledQueriesEnabled(compiled);
+                long start = System.nanoTime();
+                run(service, iterations);
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("%-9s %8.1f us/filter%n", compiled ? "compiled" : "criteria",
+                        elapsed / 1_000.0 / iterations);
+            }
+            System.out.println(EmployeeCriteriaService.getQueryCacheStats());
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+
+    private static void run(EmployeeCriteriaService service, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            EmployeeFilterDTO.Builder builder = new EmployeeFilterDTO.Builder()
+                    .minSalary(1000.0 + i % 997)
+                    .sortBy(SORT_COLUMNS[i % SORT_COLUMNS.length])
+                    .sortDirection(i % 2 == 0 ? "ASC" : "DESC")
+                    .pageSize(20);
+            // cztery kształty filtra na zmianę
+            if (i % 4 == 1) {
+                builder.condition(CONDITIONS[i % CONDITIONS.length]);
+            } else if (i % 4 == 2) {
+                builder.birthYearFrom(1960 + i % 30).birthYearTo(2000);
+            } else if (i % 4 == 3) {
+                builder.maxSalary(20_000.0 + i % 1000).condition(CONDITIONS[i % CONDITIONS.length]);
+            }
+            service.buildDynamicFilterRows(builder.build());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import com.example.demo.model.EmployeeRow;
+
+/**
+ * Pomiar pamięci na jeden obiekt pracownika.
+ *
+ * Obiekty są tworzone tak jak przy hydratacji (konstruktor bezargumentowy + ustawienie pól).
+ * Tryby:
+ *  - eager: wszystkie właściwości JavaFX zmaterializowane (zachowanie sprzed leniwej inicjalizacji),
+ *  - lazy: encja bez dotykania właściwości (eksport, liczenie, filtrowanie),
+ *  - row: projekcja EmployeeRow.
+ *
+ * Uruchomienie: java ... com.example.demo.benchmark.EmployeeFootprintBenchmark [liczba_obiektów]
+ * (domyślnie 1 000 000; wymaga odpowiednio dużego -Xmx, np. -Xmx4g)
+ */
+public class EmployeeFootprintBenchmark {
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        // Napisy współdzielone między trybami, żeby mierzyć tylko narzut samych obiektów
+        String[] firstNames = new String[count];
+        String[] lastNames = new String[count];
+        for (int i = 0; i < count; i++) {
+            firstNames[i] = "Imie" + i;
+            lastNames[i] = "Nazwisko" + i;
+        }
+
+        System.out.printf("Objects: %,d%n", count);
+        for (String mode : new String[]{"eager", "lazy", "row"}) {
+            // rozgrzewka JIT na małej próbce
+            measure(mode, Math.min(count, 10_000), firstNames, lastNames, false);
+            measure(mode, count, firstNames, lastNames, true);
+        }
+    }
+
+    private static void measure(String mode, int count, String[] firstNames, String[] lastNames, boolean report) {
+        Object[] holder = new Object[count];
+        long before = usedHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            holder[i] = create(mode, i, firstNames[i], lastNames[i]);
+        }
+        long elapsed = System.nanoTime() - start;
+        long after = usedHeap();
+        if (report) {
+            System.out.printf("%-6s %8.1f bytes/object, %8.1f MB total, %6.1f ns/object%n",
+                    mode, (after - before) / (double) count, (after - before) / (1024.0 * 1024.0),
+                    elapsed / (double) count);
+        }
+        // trzymamy referencje do końca pomiaru
+        if (holder[count - 1] == null) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static Object create(String mode, int i, String firstName, String lastName) {
+        EmployeeCondition condition = CONDITIONS[i % CONDITIONS.length];
+        int birthYear = 1960 + i % 45;
+        double salary = 3000 + i % 5000;
+        if ("row".equals(mode)) {
+            return new EmployeeRow((long) i, firstName, lastName, condition, birthYear, salary, "Grupa");
+        }
+        Employee employee = new Employee();
+        employee.setId((long) i);
+        employee.setFirstName(firstName);
+        employee.setLastName(lastName);
+        employee.setCondition(condition);
+        employee.setBirthYear(birthYear);
+        employee.setSalary(salary);
+        if ("eager".equals(mode)) {
+            employee.firstNameProperty();
+            employee.lastNameProperty();
+            employee.conditionProperty();
+            employee.birthYearProperty();
+            employee.salaryProperty();
+        }
+        return employee;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
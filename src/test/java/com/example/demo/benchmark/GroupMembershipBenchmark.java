@@ -0,0 +1,104 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Skalowanie masowego dodawania pracowników do grupy (ClassEmployee.addEmployee).
+ *
+ * Tryby:
+ *  - indexed: addEmployee z indeksem (imię, nazwisko) - stały koszt jednego dodania,
+ *  - linear: dawne sprawdzanie przeglądające całą listę (O(n) na dodanie, O(n^2) razem);
+ *    mierzone tylko do LINEAR_LIMIT pracowników, dalej trwałoby godzinami.
+ * Dla trybu indexed mierzone są też wyszukiwania checkEmployee i searchByLastName.
+ *
+ * Działa bez bazy. Uruchomienie: java ... com.example.demo.benchmark.GroupMembershipBenchmark [max]
+ * (domyślnie 1 000 000; wymaga odpowiednio dużego -Xmx, np. -Xmx2g)
+ */
+public class GroupMembershipBenchmark {
+    private static final EmployeeCondition[] CONDITIONS = EmployeeCondition.values();
+    private static final int LINEAR_LIMIT = 20_000;
+    private static final int LOOKUPS = 100_000;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        // rozgrzewka JIT
+        loadIndexed(employees(10_000));
+        loadLinear(employees(2_000));
+
+        for (int n = 1_000; n <= max; n *= 10) {
+            List<Employee> employees = employees(n);
+            long start = System.nanoTime();
+            ClassEmployee group = loadIndexed(employees);
+            long indexed = System.nanoTime() - start;
+            System.out.printf("n=%,10d indexed %9.1f ms (%6.1f ns/add)", n, indexed / 1e6, indexed / (double) n);
+            if (n <= LINEAR_LIMIT) {
+                start = System.nanoTime();
+                loadLinear(employees(n));
+                long linear = System.nanoTime() - start;
+                System.out.printf("   linear %9.1f ms (%8.1f ns/add)", linear / 1e6, linear / (double) n);
+            }
+            System.out.printf("   lookups %5.1f ns%n", lookupNanos(group, employees));
+        }
+    }
+
+    private static List<Employee> employees(int n) {
+        List<Employee> employees = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // nazwiska powtarzają się po kilka razy, imię i nazwisko razem są unikalne
+            employees.add(new Employee("Imie" + i, "Nazwisko" + (i / 4), CONDITIONS[i % CONDITIONS.length],
+                    1960 + i % 40, 3000 + i % 5000));
+        }
+        return employees;
+    }
+
+    private static ClassEmployee loadIndexed(List<Employee> employees) {
+        ClassEmployee group = new ClassEmployee("benchmark", Integer.MAX_VALUE);
+        for (Employee employee : employees) {
+            if (!group.addEmployee(employee)) {
+                throw new IllegalStateException("Employee rejected: " + employee.getFirstName());
+            }
+        }
+        return group;
+    }
+
+    /**
+     * Dodawanie ze sprawdzeniem duplikatu pętlą po liście (zachowanie sprzed indeksu)
+     */
+    private static List<Employee> loadLinear(List<Employee> employees) {
+        List<Employee> members = new ArrayList<>();
+        for (Employee employee : employees) {
+            boolean exists = false;
+            for (Employee e : members) {
+                if (e.getFirstName().equals(employee.getFirstName()) && e.getLastName().equals(employee.getLastName())) {
+                    exists = true;
+                    break;
+                }
+            }
+            if (!exists) {
+                members.add(employee);
+            }
+        }
+        return members;
+    }
+
+    private static double lookupNanos(ClassEmployee group, List<Employee> employees) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            Employee probe = employees.get((int) ((i * 2_654_435_761L) % employees.size()));
+            if (group.checkEmployee(probe) && group.searchByLastName(probe.getLastName()) != null) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found != LOOKUPS) {
+            throw new IllegalStateException("Lookups failed: " + found);
+        }
+        return elapsed / (double) LOOKUPS;
+    }
+}
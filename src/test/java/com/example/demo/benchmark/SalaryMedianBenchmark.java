@@ -0,0 +1,78 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Odświeżanie statystyk grupy po każdej zmianie pensji (jak GroupStatisticsView):
+ * zmiana pensji losowego pracownika, potem medianSalary i salaryPercentile(90).
+ *
+ * Tryby:
+ *  - tree: statystyki pozycyjne pensji utrzymywane przez grupę (O(log n) na zmianę),
+ *  - sort: dawne sortowanie wszystkich pensji przy każdym odczycie (O(n log n)).
+ *
+ * Działa bez bazy. Uruchomienie: java ... com.example.demo.benchmark.SalaryMedianBenchmark [max]
+ * (domyślnie 1 000 000 pracowników)
+ */
+public class SalaryMedianBenchmark {
+    private static final int UPDATES = 200;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        run(10_000, false); // rozgrzewka JIT
+        for (int n = 1_000; n <= max; n *= 10) {
+            double tree = run(n, true);
+            double sort = run(n, false);
+            System.out.printf("n=%,10d   tree %10.2f us/refresh   sort %10.2f us/refresh   x%.0f%n",
+                    n, tree, sort, sort / tree);
+        }
+    }
+
+    private static double run(int n, boolean tree) {
+        SplittableRandom random = new SplittableRandom(n);
+        ClassEmployee group = new ClassEmployee("benchmark", Integer.MAX_VALUE);
+        List<Employee> employees = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Employee employee = new Employee("Imie" + i, "Nazwisko" + i, EmployeeCondition.OBECNY,
+                    1970 + i % 30, 3000 + random.nextInt(9000));
+            employee.setGroup(group);
+            employees.add(employee);
+        }
+        group.setEmployees(employees);
+        double checksum = 0;
+        if (tree) {
+            // budowa statystyk i indeksu nazw (sprawdzanie członkostwa przy zmianie pensji) poza pomiarem
+            checksum = group.medianSalary() + (group.checkEmployee(employees.get(0)) ? 1 : 0);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            employees.get(random.nextInt(n)).setSalary(3000.0 + random.nextInt(9000));
+            checksum += tree ? group.medianSalary() + group.salaryPercentile(90) : sortedStatistics(employees);
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum < 0) {
+            throw new IllegalStateException();
+        }
+        return elapsed / 1_000.0 / UPDATES;
+    }
+
+    /**
+     * Mediana i 90. percentyl z posortowanej kopii pensji
+     */
+    private static double sortedStatistics(List<Employee> employees) {
+        List<Double> salaries = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            salaries.add(employee.getSalary());
+        }
+        salaries.sort(null);
+        int n = salaries.size();
+        double median = n % 2 == 1 ? salaries.get(n / 2) : (salaries.get(n / 2 - 1) + salaries.get(n / 2)) / 2;
+        return median + salaries.get(Math.max((int) Math.ceil(0.9 * n) - 1, 0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Odświeżanie list najlepiej i najgorzej zarabiających po każdej zmianie w grupie:
+ * zmiana pensji losowego pracownika (co czwarta operacja - usunięcie i dodanie pracownika),
+ * potem getTopEarners(10) i getBottomEarners(10).
+ *
+ * Tryby:
+ *  - ranking: ranking pensji utrzymywany przez grupę (O(log K) na zmianę),
+ *  - sort: dawne sortowanie całej listy przy każdym odczycie (O(n log n)).
+ *
+ * Działa bez bazy. Uruchomienie: java ... com.example.demo.benchmark.TopEarnersBenchmark [max]
+ * (domyślnie 1 000 000 pracowników)
+ */
+public class TopEarnersBenchmark {
+    private static final int UPDATES = 200;
+    private static final int COUNT = 10;
+
+    public static void main(String[] args) {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        run(10_000, true); // rozgrzewka JIT
+        run(10_000, false);
+        for (int n = 1_000; n <= max; n *= 10) {
+            double ranking = run(n, true);
+            double sort = run(n, false);
+            System.out.printf("n=%,10d   ranking %10.2f us/refresh   sort %10.2f us/refresh   x%.0f%n",
+                    n, ranking, sort, sort / ranking);
+        }
+    }
+
+    private static double run(int n, boolean ranking) {
+        SplittableRandom random = new SplittableRandom(n);
+        ClassEmployee group = new ClassEmployee("benchmark", Integer.MAX_VALUE);
+        List<Employee> employees = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            employees.add(employee(i, random));
+        }
+        group.addEmployees(employees);
+        long checksum = 0;
+        if (ranking) {
+            // budowa rankingu poza pomiarem
+            checksum = group.getTopEarners(COUNT).size();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            List<Employee> members = group.getEmployees();
+            Employee member = members.get(random.nextInt(members.size()));
+            if (i % 4 == 0) {
+                group.removeEmployee(member);
+                group.addEmployee(employee(n + i, random));
+            } else {
+                member.setSalary(3000.0 + random.nextInt(9000));
+            }
+            checksum += ranking
+                    ? group.getTopEarners(COUNT).size() + group.getBottomEarners(COUNT).size()
+                    : sorted(members, true).size() + sorted(members, false).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (checksum < 0) {
+            throw new IllegalStateException();
+        }
+        return elapsed / 1_000.0 / UPDATES;
+    }
+
+    private static Employee employee(int i, SplittableRandom random) {
+        return new Employee("Imie" + i, "Nazwisko" + i, EmployeeCondition.OBECNY,
+                1970 + i % 30, 3000 + random.nextInt(9000));
+    }
+
+    /**
+     * Najlepiej/najgorzej zarabiający przez sortowanie całej listy
+     */
+    private static List<Employee> sorted(List<Employee> employees, boolean top) {
+        return employees.stream()
+                .sorted((a, b) -> top ? Double.compare(b.getSalary(), a.getSalary()) : Double.compare(a.getSalary(), b.getSalary()))
+                .limit(COUNT)
+                .collect(Collectors.toList());
+    }
+}
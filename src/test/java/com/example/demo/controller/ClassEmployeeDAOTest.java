@@ -0,0 +1,57 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ClassEmployeeDAOTest {
+    private final ClassEmployeeDAO groupDAO = new ClassEmployeeDAO();
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.reset();
+    }
+
+    @Test
+    void deleteGroupAuditsLiveMembersAndDropsThemFromCaches() {
+        ClassEmployee removed = new ClassEmployee("Usuwana", 10);
+        ClassEmployee kept = new ClassEmployee("Zostaje", 10);
+        groupDAO.saveAll(List.of(removed, kept));
+        Employee rich = employee("Bogaty", 9000.0, removed);
+        Employee tombstone = employee("Usuniety", 8000.0, removed);
+        Employee other = employee("Inny", 1000.0, kept);
+        employeeDAO.saveAll(List.of(rich, tombstone, other));
+        employeeDAO.softDelete(List.of(tombstone.getId()));
+        assertEquals(rich.getId(), TopEarnersCache.topIds(1).get(0));
+
+        groupDAO.delete(groupDAO.findByName("Usuwana"));
+
+        assertNull(groupDAO.findByName("Usuwana"));
+        assertEquals(1, countRows("SELECT COUNT(*) FROM employees"));
+        // usunięcie członka wpisane do audytu; nagrobek miał już wpis z softDelete
+        assertEquals(1, countRows("SELECT COUNT(*) FROM audit_log WHERE entity_id = " + rich.getId()));
+        assertEquals(1, countRows("SELECT COUNT(*) FROM audit_log WHERE entity_id = " + tombstone.getId()));
+        assertEquals(List.of(other.getId()), TopEarnersCache.topIds(5));
+        assertFalse(employeeDAO.findByPartial("Bogaty", null).iterator().hasNext());
+    }
+
+    private static Employee employee(String lastName, double salary, ClassEmployee group) {
+        Employee employee = new Employee("Imie", lastName, EmployeeCondition.OBECNY, 1980, salary);
+        employee.setGroup(group);
+        return employee;
+    }
+
+    private static long countRows(String sql) {
+        return UnitOfWork.readOnly(session -> ((Number) session.createNativeQuery(sql, Object.class)
+                .uniqueResult()).longValue());
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import com.example.demo.model.EmployeeRow;
+import com.example.demo.model.GroupStats;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmployeeDAOTest {
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+    private final ClassEmployeeDAO groupDAO = new ClassEmployeeDAO();
+    private ClassEmployee group;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.reset();
+        group = new ClassEmployee("Testowa", 10_000);
+        groupDAO.save(group);
+    }
+
+    @Test
+    void saveAllAssignsUniqueIdsFromPooledGenerator() {
+        List<Employee> employees = employees(230);
+
+        employeeDAO.saveAll(employees);
+
+        Set<Long> ids = new HashSet<>();
+        for (Employee employee : employees) {
+            assertNotNull(employee.getId());
+            ids.add(employee.getId());
+        }
+        assertEquals(employees.size(), ids.size());
+        // optymalizator pooled: w tabeli jest górna granica ostatniej przydzielonej puli
+        long generatorValue = UnitOfWork.readOnly(session -> ((Number) session
+                .createNativeQuery("SELECT gen_value FROM id_generators WHERE gen_name = 'employees'", Object.class)
+                .uniqueResult()).longValue());
+        assertTrue(ids.stream().allMatch(id -> id <= generatorValue));
+        assertEquals(employees.size(), groupDAO.getStartupSummary().getEmployeeCount());
+    }
+
+    @Test
+    void saveAllBatchesInserts() {
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+        long before = statistics.getPrepareStatementCount();
+
+        employeeDAO.saveAll(employees(500));
+
+        // bez batchowania byłoby co najmniej 500 instrukcji (po jednej na INSERT)
+        long prepared = statistics.getPrepareStatementCount() - before;
+        assertTrue(prepared < 100, "prepared statements: " + prepared);
+    }
+
+    @Test
+    void nestedBatchWritesKeepEnclosingEntitiesManaged() {
+        List<Employee> existing = employees(1);
+        employeeDAO.saveAll(existing);
+        Long id = existing.get(0).getId();
+        List<Employee> added = employees(120);
+
+        UnitOfWork.inTransaction(session -> {
+            Employee managed = session.get(Employee.class, id);
+            // więcej niż jedna paczka zapisu i audytu wewnątrz tej samej jednostki pracy
+            employeeDAO.saveAll(added);
+            employeeDAO.softDelete(added.stream().map(Employee::getId).toList());
+            managed.setSalary(9999.0);
+            return null;
+        });
+
+        assertEquals(9999.0, employeeDAO.findById(id).getSalary());
+    }
+
+    @Test
+    void softDeleteHidesEmployeeUntilRestored() {
+        List<Employee> employees = employees(3);
+        employeeDAO.saveAll(employees);
+        Long id = employees.get(0).getId();
+
+        assertEquals(List.of(id), employeeDAO.softDelete(List.of(id)));
+        // drugi raz nic nie zmienia - wiersz jest już usunięty
+        assertTrue(employeeDAO.softDelete(List.of(id)).isEmpty());
+        assertNull(employeeDAO.findById(id));
+        assertEquals(2, groupDAO.getStartupSummary().getEmployeeCount());
+        assertEquals(1, countRows("SELECT COUNT(*) FROM employees WHERE deleted = TRUE AND deleted_at IS NOT NULL"));
+
+        assertEquals(1, employeeDAO.restore(List.of(id)).size());
+        assertNotNull(employeeDAO.findById(id));
+        assertEquals(3, groupDAO.getStartupSummary().getEmployeeCount());
+    }
+
+    @Test
+    void restoreSkipsEmployeesThatWereNotDeleted() {
+        List<Employee> employees = employees(2);
+        employees.get(0).setSalary(100.0);
+        employees.get(1).setSalary(200.0);
+        employeeDAO.saveAll(employees);
+        Long deleted = employees.get(0).getId();
+        Long live = employees.get(1).getId();
+        employeeDAO.softDelete(List.of(deleted));
+        long auditBefore = countRows("SELECT COUNT(*) FROM audit_log");
+
+        List<EmployeeRow> restored = employeeDAO.restore(List.of(deleted, live));
+
+        assertEquals(1, restored.size());
+        assertEquals(deleted, restored.get(0).getId());
+        GroupStats stats = new GroupStatsDAO().findByGroupId(group.getId());
+        assertEquals(2, stats.getEmployeeCount());
+        assertEquals(300.0, stats.getSalarySum(), 0.0001);
+        assertEquals(auditBefore + 1, countRows("SELECT COUNT(*) FROM audit_log"));
+    }
+
+    @Test
+    void purgeRemovesOnlyTombstonesOlderThanCutoff() {
+        List<Employee> employees = employees(5);
+        employeeDAO.saveAll(employees);
+        List<Long> deleted = List.of(employees.get(0).getId(), employees.get(1).getId(), employees.get(2).getId());
+        employeeDAO.softDelete(deleted);
+        // jeden nagrobek "starszy" niż retencja
+        UnitOfWork.inTransaction(session -> session
+                .createNativeQuery("UPDATE employees SET deleted_at = :old WHERE id = :id", Object.class)
+                .setParameter("old", LocalDateTime.now().minusDays(40))
+                .setParameter("id", deleted.get(0))
+                .executeUpdate());
+
+        assertEquals(1, employeeDAO.purgeDeleted(LocalDateTime.now().minusDays(30), 500));
+        assertEquals(4, countRows("SELECT COUNT(*) FROM employees"));
+
+        // pozostałe nagrobki paczkami po 1; żywi pracownicy zostają
+        assertEquals(2, employeeDAO.purgeDeleted(LocalDateTime.now().plusMinutes(1), 1));
+        assertEquals(2, countRows("SELECT COUNT(*) FROM employees"));
+        assertFalse(employeeDAO.restore(deleted).iterator().hasNext());
+    }
+
+    @Test
+    void raiseRejectsInvalidPercent() {
+        List<Employee> employees = employees(2);
+        employeeDAO.saveAll(employees);
+        List<Long> ids = List.of(employees.get(0).getId());
+
+        for (double percent : new double[]{Double.NaN, Double.POSITIVE_INFINITY, -100, -150}) {
+            assertThrows(IllegalArgumentException.class, () -> employeeDAO.raiseSalaryInGroup("Testowa", null, percent));
+            assertThrows(IllegalArgumentException.class, () -> employeeDAO.raiseSalary(ids, percent));
+        }
+        assertEquals(3000.0, employeeDAO.findById(ids.get(0)).getSalary());
+    }
+
+    @Test
+    void bulkUpdateAuditsOnlyLiveEmployees() {
+        List<Employee> employees = employees(3);
+        employeeDAO.saveAll(employees);
+        Long live = employees.get(0).getId();
+        Long deleted = employees.get(1).getId();
+        employeeDAO.softDelete(List.of(deleted));
+        long auditBefore = countRows("SELECT COUNT(*) FROM audit_log");
+
+        List<EmployeeRow> rows = employeeDAO.changeCondition(List.of(live, deleted, -1L), EmployeeCondition.CHORY);
+
+        assertEquals(1, rows.size());
+        assertEquals(live, rows.get(0).getId());
+        assertEquals(auditBefore + 1, countRows("SELECT COUNT(*) FROM audit_log"));
+        assertEquals(1, countRows("SELECT COUNT(*) FROM audit_log WHERE entity_id = " + live));
+        assertTrue(employeeDAO.raiseSalary(List.of(deleted), 10).isEmpty());
+        assertEquals(auditBefore + 1, countRows("SELECT COUNT(*) FROM audit_log"));
+    }
+
+    @Test
+    void findByPartialFallsBackToLikeAboveInListLimit() throws InterruptedException {
+        employeeDAO.saveAll(employees(NameSearchIndex.MAX_IN_LIST + 1));
+        NameSearchIndex.warmUp();
+        for (int i = 0; i < 100 && !NameSearchIndex.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(NameSearchIndex.isReady());
+        Statistics statistics = HibernateUtil.getSessionFactory().getStatistics();
+
+        long before = statistics.getQueryExecutionCount();
+        assertEquals(1, employeeDAO.findByPartial("Nazwisko1000", "Testowa").size());
+        // kilku kandydatów z indeksu - ładowanie po id, bez zapytania
+        assertEquals(before, statistics.getQueryExecutionCount());
+
+        List<Employee> all = employeeDAO.findByPartial("Nazwisko", "Testowa");
+        assertEquals(NameSearchIndex.MAX_IN_LIST + 1, all.size());
+        assertEquals(before + 1, statistics.getQueryExecutionCount());
+    }
+
+    private List<Employee> employees(int count) {
+        List<Employee> employees = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Employee employee = new Employee("Imie" + i, "Nazwisko" + i, EmployeeCondition.OBECNY,
+                    1970 + i % 30, 3000.0 + i);
+            employee.setGroup(group);
+            employees.add(employee);
+        }
+        return employees;
+    }
+
+    private static long countRows(String sql) {
+        return UnitOfWork.readOnly(session -> ((Number) session.createNativeQuery(sql, Object.class)
+                .uniqueResult()).longValue());
+    }
+}
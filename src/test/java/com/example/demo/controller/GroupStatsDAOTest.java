@@ -0,0 +1,157 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import com.example.demo.model.GroupStats;
+import com.example.demo.model.Rate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GroupStatsDAOTest {
+    private static final String FRESH_STATS_HQL = "SELECT c.id, "
+            + "(SELECT COUNT(e) FROM Employee e WHERE e.group = c), "
+            + "(SELECT COALESCE(SUM(e.salary), 0.0) FROM Employee e WHERE e.group = c), "
+            + "(SELECT MIN(e.salary) FROM Employee e WHERE e.group = c), "
+            + "(SELECT MAX(e.salary) FROM Employee e WHERE e.group = c), "
+            + "(SELECT COUNT(r) FROM Rate r WHERE r.group = c), "
+            + "(SELECT COALESCE(SUM(r.value), 0) FROM Rate r WHERE r.group = c) "
+            + "FROM ClassEmployee c ORDER BY c.id";
+
+    private final GroupStatsDAO statsDAO = new GroupStatsDAO();
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+    private final ClassEmployeeDAO groupDAO = new ClassEmployeeDAO();
+    private final RateDAO rateDAO = new RateDAO();
+    private ClassEmployee first;
+    private ClassEmployee second;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.reset();
+        first = new ClassEmployee("A", 1000);
+        second = new ClassEmployee("B", 1000);
+        groupDAO.saveAll(List.of(first, second));
+    }
+
+    @Test
+    void createsEmptyStatsWithGroup() {
+        GroupStats stats = statsDAO.findByGroupId(first.getId());
+
+        assertNotNull(stats);
+        assertEquals(0, stats.getEmployeeCount());
+        assertEquals(0.0, stats.getSalarySum());
+        assertNull(stats.getSalaryMin());
+    }
+
+    @Test
+    void followsEmployeeWrites() {
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            employees.add(employee("N" + i, 1000.0 + i, i % 2 == 0 ? first : second));
+        }
+        employeeDAO.saveAll(employees);
+        Employee single = employee("Jeden", 5000.0, first);
+        employeeDAO.save(single);
+        assertStatsMatchData();
+
+        employeeDAO.softDelete(List.of(employees.get(0).getId(), single.getId()));
+        assertStatsMatchData();
+
+        employeeDAO.restore(List.of(single.getId()));
+        employeeDAO.raiseSalaryInGroup("A", null, 10);
+        employeeDAO.raiseSalary(List.of(employees.get(1).getId()), 50);
+        assertStatsMatchData();
+
+        Employee moved = employeeDAO.findById(employees.get(3).getId());
+        moved.setGroup(first);
+        moved.setSalary(1.0);
+        employeeDAO.update(moved);
+        assertStatsMatchData();
+    }
+
+    @Test
+    void removingLastEmployeesResetsSalarySum() {
+        Employee cheap = employee("Tani", 1000.25, first);
+        Employee expensive = employee("Drogi", 2000.5, first);
+        employeeDAO.saveAll(List.of(cheap, expensive));
+
+        employeeDAO.softDelete(List.of(cheap.getId()));
+        GroupStats stats = statsDAO.findByGroupId(first.getId());
+        assertEquals(1, stats.getEmployeeCount());
+        assertEquals(2000.5, stats.getSalarySum(), 0.0001);
+
+        employeeDAO.softDelete(List.of(expensive.getId()));
+        stats = statsDAO.findByGroupId(first.getId());
+        assertEquals(0, stats.getEmployeeCount());
+        assertEquals(0.0, stats.getSalarySum());
+        assertNull(stats.getSalaryMax());
+    }
+
+    @Test
+    void salarySumIsAssignedBeforeEmployeeCount() {
+        // H2 liczy wszystkie przypisania SET ze starych wartości, MySQL - od lewej z już zmienionymi;
+        // warunek CASE dla sumy działa w obu tylko, gdy suma jest przypisywana przed liczbą pracowników
+        String hql = GroupStatsDAO.EMPLOYEES_CHANGED_HQL;
+        assertTrue(hql.indexOf("s.salarySum =") < hql.indexOf("s.employeeCount ="));
+    }
+
+    @Test
+    void followsRateWrites() {
+        List<Rate> rates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rates.add(new Rate(i % 7, i % 2 == 0 ? first : second, LocalDate.now(), null));
+        }
+        rateDAO.saveAll(rates);
+        assertStatsMatchData();
+
+        Rate changed = rates.get(1);
+        changed.setValue(6);
+        rateDAO.update(changed);
+        rateDAO.delete(rates.get(0));
+        assertStatsMatchData();
+    }
+
+    @Test
+    void rebuildAllRepairsDrift() {
+        employeeDAO.saveAll(List.of(employee("X", 100.0, first), employee("Y", 200.0, second)));
+        UnitOfWork.inTransaction(session -> session
+                .createMutationQuery("UPDATE GroupStats s SET s.employeeCount = 0, s.salarySum = 0.0")
+                .executeUpdate());
+
+        assertEquals(2, statsDAO.rebuildAll());
+        assertStatsMatchData();
+    }
+
+    private Employee employee(String lastName, double salary, ClassEmployee group) {
+        Employee employee = new Employee("Imie", lastName, EmployeeCondition.OBECNY, 1980, salary);
+        employee.setGroup(group);
+        return employee;
+    }
+
+    /**
+     * Porównuje group_stats z agregatami policzonymi wprost z tabel
+     */
+    private void assertStatsMatchData() {
+        List<Object[]> fresh = UnitOfWork.readOnly(session -> session.createQuery(FRESH_STATS_HQL, Object[].class).list());
+        for (Object[] row : fresh) {
+            Long groupId = (Long) row[0];
+            GroupStats stats = statsDAO.findByGroupId(groupId);
+            assertNotNull(stats, "group " + groupId);
+            assertEquals(((Number) row[1]).longValue(), stats.getEmployeeCount(), "count, group " + groupId);
+            assertEquals(((Number) row[2]).doubleValue(), stats.getSalarySum(), 0.001, "sum, group " + groupId);
+            assertEquals(row[3], stats.getSalaryMin(), "min, group " + groupId);
+            assertEquals(row[4], stats.getSalaryMax(), "max, group " + groupId);
+            assertEquals(((Number) row[5]).longValue(), stats.getRatingCount(), "ratings, group " + groupId);
+            assertEquals(((Number) row[6]).longValue(), stats.getRatingSum(), "rating sum, group " + groupId);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryStreamsTest {
+    private static final String ALL_HQL = "SELECT e FROM Employee e ORDER BY e.id";
+    private static final int EMPLOYEES = 10;
+
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.reset();
+        ClassEmployee group = new ClassEmployee("A", 100);
+        new ClassEmployeeDAO().save(group);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            Employee employee = new Employee("Imie" + i, "Nazwisko" + i, EmployeeCondition.OBECNY, 1980, 3000.0);
+            employee.setGroup(group);
+            employees.add(employee);
+        }
+        employeeDAO.saveAll(employees);
+        employees.forEach(employee -> ids.add(employee.getId()));
+    }
+
+    @Test
+    void forEachVisitsAllRows() {
+        List<String> names = new ArrayList<>();
+
+        long count = QueryStreams.forEach("test", session -> session.createQuery(ALL_HQL, Employee.class), 3,
+                employee -> names.add(employee.getFirstName()));
+
+        assertEquals(EMPLOYEES, count);
+        assertEquals("Imie0", names.get(0));
+    }
+
+    @Test
+    void nestedForEachKeepsEnclosingTransactionState() {
+        List<String> names = new ArrayList<>();
+
+        UnitOfWork.inTransaction(session -> {
+            Employee changed = session.get(Employee.class, ids.get(0));
+            changed.setFirstName("Zmienione");
+            // fetchSize 2 - kursor czyści swoją sesję kilka razy w trakcie przebiegu
+            QueryStreams.forEach("test", s -> s.createQuery(ALL_HQL, Employee.class), 2,
+                    employee -> names.add(employee.getFirstName()));
+
+            assertTrue(session.contains(changed));
+            changed.setLastName("PoPrzebiegu");
+            return null;
+        });
+
+        // kursor widział niezapisaną zmianę transakcji, a obie zmiany zostały zatwierdzone
+        assertEquals(EMPLOYEES, names.size());
+        assertEquals("Zmienione", names.get(0));
+        Employee reloaded = employeeDAO.findById(ids.get(0));
+        assertEquals("Zmienione", reloaded.getFirstName());
+        assertEquals("PoPrzebiegu", reloaded.getLastName());
+    }
+
+    @Test
+    void nestedForEachInReadOnlyUnitKeepsItsEntitiesAttached() {
+        UnitOfWork.readOnly(session -> {
+            Employee loaded = session.get(Employee.class, ids.get(0));
+            QueryStreams.forEach("test", s -> s.createQuery(ALL_HQL, Employee.class), 2, employee -> {
+            });
+
+            assertTrue(session.contains(loaded));
+            return null;
+        });
+    }
+}
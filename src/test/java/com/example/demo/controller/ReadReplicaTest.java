@@ -0,0 +1,129 @@
+package com.example.demo.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadReplicaTest {
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    private static final long READ_AFTER_WRITE_MILLIS = 200;
+
+    private Connection admin;
+    private ReadReplica replica;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        admin = DriverManager.getConnection(REPLICA_URL, "sa", "");
+        try (Statement statement = admin.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds INT)");
+            statement.execute("DELETE FROM replica_lag");
+            statement.execute("INSERT INTO replica_lag VALUES (0)");
+        }
+        // zapisy innych testów nie mogą kierować odczytów do bazy głównej
+        Thread.sleep(READ_AFTER_WRITE_MILLIS + 50);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (replica != null) {
+            replica.stop();
+        }
+        admin.close();
+    }
+
+    @Test
+    void readsFromReplicaWhenCaughtUp() throws SQLException {
+        replica = replica(REPLICA_URL, "SELECT lag_seconds FROM replica_lag");
+
+        try (Connection connection = replica.tryGetConnection()) {
+            assertNotNull(connection);
+            assertTrue(connection.getMetaData().getURL().startsWith("jdbc:h2:mem:replica"));
+        }
+        assertEquals(1, replica.getReplicaReads());
+        assertEquals(0, replica.getPrimaryFallbacks());
+    }
+
+    @Test
+    void fallsBackToPrimaryRightAfterWrite() throws Exception {
+        replica = replica(REPLICA_URL, null);
+
+        DataSourceRouting.recordWrite();
+        assertNull(replica.tryGetConnection());
+
+        Thread.sleep(READ_AFTER_WRITE_MILLIS + 50);
+        try (Connection connection = replica.tryGetConnection()) {
+            assertNotNull(connection);
+        }
+        assertEquals(1, replica.getPrimaryFallbacks());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhileLagging() throws Exception {
+        try (Statement statement = admin.createStatement()) {
+            statement.execute("UPDATE replica_lag SET lag_seconds = 100");
+        }
+        replica = replica(REPLICA_URL, "SELECT lag_seconds FROM replica_lag");
+        awaitLag(100L);
+
+        assertNull(replica.tryGetConnection());
+        assertEquals(1, replica.getPrimaryFallbacks());
+
+        try (Statement statement = admin.createStatement()) {
+            statement.execute("UPDATE replica_lag SET lag_seconds = 0");
+        }
+        awaitLag(0L);
+        try (Connection connection = replica.tryGetConnection()) {
+            assertNotNull(connection);
+        }
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenUnreachable() {
+        replica = replica("jdbc:h2:tcp://localhost:1/unreachable", null);
+
+        assertNull(replica.tryGetConnection());
+        assertFalse(replica.isAvailable());
+        // w czasie retry.seconds replika jest pomijana bez prób połączenia
+        assertNull(replica.tryGetConnection());
+        assertEquals(2, replica.getPrimaryFallbacks());
+    }
+
+    private static ReadReplica replica(String url, String lagQuery) {
+        Map<String, Object> settings = new HashMap<>();
+        settings.put(ReadReplica.URL, url);
+        settings.put("hibernate.connection.username", "sa");
+        settings.put("hibernate.connection.password", "");
+        settings.put("employees.replica.max.lag.seconds", "5");
+        settings.put("employees.replica.check.interval.seconds", "1");
+        settings.put("employees.replica.read.after.write.millis", String.valueOf(READ_AFTER_WRITE_MILLIS));
+        settings.put("employees.replica.connection.timeout.millis", "250");
+        if (lagQuery != null) {
+            settings.put("employees.replica.lag.query", lagQuery);
+        }
+        Properties poolProperties = new Properties();
+        poolProperties.setProperty("maximumPoolSize", "2");
+        return new ReadReplica(settings, poolProperties);
+    }
+
+    private void awaitLag(Long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!expected.equals(replica.getLagSeconds()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, replica.getLagSeconds());
+    }
+}
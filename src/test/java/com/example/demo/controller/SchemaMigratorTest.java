@@ -0,0 +1,120 @@
+package com.example.demo.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+    private static final String LOCATION = "db/migration";
+    private static int databases;
+
+    private Connection connection;
+
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        // każda metoda dostaje własną, pustą bazę
+        connection = DriverManager.getConnection("jdbc:h2:mem:migrations" + (++databases)
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+    }
+
+    @AfterEach
+    void closeDatabase() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void migratesEmptyDatabaseOnce() throws SQLException {
+        int applied = new SchemaMigrator(LOCATION).migrate(connection);
+
+        assertTrue(applied > 0);
+        assertEquals(applied, count("SELECT COUNT(*) FROM schema_history"));
+        assertEquals(0, new SchemaMigrator(LOCATION).migrate(connection));
+        // tabela generatorów z V2 i statystyki grup z V5
+        assertEquals(4, count("SELECT COUNT(*) FROM id_generators"));
+        assertEquals(0, count("SELECT COUNT(*) FROM group_stats"));
+    }
+
+    @Test
+    void rejectsChangedMigration() throws SQLException {
+        new SchemaMigrator(LOCATION).migrate(connection);
+        execute("UPDATE schema_history SET checksum = 'changed' WHERE version = 1");
+
+        assertThrows(IllegalStateException.class, () -> new SchemaMigrator(LOCATION).migrate(connection));
+    }
+
+    @Test
+    void rejectsMigrationOlderThanApplied() throws SQLException {
+        new SchemaMigrator(LOCATION).migrate(connection);
+        execute("DELETE FROM schema_history WHERE version = 2");
+
+        assertThrows(IllegalStateException.class, () -> new SchemaMigrator(LOCATION).migrate(connection));
+    }
+
+    @Test
+    void rerunsMigrationsWhoseDdlWasAlreadyCommitted() throws SQLException {
+        new SchemaMigrator(LOCATION).migrate(connection);
+        execute("INSERT INTO class_employees (id, group_name, max_capacity) VALUES (1, 'A', 10)");
+        execute("INSERT INTO group_stats (group_id, employee_count, salary_sum, rating_count, rating_sum) "
+                + "VALUES (1, 0, 0, 0, 0)");
+        // jak po przerwanych migracjach w MySQL: DDL zatwierdzony, wpisów w historii brak
+        execute("DELETE FROM schema_history WHERE version >= 3");
+
+        assertEquals(3, new SchemaMigrator(LOCATION).migrate(connection));
+        assertEquals(1, count("SELECT COUNT(*) FROM group_stats"));
+    }
+
+    @Test
+    void detectsDdlAlreadyReflectedInSchema() throws SQLException {
+        new SchemaMigrator(LOCATION).migrate(connection);
+
+        assertTrue(SchemaMigrator.alreadyApplied(connection,
+                "CREATE INDEX `idx_employees_salary` ON `employees` (`salary`)"));
+        assertFalse(SchemaMigrator.alreadyApplied(connection,
+                "CREATE INDEX `idx_employees_first_name` ON `employees` (`first_name`)"));
+        assertTrue(SchemaMigrator.alreadyApplied(connection,
+                "ALTER TABLE `employees` DROP INDEX `idx_employees_group_salary`"));
+        assertFalse(SchemaMigrator.alreadyApplied(connection,
+                "ALTER TABLE `employees` DROP INDEX `idx_employees_salary`"));
+        assertTrue(SchemaMigrator.alreadyApplied(connection,
+                "ALTER TABLE `employees` ADD COLUMN `deleted_at` DATETIME(6)"));
+        assertFalse(SchemaMigrator.alreadyApplied(connection,
+                "ALTER TABLE `employees` ADD COLUMN `deletedXat` DATETIME(6)"));
+        assertFalse(SchemaMigrator.alreadyApplied(connection, "UPDATE `employees` SET `deleted` = FALSE"));
+    }
+
+    @Test
+    void splitsStatementsOnLineEndSemicolons() {
+        List<String> statements = SchemaMigrator.splitStatements(
+                "-- komentarz\nCREATE TABLE t (\n  a VARCHAR(10) DEFAULT 'x;y'\n);\n\nINSERT INTO t VALUES ('z');\n");
+
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE TABLE t"));
+        assertTrue(statements.get(1).startsWith("INSERT INTO t"));
+    }
+
+    private long count(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.controller;
+
+import java.sql.Statement;
+
+/**
+ * Wspólna baza testów (H2 w pamięci z src/test/resources/hibernate.cfg.xml).
+ * reset() czyści tabele i pamięci podręczne, żeby każdy test zaczynał od pustej bazy.
+ */
+public final class TestDatabase {
+    // kolejność zgodna z kluczami obcymi
+    private static final String[] TABLES = {"audit_log", "employees", "rates", "group_stats", "class_employees"};
+
+    private TestDatabase() {
+    }
+
+    public static void reset() {
+        UnitOfWork.inTransaction("TestDatabase.reset", session -> {
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    for (String table : TABLES) {
+                        statement.executeUpdate("DELETE FROM " + table);
+                    }
+                }
+            });
+            return null;
+        });
+        HibernateUtil.getSessionFactory().getCache().evictAllRegions();
+        NameSearchIndex.invalidate();
+        TopEarnersCache.invalidate();
+    }
+}
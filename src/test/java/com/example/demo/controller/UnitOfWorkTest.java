@@ -0,0 +1,71 @@
+package com.example.demo.controller;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UnitOfWorkTest {
+
+    @Test
+    void nestedUnitsJoinEnclosingSession() {
+        UnitOfWork.inTransaction(outer -> {
+            UnitOfWork.readOnly(inner -> {
+                assertSame(outer, inner);
+                return null;
+            });
+            return null;
+        });
+    }
+
+    @Test
+    void writesAreRejectedInsideReadOnlyUnit() {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.readOnly(session ->
+                UnitOfWork.inTransaction(inner -> null)));
+    }
+
+    @Test
+    void readOnlyUnitsAreRoutedToReplica() {
+        assertFalse(DataSourceRouting.isReadOnly());
+        UnitOfWork.readOnly(session -> {
+            assertTrue(DataSourceRouting.isReadOnly());
+            return null;
+        });
+        assertFalse(DataSourceRouting.isReadOnly());
+    }
+
+    @Test
+    void primaryReadInsideReadOnlyUnitUsesOwnSession() {
+        UnitOfWork.readOnly(outer -> {
+            Session primary = UnitOfWork.readOnlyFromPrimary("test", inner -> {
+                assertFalse(DataSourceRouting.isReadOnly());
+                assertTrue(inner.isDefaultReadOnly());
+                return inner;
+            });
+            assertNotSame(outer, primary);
+            assertTrue(DataSourceRouting.isReadOnly());
+            // po powrocie kolejne odczyty znów dołączają do zewnętrznej jednostki
+            UnitOfWork.readOnly(inner -> {
+                assertSame(outer, inner);
+                return null;
+            });
+            return null;
+        });
+    }
+
+    @Test
+    void primaryReadInsideTransactionJoinsIt() {
+        UnitOfWork.inTransaction(outer -> {
+            UnitOfWork.readOnlyFromPrimary("test", inner -> {
+                assertSame(outer, inner);
+                assertFalse(DataSourceRouting.isReadOnly());
+                return null;
+            });
+            return null;
+        });
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassEmployeeTest {
+
+    @Test
+    void filterByPercentileIgnoresEmployeesWithoutSalary() {
+        Random random = new Random(7);
+        ClassEmployee group = new ClassEmployee("A", 1000);
+        for (int i = 0; i < 200; i++) {
+            group.addEmployee(employee("Imie" + i, "Nazwisko" + i, 1000.0 + random.nextInt(20)));
+        }
+        List<Employee> members = group.getEmployees();
+        for (int i = 0; i < members.size(); i += 3) {
+            members.get(i).setSalary(null);
+        }
+
+        for (double percentile : new double[]{0, 1, 25, 50, 90, 99.5, 100}) {
+            assertEquals(sortedFrom(members, percentile), group.filterByPercentile(percentile), "percentile " + percentile);
+        }
+    }
+
+    @Test
+    void filterByPercentileOfGroupWithoutSalariesIsEmpty() {
+        ClassEmployee group = new ClassEmployee("A", 10);
+        group.addEmployee(employee("Jan", "Kowalski", 1000.0));
+        group.getEmployees().get(0).setSalary(null);
+
+        assertTrue(group.filterByPercentile(50).isEmpty());
+    }
+
+    @Test
+    void renamedMemberIsFoundUnderNewName() {
+        ClassEmployee group = new ClassEmployee("A", 10);
+        Employee renamed = employee("Jan", "Kowalski", 1000.0);
+        Employee namesake = employee("Jan", "Nowak", 1000.0);
+        group.addEmployee(renamed);
+        group.addEmployee(namesake);
+
+        renamed.setLastName("Nowak");
+        renamed.setFirstName("Adam");
+
+        assertNull(group.findByName("Jan", "Kowalski"));
+        assertSame(renamed, group.findByName("Adam", "Nowak"));
+        assertSame(namesake, group.findByName("Jan", "Nowak"));
+        assertSame(namesake, group.searchByLastName("Nowak"));
+        assertNull(group.searchByLastName("Kowalski"));
+    }
+
+    @Test
+    void renameInOtherGroupDoesNotRebuildNameIndex() {
+        ClassEmployee group = new ClassEmployee("A", 10);
+        ClassEmployee other = new ClassEmployee("B", 10);
+        Employee member = employee("Jan", "Kowalski", 1000.0);
+        Employee stranger = employee("Anna", "Nowak", 1000.0);
+        group.addEmployee(member);
+        other.addEmployee(stranger);
+        // zmiana bezpośrednio na liście - indeks grupy wykryłby ją dopiero przy przebudowie
+        group.findByName("Jan", "Kowalski");
+        group.getEmployees().set(0, employee("Piotr", "Zielinski", 1000.0));
+
+        stranger.setLastName("Wisniewska");
+
+        assertSame(member, group.findByName("Jan", "Kowalski"));
+        assertSame(stranger, other.findByName("Anna", "Wisniewska"));
+    }
+
+    @Test
+    void propertyEditsUpdateGroupStatistics() {
+        ClassEmployee group = new ClassEmployee("A", 10);
+        Employee employee = employee("Jan", "Kowalski", 1000.0);
+        group.addEmployee(employee);
+        group.addEmployee(employee("Anna", "Nowak", 3000.0));
+        assertEquals(2, group.countByCondition(EmployeeCondition.OBECNY));
+
+        employee.salaryProperty().set(5000.0);
+        employee.setSalary(2000.0);
+        employee.conditionProperty().set(EmployeeCondition.NIEOBECNY);
+        employee.setBirthYear(1990);
+
+        assertEquals(2000.0, employee.salaryProperty().get());
+        assertEquals(1990, employee.birthYearProperty().get());
+        assertEquals(List.of(employee), group.getBottomEarners(1));
+        assertEquals(1, group.countByCondition(EmployeeCondition.OBECNY));
+        assertEquals(1, group.countByCondition(EmployeeCondition.NIEOBECNY));
+    }
+
+    @Test
+    void directListChangesRebuildAllDerivedState() {
+        ClassEmployee group = new ClassEmployee("A", 10);
+        group.addEmployee(employee("Jan", "Kowalski", 1000.0));
+        assertEquals(1000.0, group.medianSalary());
+        assertEquals(1, group.countByCondition(EmployeeCondition.OBECNY));
+        assertEquals(1, group.getTopEarners(5).size());
+
+        Employee added = employee("Anna", "Nowak", 5000.0);
+        group.getEmployees().add(added);
+
+        assertSame(added, group.findByName("Anna", "Nowak"));
+        assertEquals(2, group.countByCondition(EmployeeCondition.OBECNY));
+        assertEquals(List.of(added), group.getTopEarners(1));
+        assertEquals(3000.0, group.medianSalary());
+
+        group.setEmployees(new ArrayList<>(List.of(added)));
+        assertNull(group.findByName("Jan", "Kowalski"));
+        assertEquals(5000.0, group.medianSalary());
+        assertEquals(1, group.countByCondition(EmployeeCondition.OBECNY));
+    }
+
+    /**
+     * Wzorzec: stabilne sortowanie pracowników z pensją i odcięcie początku listy
+     */
+    private static List<Employee> sortedFrom(List<Employee> employees, double percentile) {
+        List<Employee> withSalary = employees.stream()
+                .filter(e -> e.getSalary() != null)
+                .sorted(Comparator.comparing(Employee::getSalary))
+                .collect(Collectors.toList());
+        int index = Math.max((int) Math.ceil(percentile / 100.0 * withSalary.size()) - 1, 0);
+        return index >= withSalary.size() ? List.of() : new ArrayList<>(withSalary.subList(index, withSalary.size()));
+    }
+
+    private static Employee employee(String firstName, String lastName, double salary) {
+        return new Employee(firstName, lastName, EmployeeCondition.OBECNY, 1980, salary);
+    }
+}
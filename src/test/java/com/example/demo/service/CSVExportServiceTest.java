@@ -0,0 +1,58 @@
+package com.example.demo.service;
+
+import com.example.demo.controller.ClassEmployeeDAO;
+import com.example.demo.controller.EmployeeDAO;
+import com.example.demo.controller.TestDatabase;
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CSVExportServiceTest {
+
+    @Test
+    void filteredExportWritesAllPagesWithoutChangingCallersFilter() throws IOException {
+        TestDatabase.reset();
+        ClassEmployee group = new ClassEmployee("A", 1000);
+        new ClassEmployeeDAO().save(group);
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            Employee employee = new Employee("Imie" + i, "Nazwisko" + i, EmployeeCondition.OBECNY, 1980, 3000.0 + i);
+            employee.setGroup(group);
+            employees.add(employee);
+        }
+        new EmployeeDAO().saveAll(employees);
+        EmployeeFilterDTO filter = new EmployeeFilterDTO.Builder()
+                .groupName("A")
+                .page(2)
+                .pageSize(10)
+                .includeTotalCount(false)
+                .build();
+        Path file = Files.createTempFile("employees", ".csv");
+
+        try {
+            new CSVExportService().exportFilteredEmployeesToCSV(filter, file.toString(), null);
+
+            // nagłówek i wszystkie wiersze, nie tylko strona widoku
+            assertEquals(46, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertFalse(filter.isKeysetPaging());
+        assertNull(filter.getAfterToken());
+        assertFalse(filter.isIncludeTotalCount());
+        assertEquals(2, filter.getPage());
+        assertEquals("A", filter.getGroupName());
+    }
+}
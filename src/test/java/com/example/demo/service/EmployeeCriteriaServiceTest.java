@@ -0,0 +1,145 @@
+package com.example.demo.service;
+
+import com.example.demo.controller.ClassEmployeeDAO;
+import com.example.demo.controller.EmployeeDAO;
+import com.example.demo.controller.TestDatabase;
+import com.example.demo.model.ClassEmployee;
+import com.example.demo.model.Employee;
+import com.example.demo.model.EmployeeCondition;
+import com.example.demo.model.EmployeeRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmployeeCriteriaServiceTest {
+    private static final int EMPLOYEES = 95;
+    private static final int PAGE_SIZE = 7;
+
+    private final EmployeeDAO employeeDAO = new EmployeeDAO();
+    private ClassEmployee first;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabase.reset();
+        first = new ClassEmployee("A", 1000);
+        ClassEmployee second = new ClassEmployee("B", 1000);
+        new ClassEmployeeDAO().saveAll(List.of(first, second));
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < EMPLOYEES; i++) {
+            // mało różnych wartości kluczy sortowania - strony dzielą się w środku równych wartości
+            employees.add(employee("Nazwisko" + i % 4, 3000.0 + i % 5, i % 3 == 0 ? second : first));
+        }
+        employeeDAO.saveAll(employees);
+    }
+
+    @Test
+    void keysetPagesMatchOffsetPages() {
+        for (boolean compiled : new boolean[]{true, false}) {
+            EmployeeCriteriaService service = new EmployeeCriteriaService();
+            service.setCompiledQueriesEnabled(compiled);
+            for (String[] sort : new String[][]{{"salary", "DESC"}, {"lastName", "ASC"}, {"groupName", "DESC"}}) {
+                List<Long> offsetIds = new ArrayList<>();
+                for (int page = 1; page <= (EMPLOYEES + PAGE_SIZE - 1) / PAGE_SIZE; page++) {
+                    offsetIds.addAll(ids(service.buildDynamicFilterRows(filter(sort).page(page).build())));
+                }
+
+                assertEquals(EMPLOYEES, offsetIds.size());
+                assertEquals(offsetIds, keysetIds(service, sort), "compiled=" + compiled + " sort=" + sort[0]);
+            }
+        }
+    }
+
+    @Test
+    void keysetPagingSkipsCountUnlessRequested() {
+        EmployeeCriteriaService service = new EmployeeCriteriaService();
+
+        PagedResult<EmployeeRow> page = service.buildDynamicFilterRows(
+                filter(new String[]{"salary", "ASC"}).keysetPaging(true).includeTotalCount(false).build());
+
+        assertFalse(page.isTotalCountKnown());
+        assertTrue(page.hasNext());
+        assertEquals(EMPLOYEES, service.buildDynamicFilterRows(
+                filter(new String[]{"salary", "ASC"}).keysetPaging(true).build()).getTotalCount());
+    }
+
+    @Test
+    void cachedCountFollowsEmployeeAddedToGroup() {
+        EmployeeCriteriaService service = new EmployeeCriteriaService();
+        EmployeeFilterDTO filter = new EmployeeFilterDTO.Builder().groupName("A").build();
+        long before = service.buildDynamicFilterRows(filter).getTotalCount();
+
+        new ClassEmployeeDAO().addEmployeeToGroup("A", employee("Nowy", 5000.0, null));
+
+        assertEquals(before + 1, service.buildDynamicFilterRows(filter).getTotalCount());
+    }
+
+    @Test
+    void keysetPagingIsStableUnderInsertsBeforeCursor() {
+        EmployeeCriteriaService service = new EmployeeCriteriaService();
+        String[] sort = {"salary", "ASC"};
+        PagedResult<EmployeeRow> firstPage = service.buildDynamicFilterRows(filter(sort).keysetPaging(true).build());
+
+        // nowy wiersz przed kursorem przesunąłby strony OFFSET o jedną pozycję
+        employeeDAO.save(employee("Nowy", 1.0, first));
+        PagedResult<EmployeeRow> secondPage = service.buildDynamicFilterRows(
+                filter(sort).keysetPaging(true).afterToken(firstPage.getNextPageToken()).build());
+
+        Set<Long> seen = new HashSet<>(ids(firstPage));
+        for (Long id : ids(secondPage)) {
+            assertTrue(seen.add(id), "duplicate id " + id);
+        }
+        assertEquals(2 * PAGE_SIZE, seen.size());
+    }
+
+    @Test
+    void keysetPagingRejectsMalformedOrMismatchedToken() {
+        EmployeeCriteriaService service = new EmployeeCriteriaService();
+        String[] sort = {"salary", "ASC"};
+        String token = service.buildDynamicFilterRows(filter(sort).keysetPaging(true).build()).getNextPageToken();
+
+        // pusta strona wyglądałaby dla klienta jak koniec wyników
+        assertThrows(IllegalArgumentException.class, () -> service.buildDynamicFilterRows(
+                filter(sort).keysetPaging(true).afterToken("nie-token!").build()));
+        assertThrows(IllegalArgumentException.class, () -> service.buildDynamicFilter(
+                filter(new String[]{"salary", "DESC"}).keysetPaging(true).afterToken(token).build()));
+    }
+
+    private static List<Long> keysetIds(EmployeeCriteriaService service, String[] sort) {
+        List<Long> ids = new ArrayList<>();
+        String token = null;
+        do {
+            PagedResult<EmployeeRow> page = service.buildDynamicFilterRows(
+                    filter(sort).keysetPaging(true).includeTotalCount(false).afterToken(token).build());
+            ids.addAll(ids(page));
+            token = page.getNextPageToken();
+        } while (token != null);
+        return ids;
+    }
+
+    private static EmployeeFilterDTO.Builder filter(String[] sort) {
+        return new EmployeeFilterDTO.Builder().sortBy(sort[0]).sortDirection(sort[1]).pageSize(PAGE_SIZE);
+    }
+
+    private static List<Long> ids(PagedResult<EmployeeRow> page) {
+        List<Long> ids = new ArrayList<>();
+        for (EmployeeRow row : page.getData()) {
+            ids.add(row.getId());
+        }
+        return ids;
+    }
+
+    private static Employee employee(String lastName, double salary, ClassEmployee group) {
+        Employee employee = new Employee("Imie", lastName, EmployeeCondition.OBECNY, 1980, salary);
+        employee.setGroup(group);
+        return employee;
+    }
+}